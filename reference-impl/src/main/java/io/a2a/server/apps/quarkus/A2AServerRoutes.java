@@ -34,6 +34,7 @@ import io.a2a.spec.JSONRPCError;
 import io.a2a.spec.JSONRPCErrorResponse;
 import io.a2a.spec.JSONRPCRequest;
 import io.a2a.spec.JSONRPCResponse;
+import io.a2a.spec.ListTasksRequest;
 import io.a2a.spec.MethodNotFoundError;
 import io.a2a.spec.MethodNotFoundJsonMappingException;
 import io.a2a.spec.NonStreamingJSONRPCRequest;
@@ -191,6 +192,8 @@ public class A2AServerRoutes {
             return jsonRpcHandler.getPushNotification((GetTaskPushNotificationConfigRequest) request);
         } else if (request instanceof SendMessageRequest) {
             return jsonRpcHandler.onMessageSend((SendMessageRequest) request);
+        } else if (request instanceof ListTasksRequest) {
+            return jsonRpcHandler.onListTasks((ListTasksRequest) request);
         } else {
             return generateErrorResponse(request, new UnsupportedOperationError());
         }
@@ -4,9 +4,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import io.a2a.server.ServerCallContext;
+import io.a2a.server.util.async.AsyncUtils;
 import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.Message;
 import io.a2a.spec.MessageSendConfiguration;
@@ -22,13 +24,26 @@ public class RequestContext {
     private String contextId;
     private Task task;
     private List<Task> relatedTasks;
+    // Related tasks still being read, which are added to the related tasks once needed
+    private CompletionStage<List<Task>> pendingRelatedTasks;
 
     public RequestContext(MessageSendParams params, String taskId, String contextId, Task task, List<Task> relatedTasks) throws InvalidParamsError {
+        this(params, taskId, contextId, task, relatedTasks, null);
+    }
+
+    /**
+     * Creates a request context whose related tasks include those completing the pending related tasks,
+     * which are waited for when the related tasks are first used, so that they can be read while the agent
+     * starts.
+     */
+    public RequestContext(MessageSendParams params, String taskId, String contextId, Task task, List<Task> relatedTasks,
+                          CompletionStage<List<Task>> pendingRelatedTasks) throws InvalidParamsError {
         this.params = params;
         this.taskId = taskId;
         this.contextId = contextId;
         this.task = task;
         this.relatedTasks = relatedTasks == null ? new ArrayList<>() : relatedTasks;
+        this.pendingRelatedTasks = pendingRelatedTasks;
 
         // if the taskId and contextId were specified, they must match the params
         if (params != null) {
@@ -62,6 +77,7 @@ public class RequestContext {
     }
 
     public List<Task> getRelatedTasks() {
+        resolveRelatedTasks();
         return Collections.unmodifiableList(relatedTasks);
     }
 
@@ -84,9 +100,18 @@ public class RequestContext {
     }
 
     public void attachRelatedTask(Task task) {
+        resolveRelatedTasks();
         relatedTasks.add(task);
     }
 
+    private synchronized void resolveRelatedTasks() {
+        if (pendingRelatedTasks != null) {
+            List<Task> resolved = AsyncUtils.join(pendingRelatedTasks);
+            pendingRelatedTasks = null;
+            relatedTasks.addAll(resolved);
+        }
+    }
+
     private void checkOrGenerateTaskId() {
         if (params == null) {
             return;
@@ -130,6 +155,7 @@ public class RequestContext {
         private String contextId;
         private Task task;
         private List<Task> relatedTasks;
+        private CompletionStage<List<Task>> pendingRelatedTasks;
         private ServerCallContext serverCallContext;
 
         public Builder setParams(MessageSendParams params) {
@@ -157,6 +183,11 @@ public class RequestContext {
             return this;
         }
 
+        public Builder setPendingRelatedTasks(CompletionStage<List<Task>> pendingRelatedTasks) {
+            this.pendingRelatedTasks = pendingRelatedTasks;
+            return this;
+        }
+
         public Builder setServerCallContext(ServerCallContext serverCallContext) {
             this.serverCallContext = serverCallContext;
             return this;
@@ -182,12 +213,16 @@ public class RequestContext {
             return relatedTasks;
         }
 
+        public CompletionStage<List<Task>> getPendingRelatedTasks() {
+            return pendingRelatedTasks;
+        }
+
         public ServerCallContext getServerCallContext() {
             return serverCallContext;
         }
 
         public RequestContext build() {
-            return new RequestContext(params, taskId, contextId, task, relatedTasks);
+            return new RequestContext(params, taskId, contextId, task, relatedTasks, pendingRelatedTasks);
         }
     }
 
@@ -2,34 +2,49 @@ package io.a2a.server.agentexecution;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import io.a2a.server.tasks.AsyncTaskStore;
 import io.a2a.server.tasks.TaskStore;
 import io.a2a.spec.Task;
 
 public class SimpleRequestContextBuilder extends RequestContext.Builder {
     private final TaskStore taskStore;
     private final boolean shouldPopulateReferredTasks;
+    private final Executor executor;
 
     public SimpleRequestContextBuilder(TaskStore taskStore, boolean shouldPopulateReferredTasks) {
+        this(taskStore, shouldPopulateReferredTasks, null);
+    }
+
+    /**
+     * With an executor, the referred tasks are read on it, or asynchronously by the task store if it can,
+     * while the agent starts, and are only waited for once the agent uses them.
+     */
+    public SimpleRequestContextBuilder(TaskStore taskStore, boolean shouldPopulateReferredTasks, Executor executor) {
         this.taskStore = taskStore;
         this.shouldPopulateReferredTasks = shouldPopulateReferredTasks;
+        this.executor = executor;
     }
 
     @Override
     public RequestContext build() {
-        List<Task> relatedTasks = null;
         if (taskStore != null && shouldPopulateReferredTasks && getParams() != null
                 && getParams().message().getReferenceTaskIds() != null) {
-            relatedTasks = new ArrayList<>();
-            for (String taskId : getParams().message().getReferenceTaskIds()) {
-                Task task = taskStore.get(taskId);
-                if (task != null) {
-                    relatedTasks.add(task);
-                }
+            List<String> taskIds = getParams().message().getReferenceTaskIds();
+            if (executor == null) {
+                super.setRelatedTasks(new ArrayList<>(taskStore.getAll(taskIds).values()));
+            } else {
+                AsyncTaskStore asyncTaskStore = taskStore instanceof AsyncTaskStore async
+                        ? async
+                        : AsyncTaskStore.of(taskStore, executor);
+                super.setRelatedTasks(new ArrayList<>());
+                super.setPendingRelatedTasks(asyncTaskStore.getAllAsync(taskIds)
+                        .thenApply(tasks -> List.copyOf(tasks.values())));
             }
+        } else {
+            super.setRelatedTasks(null);
         }
-
-        super.setRelatedTasks(relatedTasks);
         return super.build();
     }
 }
@@ -0,0 +1,79 @@
+package io.a2a.server.events;
+
+/**
+ * The settings of the optional stage of an {@link EventConsumer} which merges bursts of events before
+ * they are processed and emitted.
+ * <p>
+ * When enabled, consecutive artifact updates appending to the same artifact are merged into one, and
+ * non-final status updates which carry no message are replaced by the status update following them.
+ * Final events, messages and errors are never altered or delayed.
+ */
+public final class CoalescingOptions {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /**
+     * Events are passed on one by one, as they are dequeued.
+     */
+    public static final CoalescingOptions DISABLED = new CoalescingOptions(false, 0, 1);
+
+    /**
+     * Merges whatever is already queued when the consumer drains the queue, without ever holding an
+     * event back waiting for more.
+     */
+    public static final CoalescingOptions DEFAULT = new Builder().build();
+
+    private final boolean enabled;
+    private final long maxDelayMillis;
+    private final int maxBatchSize;
+
+    private CoalescingOptions(boolean enabled, long maxDelayMillis, int maxBatchSize) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Max delay must not be negative");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        this.enabled = enabled;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * How long a mergeable event may be held back waiting for the next one, or {@code 0} to only merge
+     * the events already queued.
+     */
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * The maximum number of events merged into one.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public static class Builder {
+        private long maxDelayMillis;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+        public Builder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public CoalescingOptions build() {
+            return new CoalescingOptions(true, maxDelayMillis, maxBatchSize);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.a2a.server.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Event;
+import io.a2a.spec.Part;
+import io.a2a.spec.TaskArtifactUpdateEvent;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatusUpdateEvent;
+
+/**
+ * Merges consecutive events of a task according to {@link CoalescingOptions}.
+ * <p>
+ * At most one event is held back at a time. It is only ever merged with the event directly following
+ * it, so the order of the events passed on is that in which they were added. Merging never changes the
+ * task which results from processing the events.
+ * Not thread-safe, it is only used by the thread draining the queue.
+ */
+class EventCoalescer {
+
+    private final CoalescingOptions options;
+    private Event pending;
+    private int pendingCount;
+    private long pendingSince;
+    private boolean wakeUpScheduled;
+
+    EventCoalescer(CoalescingOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Adds an event, passing on to the sink whichever events can no longer be merged.
+     */
+    void add(Event event, Consumer<Event> sink) {
+        if (!options.isEnabled()) {
+            sink.accept(event);
+            return;
+        }
+        if (pending != null) {
+            Event merged = merge(pending, event);
+            if (merged != null) {
+                pending = merged;
+                pendingCount++;
+                if (pendingCount >= options.getMaxBatchSize() || !isMergeable(merged)) {
+                    flush(sink);
+                }
+                return;
+            }
+            flush(sink);
+        }
+        if (isMergeable(event) && options.getMaxBatchSize() > 1) {
+            pending = event;
+            pendingCount = 1;
+            pendingSince = System.nanoTime();
+            wakeUpScheduled = false;
+        } else {
+            sink.accept(event);
+        }
+    }
+
+    boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * The number of events added which were merged into the pending event.
+     */
+    int pendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * How much longer the pending event may be held back, or a non-positive value if it is due.
+     */
+    long remainingDelayNanos() {
+        return pendingSince + options.getMaxDelayMillis() * 1_000_000L - System.nanoTime();
+    }
+
+    /**
+     * Records that a wake-up was scheduled for the pending event, returning {@code false} if there
+     * already was one.
+     */
+    boolean scheduleWakeUp() {
+        if (wakeUpScheduled) {
+            return false;
+        }
+        wakeUpScheduled = true;
+        return true;
+    }
+
+    void flush(Consumer<Event> sink) {
+        if (pending != null) {
+            Event event = pending;
+            pending = null;
+            pendingCount = 0;
+            sink.accept(event);
+        }
+    }
+
+    private static boolean isMergeable(Event event) {
+        if (event instanceof TaskStatusUpdateEvent tsue) {
+            return isRedundantStatus(tsue);
+        } else if (event instanceof TaskArtifactUpdateEvent taue) {
+            return !Boolean.TRUE.equals(taue.isLastChunk());
+        }
+        return false;
+    }
+
+    // A status update which the next one may replace without the task's history or any interruption
+    // being affected
+    private static boolean isRedundantStatus(TaskStatusUpdateEvent event) {
+        TaskState state = event.getStatus().state();
+        return !event.isFinal()
+                && (state == TaskState.WORKING || state == TaskState.SUBMITTED)
+                && event.getStatus().message() == null;
+    }
+
+    private static Event merge(Event pending, Event next) {
+        if (pending instanceof TaskStatusUpdateEvent previous && next instanceof TaskStatusUpdateEvent current) {
+            if (isRedundantStatus(previous)
+                    && previous.getTaskId().equals(current.getTaskId())
+                    && previous.getContextId().equals(current.getContextId())
+                    && (previous.getMetadata() == null || previous.getMetadata().equals(current.getMetadata()))) {
+                return current;
+            }
+        } else if (pending instanceof TaskArtifactUpdateEvent previous && next instanceof TaskArtifactUpdateEvent current) {
+            Artifact artifact = previous.getArtifact();
+            if (Boolean.TRUE.equals(current.isAppend())
+                    && !Boolean.TRUE.equals(previous.isLastChunk())
+                    && previous.getTaskId().equals(current.getTaskId())
+                    && previous.getContextId().equals(current.getContextId())
+                    && artifact.artifactId().equals(current.getArtifact().artifactId())
+                    && (current.getMetadata() == null || Objects.equals(previous.getMetadata(), current.getMetadata()))) {
+                // Appended parts are added to the existing artifact, whose other fields are kept
+                List<Part<?>> parts = new ArrayList<>(artifact.parts().size() + current.getArtifact().parts().size());
+                parts.addAll(artifact.parts());
+                parts.addAll(current.getArtifact().parts());
+                return new TaskArtifactUpdateEvent(
+                        previous.getTaskId(),
+                        new Artifact.Builder(artifact).parts(parts).build(),
+                        previous.getContextId(),
+                        previous.isAppend(),
+                        current.isLastChunk(),
+                        previous.getMetadata());
+            }
+        }
+        return null;
+    }
+}
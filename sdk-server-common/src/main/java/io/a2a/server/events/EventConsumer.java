@@ -1,6 +1,16 @@
 package io.a2a.server.events;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Event;
@@ -8,19 +18,44 @@ import io.a2a.spec.Message;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskStatusUpdateEvent;
 import mutiny.zero.BackpressureStrategy;
+import mutiny.zero.Tube;
 import mutiny.zero.TubeConfiguration;
 import mutiny.zero.ZeroPublisher;
 
 public class EventConsumer {
     private final EventQueue queue;
-    private Throwable error;
+    private final CoalescingOptions coalescingOptions;
+    private final Executor executor;
+    private volatile Throwable error;
 
     private static final String ERROR_MSG = "Agent did not return any response";
     private static final int NO_WAIT = -1;
-    private static final int QUEUE_WAIT_MILLISECONDS = 500;
+
+    /**
+     * The maximum number of events dequeued at once.
+     */
+    public static final int MAX_BATCH_SIZE = 64;
 
     public EventConsumer(EventQueue queue) {
+        this(queue, CoalescingOptions.DISABLED);
+    }
+
+    /**
+     * Creates a consumer which merges bursts of events as they are drained from the queue, as configured
+     * by the coalescing options. Only {@link #consumeAll()} and {@link #consumeAllBatches()} merge events.
+     */
+    public EventConsumer(EventQueue queue, CoalescingOptions coalescingOptions) {
+        this(queue, coalescingOptions, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a consumer which drains the queue on the executor, so that the events are emitted, and
+     * processed by the subscribers, on its threads rather than on the thread enqueuing them.
+     */
+    public EventConsumer(EventQueue queue, CoalescingOptions coalescingOptions, Executor executor) {
         this.queue = queue;
+        this.coalescingOptions = coalescingOptions;
+        this.executor = executor;
     }
 
     public Event consumeOne() throws A2AServerException, EventQueueClosedException {
@@ -35,76 +70,283 @@ public class EventConsumer {
         TubeConfiguration conf = new TubeConfiguration()
                 .withBackpressureStrategy(BackpressureStrategy.BUFFER)
                 .withBufferSize(256);
-        return ZeroPublisher.create(conf, tube -> {
-            boolean completed = false;
+        // Rather than polling the queue from a dedicated loop, events are drained whenever the queue
+        // signals an enqueue or close, the agent fails, or the subscriber requests more.
+        return ZeroPublisher.create(conf, tube -> new EventDrainer(tube).start());
+    }
+
+    /**
+     * As {@link #consumeAll()}, but emits the events in batches of up to {@link #MAX_BATCH_SIZE} events,
+     * each holding whatever was queued when the queue was drained, so that they can be processed as a
+     * group. Each batch is non-empty.
+     *
+     * @see #recordSnapshot(Task, List)
+     */
+    public Flow.Publisher<List<Event>> consumeAllBatches() {
+        TubeConfiguration conf = new TubeConfiguration()
+                .withBackpressureStrategy(BackpressureStrategy.BUFFER)
+                .withBufferSize(256);
+        return ZeroPublisher.create(conf, tube -> new BatchDrainer(tube).start());
+    }
+
+    /**
+     * Records the task resulting from the processing of a batch emitted by {@link #consumeAllBatches()}, or
+     * of a sub list starting it, and of the batches before it, so that the taps of the queue replaying since the latest snapshot start from it.
+     * Does nothing for any other list of events.
+     */
+    public void recordSnapshot(Task task, List<Event> batch) {
+        if (batch instanceof SequencedBatch sequenced) {
+            queue.recordSnapshot(task, sequenced.nextSequence);
+        }
+    }
+
+    private static boolean isFinalEvent(Event event) {
+        if (event instanceof TaskStatusUpdateEvent tue) {
+            return tue.isFinal();
+        } else if (event instanceof Message) {
+            return true;
+        } else if (event instanceof Task task) {
+            switch (task.getStatus().state()) {
+                case COMPLETED:
+                case CANCELED:
+                case FAILED:
+                case REJECTED:
+                case UNKNOWN:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public EnhancedRunnable.DoneCallback createAgentRunnableDoneCallback() {
+        return agentRunnable -> {
+            if (agentRunnable.getError() != null) {
+                error = agentRunnable.getError();
+                queue.notifyListeners();
+            }
+        };
+    }
+
+    private abstract class QueueDrainer<T> implements Runnable {
+        final Tube<T> tube;
+        private final EventCoalescer coalescer = new EventCoalescer(coalescingOptions);
+        // Only used by the draining thread
+        private final List<Event> polled = new ArrayList<>();
+        final List<Event> ready = new ArrayList<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+
+        QueueDrainer(Tube<T> tube) {
+            this.tube = tube;
+        }
+
+        /**
+         * The maximum number of events to dequeue at once, given the outstanding requests.
+         */
+        abstract int batchLimit(long outstandingRequests);
+
+        /**
+         * Sends the events which are ready, which are then cleared.
+         */
+        abstract void emitReady();
+
+        void start() {
+            tube.whenRequested(n -> run());
+            tube.whenCancelled(this::finish);
+            queue.addListener(this);
+            queue.signalQueuePollerStarted();
+            run();
+        }
+
+        /**
+         * Schedules a drain of the queue. This is run on the threads signalling the queue, such as the agent's
+         * while it enqueues an event, so it only hands the drain over to the executor.
+         */
+        @Override
+        public void run() {
+            // Signals may arrive concurrently from the agent, the subscriber and the queue itself, so
+            // only one drain runs at a time and picks up any signals missed while it was draining
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
             try {
-                while (true) {
-                    if (error != null) {
-                        completed = true;
-                        tube.fail(error);
-                        return;
-                    }
-                    // We use a timeout when waiting for an event from the queue.
-                    // This is required because it allows the loop to check if
-                    // `self._exception` has been set by the `agent_task_callback`.
-                    // Without the timeout, loop might hang indefinitely if no events are
-                    // enqueued by the agent and the agent simply threw an exception
-
-                    // TODO the callback mentioned above seems unused in the Python 0.2.1 tag
-                    Event event;
-                    try {
-                        event = queue.dequeueEvent(QUEUE_WAIT_MILLISECONDS);
-                        if (event == null) {
-                            continue;
-                        }
-                        if (event instanceof Throwable thr) {
-                            tube.fail(thr);
-                            return;
-                        }
-                        tube.send(event);
-                    } catch (EventQueueClosedException e) {
-                        completed = true;
-                        tube.complete();
-                        return;
-                    } catch (Throwable t) {
-                        tube.fail(t);
-                        return;
-                    }
+                executor.execute(this::drainWhileSignalled);
+            } catch (RejectedExecutionException e) {
+                finish();
+                tube.fail(e);
+            }
+        }
 
-                    boolean isFinalEvent = false;
-                    if (event instanceof TaskStatusUpdateEvent tue && tue.isFinal()) {
-                        isFinalEvent = true;
-                    } else if (event instanceof Message) {
-                        isFinalEvent = true;
-                    } else if (event instanceof Task task) {
-                        switch (task.getStatus().state()) {
-                            case COMPLETED:
-                            case CANCELED:
-                            case FAILED:
-                            case REJECTED:
-                            case UNKNOWN:
-                                isFinalEvent = true;
-                        }
-                    }
+        private void drainWhileSignalled() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
 
-                    if (isFinalEvent) {
-                        queue.close();
+        private void drain() {
+            while (!done) {
+                if (tube.cancelled()) {
+                    finish();
+                    return;
+                }
+                if (error != null) {
+                    flushPending();
+                    finish();
+                    tube.fail(error);
+                    return;
+                }
+                long outstandingRequests = tube.outstandingRequests();
+                if (outstandingRequests <= 0) {
+                    return;
+                }
+                try {
+                    queue.drainEvents(polled, batchLimit(outstandingRequests), NO_WAIT);
+                } catch (EventQueueClosedException e) {
+                    flushPending();
+                    finish();
+                    tube.complete();
+                    return;
+                } catch (Throwable t) {
+                    finish();
+                    tube.fail(t);
+                    return;
+                }
+                if (polled.isEmpty()) {
+                    flushOrAwaitMore();
+                    return;
+                }
+                Throwable failure = null;
+                for (Event event : polled) {
+                    if (event instanceof Throwable thr) {
+                        coalescer.flush(ready::add);
+                        failure = thr;
+                        break;
+                    }
+                    coalescer.add(event, ready::add);
+                }
+                polled.clear();
+                // Nothing following a final event is sent
+                boolean terminal = false;
+                for (int i = 0; i < ready.size(); i++) {
+                    if (isFinalEvent(ready.get(i))) {
+                        ready.subList(i + 1, ready.size()).clear();
+                        terminal = true;
                         break;
                     }
                 }
-            } finally {
-                if (!completed) {
+                emitReady();
+                if (terminal) {
+                    finish();
+                    queue.close();
                     tube.complete();
+                    return;
+                }
+                if (failure != null) {
+                    finish();
+                    tube.fail(failure);
+                    return;
                 }
             }
-        });
+        }
+
+        /**
+         * The sequence number of the event following those emitted so far, which excludes the events held
+         * back for merging.
+         */
+        long emittedPosition() {
+            return queue.position() - coalescer.pendingCount();
+        }
+
+        private void flushPending() {
+            coalescer.flush(ready::add);
+            emitReady();
+        }
+
+        // Called once the queue is drained, to decide whether the event held back for merging is sent
+        private void flushOrAwaitMore() {
+            if (!coalescer.hasPending()) {
+                return;
+            }
+            long remaining = coalescer.remainingDelayNanos();
+            if (remaining <= 0) {
+                flushPending();
+            } else if (coalescer.scheduleWakeUp()) {
+                CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(this);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            queue.removeListener(this);
+        }
     }
 
-    public EnhancedRunnable.DoneCallback createAgentRunnableDoneCallback() {
-        return agentRunnable -> {
-            if (agentRunnable.getError() != null) {
-                error = agentRunnable.getError();
+    private class EventDrainer extends QueueDrainer<Event> {
+
+        EventDrainer(Tube<Event> tube) {
+            super(tube);
+        }
+
+        @Override
+        int batchLimit(long outstandingRequests) {
+            return (int) Math.min(outstandingRequests, MAX_BATCH_SIZE);
+        }
+
+        @Override
+        void emitReady() {
+            for (Event event : ready) {
+                tube.send(event);
             }
-        };
+            ready.clear();
+        }
+    }
+
+    private class BatchDrainer extends QueueDrainer<List<Event>> {
+
+        BatchDrainer(Tube<List<Event>> tube) {
+            super(tube);
+        }
+
+        @Override
+        int batchLimit(long outstandingRequests) {
+            return MAX_BATCH_SIZE;
+        }
+
+        @Override
+        void emitReady() {
+            if (!ready.isEmpty()) {
+                tube.send(new SequencedBatch(List.copyOf(ready), emittedPosition()));
+                ready.clear();
+            }
+        }
+    }
+
+    // A batch of events, with the sequence number of the event following them in the queue
+    private static final class SequencedBatch extends AbstractList<Event> implements RandomAccess {
+        private final List<Event> events;
+        private final long nextSequence;
+
+        SequencedBatch(List<Event> events, long nextSequence) {
+            this.events = events;
+            this.nextSequence = nextSequence;
+        }
+
+        @Override
+        public Event get(int index) {
+            return events.get(index);
+        }
+
+        @Override
+        public int size() {
+            return events.size();
+        }
+
+        // So that a snapshot can be recorded after processing the start of a batch
+        @Override
+        public List<Event> subList(int fromIndex, int toIndex) {
+            return new SequencedBatch(events.subList(fromIndex, toIndex), nextSequence - (events.size() - toIndex));
+        }
     }
 }
@@ -0,0 +1,404 @@
+package io.a2a.server.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.a2a.spec.Event;
+import io.a2a.spec.InternalError;
+import io.a2a.spec.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of the events of a task, shared by the consumer and all the taps of its {@link EventQueue}.
+ * <p>
+ * Each event is written to the log once, however many taps there are, and each reader reads it through
+ * its own {@link Cursor}. The log is a singly linked list of fixed-size segments. Only the segment
+ * currently being written is referenced by the log itself; older segments are only reachable from
+ * the cursors still positioned in them, so a segment is reclaimed as soon as every cursor has moved
+ * past it.
+ * <p>
+ * Appending never waits for a cursor. Instead, as soon as an append leaves a cursor lagging more than
+ * its maximum behind, it has its {@link OverflowPolicy} applied, which moves it forward or detaches it.
+ * This bounds the memory pinned by a stalled reader. Rather than scanning the cursors on every append,
+ * the log keeps the sequence number at which the first of them could exceed its maximum lag, as of their
+ * positions when they were last scanned, and only scans them once it is reached. Since cursors only move
+ * forward, none can exceed its maximum lag before then.
+ * <p>
+ * The log may also retain its most recent events, up to a replay capacity, so that a cursor opened
+ * late can be handed the events which preceded it. Retention is by whole segments, so up to one more
+ * segment than the capacity is kept. It also keeps the latest snapshot of the task recorded by the
+ * consumers processing the events, with the sequence number of the event following it, so that a cursor
+ * can start from that snapshot and the events which came after it. A cursor coalescing to a snapshot
+ * when lagging skips to that snapshot likewise, so that it misses none of the events which followed it.
+ */
+class EventLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLog.class);
+
+    static final int DEFAULT_SEGMENT_SIZE = 128;
+
+    private final int segmentSize;
+    private final int replayCapacity;
+    private final SubscriberOverflowMetrics metrics;
+    private final Set<Cursor> cursors = ConcurrentHashMap.newKeySet();
+    // Guarded by this. The head is the oldest segment retained for replay, which is the tail if nothing is
+    // retained.
+    private Segment head;
+    private Segment tail;
+    private int waiters;
+    // The sequence number of the next event to be appended. Written while holding the lock, after the
+    // event itself, so that readers seeing the new value also see the event.
+    private volatile long appended;
+    // Guarded by this. The task as it was after the events preceding snapshotSequence were applied to it.
+    private Task snapshot;
+    private long snapshotSequence;
+    // Guarded by this. The number of appended events at which a cursor may first lag more than its maximum
+    private long nextLagCheck = Long.MAX_VALUE;
+    // Guarded by this. Whether a cursor lags more than its maximum until a snapshot following more events
+    // is recorded
+    private boolean awaitingSnapshot;
+
+    EventLog() {
+        this(DEFAULT_SEGMENT_SIZE, new SubscriberOverflowMetrics());
+    }
+
+    EventLog(int segmentSize, SubscriberOverflowMetrics metrics) {
+        this(segmentSize, 0, metrics);
+    }
+
+    EventLog(int segmentSize, int replayCapacity, SubscriberOverflowMetrics metrics) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        if (replayCapacity < 0) {
+            throw new IllegalArgumentException("Replay capacity must not be negative");
+        }
+        this.segmentSize = segmentSize;
+        this.replayCapacity = replayCapacity;
+        this.metrics = metrics;
+        this.tail = new Segment(0, segmentSize);
+        this.head = tail;
+    }
+
+    /**
+     * Whether the most recent events are retained, to be replayed to later cursors.
+     */
+    boolean retainsEvents() {
+        return replayCapacity > 0;
+    }
+
+    boolean hasCursors() {
+        return !cursors.isEmpty();
+    }
+
+    int cursorCount() {
+        return cursors.size();
+    }
+
+    long appended() {
+        return appended;
+    }
+
+    synchronized void append(Event event) {
+        long sequence = appended;
+        int offset = (int) (sequence - tail.base);
+        if (offset == segmentSize) {
+            Segment next = new Segment(sequence, segmentSize);
+            tail.next = next;
+            tail = next;
+            offset = 0;
+            while (head != tail && head.next.base <= sequence - replayCapacity) {
+                head = head.next;
+            }
+        }
+        tail.events[offset] = event;
+        appended = sequence + 1;
+        if (appended >= nextLagCheck) {
+            enforceMaxLag();
+        }
+        if (waiters > 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Opens a cursor positioned after the last appended event.
+     */
+    synchronized Cursor openCursor(TapOptions options) {
+        Cursor cursor = new Cursor(tail, appended, options);
+        cursors.add(cursor);
+        nextLagCheck = Math.min(nextLagCheck, lagCheck(appended, cursor));
+        return cursor;
+    }
+
+    /**
+     * Opens a cursor positioned after the last appended event, together with the replay of the retained
+     * events preceding it requested by the options. Since both happen atomically, the cursor reads on from
+     * where the replay ends, and a replay since the latest snapshot starts right after it.
+     */
+    synchronized ReplayingCursor openReplayingCursor(TapOptions options) {
+        long end = appended;
+        long start = end;
+        Task replayedSnapshot = null;
+        if (options.isReplaySinceSnapshot()) {
+            start = snapshotSequence;
+            replayedSnapshot = snapshot;
+        } else if (options.getReplay() > 0) {
+            start = end - options.getReplay();
+        }
+        start = Math.max(start, Math.max(head.base, end - replayCapacity));
+        if (options.isReplaySinceSnapshot() && start > snapshotSequence) {
+            LOGGER.debug("Events {} to {} following the snapshot are no longer retained", snapshotSequence, start);
+        }
+        List<Event> events = new ArrayList<>((int) (end - start));
+        Segment segment = head;
+        for (long sequence = start; sequence < end; sequence++) {
+            while (sequence >= segment.base + segmentSize) {
+                segment = segment.next;
+            }
+            events.add(segment.events[(int) (sequence - segment.base)]);
+        }
+        return new ReplayingCursor(openCursor(options), new EventQueue.Replay(start, events, replayedSnapshot));
+    }
+
+    /**
+     * Records the task as it was after the events preceding {@code nextSequence} were applied to it,
+     * unless a snapshot following more events was recorded already.
+     */
+    synchronized void recordSnapshot(Task task, long nextSequence) {
+        if (task != null && nextSequence >= snapshotSequence && nextSequence <= appended) {
+            snapshot = task;
+            snapshotSequence = nextSequence;
+            if (awaitingSnapshot) {
+                enforceMaxLag();
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void enforceMaxLag() {
+        long latest = appended;
+        long next = Long.MAX_VALUE;
+        boolean awaiting = false;
+        for (Cursor cursor : cursors) {
+            long current = cursor.effectivePosition();
+            long position = current;
+            long lag = latest - current;
+            if (lag > cursor.maxLag) {
+                switch (cursor.overflowPolicy) {
+                    case DROP_OLDEST -> {
+                        long target = latest - cursor.maxLag;
+                        cursor.skipTo(new Skip(cursor.segmentFor(target), target, null, false, false));
+                        position = target;
+                    }
+                    case COALESCE_TO_SNAPSHOT -> {
+                        if (snapshot == null) {
+                            // No consumer records snapshots, so the supplier's is the only one
+                            cursor.skipTo(new Skip(tail, latest, null, true, false));
+                            position = latest;
+                        } else if (snapshotSequence > current) {
+                            // The recorded snapshot is exact, so the events which followed it are still read
+                            cursor.skipTo(new Skip(cursor.segmentFor(snapshotSequence), snapshotSequence, snapshot,
+                                    false, false));
+                            position = snapshotSequence;
+                        }
+                    }
+                    case DISCONNECT -> {
+                        cursors.remove(cursor);
+                        cursor.skipTo(new Skip(null, latest, null, false, true));
+                        position = latest;
+                    }
+                }
+                if (position != current) {
+                    metrics.record(cursor.overflowPolicy, position - current);
+                    LOGGER.debug("Tap lagging {} events behind, applied {} to {}", lag, cursor.overflowPolicy, cursor);
+                }
+                if (cursor.overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    continue;
+                }
+                if (latest - position > cursor.maxLag) {
+                    // Still lagging, until the consumers record a snapshot following more events
+                    awaiting = true;
+                    continue;
+                }
+            }
+            next = Math.min(next, lagCheck(position, cursor));
+        }
+        nextLagCheck = next;
+        awaitingSnapshot = awaiting;
+    }
+
+    // The number of appended events at which the cursor at the position lags more than its maximum behind
+    private static long lagCheck(long position, Cursor cursor) {
+        return position + cursor.maxLag + 1;
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final Event[] events;
+        private Segment next;
+
+        private Segment(long base, int size) {
+            this.base = base;
+            this.events = new Event[size];
+        }
+    }
+
+    // The snapshot to read before the events from the position on, if any, or else whether to read the one
+    // supplied by the cursor's options
+    private record Skip(Segment segment, long position, Task snapshot, boolean supplySnapshot, boolean disconnect) {
+    }
+
+    record ReplayingCursor(Cursor cursor, EventQueue.Replay replay) {
+    }
+
+    final class Cursor {
+        private final OverflowPolicy overflowPolicy;
+        private final int maxLag;
+        private final Supplier<Task> snapshotSupplier;
+        // Written by the log when the overflow policy is applied, and applied by the reader
+        private final AtomicReference<Skip> pendingSkip = new AtomicReference<>();
+        // Only advanced by the reader, but read by the log to find where to skip to
+        private volatile Segment segment;
+        private volatile long position;
+        private volatile boolean closed;
+
+        private Cursor(Segment segment, long position, TapOptions options) {
+            this.segment = segment;
+            this.position = position;
+            this.overflowPolicy = options.getOverflowPolicy();
+            this.maxLag = options.getMaxLag();
+            this.snapshotSupplier = options.getSnapshotSupplier();
+        }
+
+        synchronized Event poll() {
+            if (closed) {
+                return null;
+            }
+            Skip skip = pendingSkip.getAndSet(null);
+            if (skip != null) {
+                if (skip.disconnect()) {
+                    close();
+                    return new InternalError("Subscriber fell too far behind the task's events and was disconnected");
+                }
+                if (skip.position() > position) {
+                    segment = skip.segment();
+                    position = skip.position();
+                    Task snapshot = skip.supplySnapshot() ? snapshotSupplier.get() : skip.snapshot();
+                    if (snapshot != null) {
+                        return snapshot;
+                    }
+                }
+            }
+            if (position >= appended) {
+                return null;
+            }
+            int offset = (int) (position - segment.base);
+            if (offset == segmentSize) {
+                // The next segment was linked before the event was published
+                segment = segment.next;
+                offset = 0;
+            }
+            Event event = segment.events[offset];
+            position++;
+            return event;
+        }
+
+        /**
+         * Reads up to {@code maxEvents} events without waiting, adding them to the sink in order.
+         */
+        synchronized int drainTo(List<Event> sink, int maxEvents) {
+            int drained = 0;
+            Event event;
+            while (drained < maxEvents && (event = poll()) != null) {
+                sink.add(event);
+                drained++;
+            }
+            return drained;
+        }
+
+        Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            Event event = poll();
+            if (event != null || closed) {
+                return event;
+            }
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (EventLog.this) {
+                waiters++;
+                try {
+                    long remaining;
+                    // A closed cursor counts as empty, but is not waited on
+                    while (!closed && isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(EventLog.this, remaining);
+                    }
+                } finally {
+                    waiters--;
+                }
+            }
+            return poll();
+        }
+
+        boolean isEmpty() {
+            return closed || (pendingSkip.get() == null && position >= appended);
+        }
+
+        /**
+         * The sequence number of the next event to be read.
+         */
+        long position() {
+            return position;
+        }
+
+        /**
+         * The number of events appended to the log which this cursor has not read yet.
+         */
+        long lag() {
+            return closed ? 0 : appended - effectivePosition();
+        }
+
+        /**
+         * Detaches the cursor from the log, releasing the segments it still references.
+         */
+        synchronized void close() {
+            closed = true;
+            segment = null;
+            pendingSkip.set(null);
+            cursors.remove(this);
+            // Wakes up a reader waiting for events, which returns none rather than waiting out its timeout
+            synchronized (EventLog.this) {
+                if (waiters > 0) {
+                    EventLog.this.notifyAll();
+                }
+            }
+        }
+
+        private long effectivePosition() {
+            Skip skip = pendingSkip.get();
+            long current = position;
+            return skip != null && skip.position() > current ? skip.position() : current;
+        }
+
+        // Called with the log's lock held, for a sequence at or after the cursor's position
+        private Segment segmentFor(long sequence) {
+            Skip skip = pendingSkip.get();
+            Segment current = skip != null && skip.segment() != null ? skip.segment() : segment;
+            if (current == null) {
+                return tail;
+            }
+            while (current.next != null && current.next.base <= sequence) {
+                current = current.next;
+            }
+            return current;
+        }
+
+        private void skipTo(Skip skip) {
+            pendingSkip.set(skip);
+        }
+    }
+}
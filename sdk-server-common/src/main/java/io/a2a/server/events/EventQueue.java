@@ -1,15 +1,21 @@
 package io.a2a.server.events;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.a2a.spec.Event;
+import io.a2a.spec.Task;
+import io.a2a.util.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,15 +23,28 @@ public abstract class EventQueue implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventQueue.class);
 
-    // TODO decide on a capacity
-    private static final int queueSize = 1000;
-
-    private final BlockingQueue<Event> queue = new LinkedBlockingDeque<>();
-    private final Semaphore semaphore = new Semaphore(queueSize, true);
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * The number of recent events a queue retains by default, to replay them to taps created late.
+     */
+    public static final int DEFAULT_REPLAY_CAPACITY = 128;
+
+    /**
+     * Taps are disconnected once they lag {@link #DEFAULT_QUEUE_SIZE} events behind, unless configured
+     * otherwise.
+     */
+    public static final TapOptions DEFAULT_TAP_OPTIONS = new TapOptions.Builder()
+            .overflowPolicy(OverflowPolicy.DISCONNECT)
+            .maxLag(DEFAULT_QUEUE_SIZE)
+            .build();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final long createdNanos = System.nanoTime();
+    private volatile long lastActivityNanos = createdNanos;
+    private final AtomicInteger runningProducers = new AtomicInteger();
     private volatile boolean closed = false;
 
-
-
     protected EventQueue() {
         this(null);
     }
@@ -35,12 +54,17 @@ public abstract class EventQueue implements AutoCloseable {
     }
 
     public static EventQueue create() {
-        
-        return new MainQueue();
+        return new Builder().build();
     }
 
     public abstract void awaitQueuePollerStart() throws InterruptedException ;
 
+    /**
+     * Completes once something started polling the queue, so that callers can react to it without
+     * blocking a thread. The stage is read-only and never completes exceptionally.
+     */
+    public abstract CompletionStage<Void> pollerStarted();
+
     abstract void signalQueuePollerStarted();
 
     public void enqueueEvent(Event event) {
@@ -48,40 +72,132 @@ public abstract class EventQueue implements AutoCloseable {
             LOGGER.warn("Queue is closed. Event will not be enqueued. {} {}", this, event);
             return;
         }
-        // Call toString() since for errors we don't really want the full stacktrace
         try {
-            semaphore.acquire();
+            put(event);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Unable to acquire the semaphore to enqueue the event", e);
+            throw new RuntimeException("Unable to enqueue the event", e);
         }
-        queue.add(event);
+        touch();
+        // Call toString() since for errors we don't really want the full stacktrace
         LOGGER.debug("Enqueued event {} {}", event instanceof Throwable ? event.toString() : event, this);
+        notifyListeners();
+    }
+
+    /**
+     * Records that an event was enqueued or dequeued, for the queue's idle time to be tracked.
+     */
+    void touch() {
+        lastActivityNanos = System.nanoTime();
+    }
+
+    /**
+     * Records that an agent started producing the events of the queue, so that the queue is not reaped for
+     * being idle until it is done.
+     */
+    public void producerStarted() {
+        runningProducers.incrementAndGet();
+    }
+
+    /**
+     * Records that an agent registered by {@link #producerStarted()} is done producing events.
+     */
+    public void producerDone() {
+        runningProducers.decrementAndGet();
+    }
+
+    boolean hasRunningProducer() {
+        return runningProducers.get() > 0;
+    }
+
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Registers a listener which is run whenever an event is enqueued or the queue is closed, so that
+     * consumers can drain the queue when signalled rather than polling it.
+     * The listener runs on the thread making the change and must not block.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
     }
 
-    abstract EventQueue tap();
+    abstract void put(Event event) throws InterruptedException;
+
+    abstract Event poll();
+
+    abstract Event poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    abstract int drainTo(List<Event> sink, int maxEvents);
+
+    abstract boolean isEmpty();
+
+    EventQueue tap() {
+        return tap(null);
+    }
+
+    abstract EventQueue tap(TapOptions options);
+
+    /**
+     * The events which preceded the creation of this tap and were replayed to it, as requested by
+     * {@link TapOptions#getReplay()}. The events read from the tap follow on from the last of them.
+     */
+    public Replay getReplay() {
+        return Replay.NONE;
+    }
+
+    /**
+     * The sequence number of the next event to be dequeued, numbering the events in the order in which they
+     * were enqueued on the main queue.
+     */
+    abstract long position();
+
+    /**
+     * Records the task as it was after the events preceding {@code nextSequence} were applied to it, for the
+     * taps created later to start from it.
+     */
+    abstract void recordSnapshot(Task task, long nextSequence);
 
     public Event dequeueEvent(int waitMilliSeconds) throws EventQueueClosedException {
-        if (closed && queue.isEmpty()) {
+        if (closed && isEmpty()) {
             LOGGER.debug("Queue is closed, and empty. Sending termination message. {}", this);
             throw new EventQueueClosedException();
         }
         try {
             if (waitMilliSeconds <= 0) {
-                Event event = queue.poll();
+                Event event = poll();
                 if (event != null) {
+                    touch();
                     // Call toString() since for errors we don't really want the full stacktrace
                     LOGGER.debug("Dequeued event (no wait) {} {}", this, event instanceof Throwable ? event.toString() : event);
-                    semaphore.release();
                 }
                 return event;
             }
             try {
-                Event event = queue.poll(waitMilliSeconds, TimeUnit.MILLISECONDS);
+                Event event = poll(waitMilliSeconds, TimeUnit.MILLISECONDS);
                 if (event != null) {
+                    touch();
                     // Call toString() since for errors we don't really want the full stacktrace
                     LOGGER.debug("Dequeued event (waiting) {} {}", this, event instanceof Throwable ? event.toString() : event);
-                    semaphore.release();
                 }
                 return event;
             } catch (InterruptedException e) {
@@ -94,12 +210,73 @@ public abstract class EventQueue implements AutoCloseable {
         }
     }
 
+    /**
+     * Dequeues up to {@code maxEvents} events in one go, for consumers draining the queue. The queue is
+     * only touched once per call rather than once per event.
+     *
+     * @param waitMilliSeconds how long to wait for the first event if the queue is empty, or a non-positive
+     *                         value not to wait
+     * @return the events dequeued, in order, which is empty if there were none
+     * @throws EventQueueClosedException if the queue is closed and no events are left
+     */
+    public List<Event> drainEvents(int maxEvents, int waitMilliSeconds) throws EventQueueClosedException {
+        List<Event> events = new ArrayList<>(Math.min(maxEvents, 16));
+        drainEvents(events, maxEvents, waitMilliSeconds);
+        return events;
+    }
+
+    /**
+     * As {@link #drainEvents(int, int)}, adding the events to the given list.
+     *
+     * @return the number of events dequeued
+     */
+    public int drainEvents(List<Event> sink, int maxEvents, int waitMilliSeconds) throws EventQueueClosedException {
+        Assert.checkNotNullParam("sink", sink);
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("The maximum number of events must be positive");
+        }
+        if (closed && isEmpty()) {
+            LOGGER.debug("Queue is closed, and empty. Sending termination message. {}", this);
+            throw new EventQueueClosedException();
+        }
+        try {
+            int drained = drainTo(sink, maxEvents);
+            if (drained == 0 && waitMilliSeconds > 0) {
+                try {
+                    Event event = poll(waitMilliSeconds, TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        sink.add(event);
+                        drained = 1 + drainTo(sink, maxEvents - 1);
+                    }
+                } catch (InterruptedException e) {
+                    LOGGER.debug("Interrupted dequeue (waiting) {}", this);
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (drained > 0) {
+                touch();
+                LOGGER.debug("Dequeued {} events {}", drained, this);
+            }
+            return drained;
+        } finally {
+            signalQueuePollerStarted();
+        }
+    }
+
     public void taskDone() {
         // TODO Not sure if needed yet. BlockingQueue.poll()/.take() remove the events.
     }
 
     public abstract void close();
 
+    /**
+     * Detaches a tap from the queue it was tapped from, once its subscriber has gone away. The tap is
+     * closed and no longer receives the events enqueued afterwards, while the queue it was tapped from
+     * stays open. Does nothing for a queue which is not a tap.
+     */
+    public void detach() {
+    }
+
     public void doClose() {
         synchronized (this) {
             if (closed) {
@@ -108,6 +285,7 @@ public abstract class EventQueue implements AutoCloseable {
             LOGGER.debug("Closing {}", this);
             closed = true;
         }
+        notifyListeners();
         // Although the Python implementation drains the queue on closing,
         // here it makes events go missing
         // TODO do we actually need to drain it? If we do, we need some mechanism to determine that noone is
@@ -116,38 +294,216 @@ public abstract class EventQueue implements AutoCloseable {
         //queue.drainTo(new ArrayList<>());
     }
 
+    /**
+     * Events replayed to a tap, numbered in the order in which they were enqueued: the first has the
+     * sequence number {@code firstSequence}, and the events read from the tap afterwards continue from
+     * {@link #nextSequence()}.
+     * <p>
+     * When replaying since the latest snapshot, {@code snapshot} is the task as it was right before the
+     * first event replayed, or {@code null} if no snapshot was recorded yet, in which case the events are
+     * replayed from the creation of the queue.
+     */
+    public record Replay(long firstSequence, List<Event> events, Task snapshot) {
+
+        static final Replay NONE = new Replay(0, List.of(), null);
+
+        public Replay {
+            Assert.checkNotNullParam("events", events);
+            events = List.copyOf(events);
+        }
+
+        public long nextSequence() {
+            return firstSequence + events.size();
+        }
+    }
+
+    public static class Builder {
+        private int capacity = DEFAULT_QUEUE_SIZE;
+        private int replayCapacity = DEFAULT_REPLAY_CAPACITY;
+        private TapOptions tapOptions = DEFAULT_TAP_OPTIONS;
+        private SubscriberOverflowMetrics overflowMetrics;
+
+        /**
+         * The number of events which may be enqueued and not yet dequeued, beyond which enqueueing waits.
+         * Taps do not count, since they never hold back the producers.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * The number of recent events retained to replay them to taps, bounding the memory held for that
+         * purpose. {@code 0} disables replay.
+         */
+        public Builder replayCapacity(int replayCapacity) {
+            this.replayCapacity = replayCapacity;
+            return this;
+        }
+
+        /**
+         * The defaults for the taps of the queue.
+         */
+        public Builder tapOptions(TapOptions tapOptions) {
+            this.tapOptions = tapOptions;
+            return this;
+        }
+
+        /**
+         * Where to record the overflow policies applied to lagging taps. A new instance is used if unset.
+         */
+        public Builder overflowMetrics(SubscriberOverflowMetrics overflowMetrics) {
+            this.overflowMetrics = overflowMetrics;
+            return this;
+        }
+
+        public EventQueue build() {
+            Assert.checkNotNullParam("tapOptions", tapOptions);
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Capacity must be positive");
+            }
+            if (replayCapacity < 0) {
+                throw new IllegalArgumentException("Replay capacity must not be negative");
+            }
+            return new MainQueue(capacity, replayCapacity, tapOptions.withDefaults(DEFAULT_TAP_OPTIONS),
+                    overflowMetrics != null ? overflowMetrics : new SubscriberOverflowMetrics());
+        }
+    }
+
     static class MainQueue extends EventQueue {
-        private final List<ChildQueue> children = new CopyOnWriteArrayList<>();
-        private final CountDownLatch pollingStartedLatch = new CountDownLatch(1);
-        private final AtomicBoolean pollingStarted = new AtomicBoolean(false);
+        // Taps come and go with their subscribers, so adding and removing one must not copy the others
+        private final Set<ChildQueue> children = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<Void> pollingStarted = new CompletableFuture<>();
+        // Holds each event once, for the consumer of this queue and all the taps alike, and its sequence
+        // numbers are the one order in which they all read the events
+        private final EventLog log;
+        // The consumer of this queue reads the log like the taps do, but is never skipped ahead
+        private final EventLog.Cursor cursor;
+        // A permit per event which may be enqueued before the consumer reads it. Producers wait for one
+        // before appending to the log, so that they never wait holding a lock
+        private final Semaphore permits;
+        private final TapOptions defaultTapOptions;
+
+        MainQueue(int capacity, int replayCapacity, TapOptions defaultTapOptions,
+                  SubscriberOverflowMetrics overflowMetrics) {
+            this.log = new EventLog(EventLog.DEFAULT_SEGMENT_SIZE, replayCapacity, overflowMetrics);
+            // The permits keep its lag within the capacity, so its overflow policy never applies
+            this.cursor = log.openCursor(new TapOptions.Builder()
+                    .overflowPolicy(OverflowPolicy.DISCONNECT)
+                    .maxLag(Integer.MAX_VALUE)
+                    .build());
+            this.permits = new Semaphore(capacity, true);
+            this.defaultTapOptions = defaultTapOptions;
+            LOGGER.trace("{} capacity: {}", this, capacity);
+        }
 
-        EventQueue tap() {
-            ChildQueue child = new ChildQueue(this);
+        @Override
+        EventQueue tap(TapOptions options) {
+            TapOptions resolved = options == null ? defaultTapOptions : options.withDefaults(defaultTapOptions);
+            ChildQueue child;
+            if (resolved.getReplay() > 0 || resolved.isReplaySinceSnapshot()) {
+                EventLog.ReplayingCursor replaying = log.openReplayingCursor(resolved);
+                child = new ChildQueue(this, replaying.cursor(), replaying.replay());
+            } else {
+                child = new ChildQueue(this, log.openCursor(resolved), Replay.NONE);
+            }
             children.add(child);
             return child;
         }
 
+        @Override
         public void enqueueEvent(Event event) {
             super.enqueueEvent(event);
-            children.forEach(eq -> eq.internalEnqueueEvent(event));
+            if (!children.isEmpty()) {
+                children.forEach(EventQueue::notifyListeners);
+            }
+        }
+
+        @Override
+        void put(Event event) throws InterruptedException {
+            permits.acquire();
+            log.append(event);
+        }
+
+        @Override
+        Event poll() {
+            return released(cursor.poll());
+        }
+
+        @Override
+        Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return released(cursor.poll(timeout, unit));
+        }
+
+        @Override
+        int drainTo(List<Event> sink, int maxEvents) {
+            int drained = cursor.drainTo(sink, maxEvents);
+            if (drained > 0) {
+                permits.release(drained);
+            }
+            return drained;
+        }
+
+        private Event released(Event event) {
+            if (event != null) {
+                permits.release();
+            }
+            return event;
+        }
+
+        @Override
+        long position() {
+            return cursor.position();
+        }
+
+        @Override
+        void recordSnapshot(Task task, long nextSequence) {
+            log.recordSnapshot(task, nextSequence);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return cursor.isEmpty();
+        }
+
+        int childCount() {
+            return children.size();
+        }
+
+        void detach(ChildQueue child) {
+            if (children.remove(child)) {
+                LOGGER.debug("Detached {} from {}", child, this);
+            }
         }
 
         @Override
         public void awaitQueuePollerStart() throws InterruptedException {
             LOGGER.debug("Waiting for queue poller to start on {}", this);
-            pollingStartedLatch.await(10, TimeUnit.SECONDS);
-            LOGGER.debug("Queue poller started on {}", this);
+            try {
+                pollingStarted.get(10, TimeUnit.SECONDS);
+                LOGGER.debug("Queue poller started on {}", this);
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.debug("Queue poller did not start on {}", this);
+            }
+        }
+
+        @Override
+        public CompletionStage<Void> pollerStarted() {
+            return pollingStarted.minimalCompletionStage();
+        }
+
+        boolean isPollerStarted() {
+            return pollingStarted.isDone();
         }
 
         @Override
         void signalQueuePollerStarted() {
-            if (pollingStarted.get()) {
+            if (pollingStarted.isDone()) {
                 return;
             }
             LOGGER.debug("Signalling that queue polling started {}", this);
-            pollingStartedLatch.countDown();
-            pollingStarted.set(true);
-          }
+            pollingStarted.complete(null);
+        }
 
         @Override
         public void close() {
@@ -158,9 +514,50 @@ public abstract class EventQueue implements AutoCloseable {
 
     static class ChildQueue extends EventQueue {
         private final MainQueue parent;
+        private final EventLog.Cursor cursor;
+        private final Replay replay;
 
-        public ChildQueue(MainQueue parent) {
+        ChildQueue(MainQueue parent, EventLog.Cursor cursor, Replay replay) {
+            super(parent);
             this.parent = parent;
+            this.cursor = cursor;
+            this.replay = replay;
+        }
+
+        @Override
+        public Replay getReplay() {
+            return replay;
+        }
+
+        @Override
+        long position() {
+            return cursor.position();
+        }
+
+        @Override
+        void recordSnapshot(Task task, long nextSequence) {
+            parent.recordSnapshot(task, nextSequence);
+        }
+
+        // The activity of the whole task counts, not just that of this tap
+        @Override
+        void touch() {
+            parent.touch();
+        }
+
+        @Override
+        long getLastActivityNanos() {
+            return parent.getLastActivityNanos();
+        }
+
+        @Override
+        public void producerStarted() {
+            parent.producerStarted();
+        }
+
+        @Override
+        public void producerDone() {
+            parent.producerDone();
         }
 
         @Override
@@ -168,20 +565,78 @@ public abstract class EventQueue implements AutoCloseable {
             parent.enqueueEvent(event);
         }
 
-        private void internalEnqueueEvent(Event event) {
-            super.enqueueEvent(event);
+        @Override
+        void put(Event event) {
+            throw new IllegalStateException("Events are enqueued via the main queue");
+        }
+
+        @Override
+        Event poll() {
+            return cursor.poll();
+        }
+
+        @Override
+        Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return cursor.poll(timeout, unit);
+        }
+
+        @Override
+        int drainTo(List<Event> sink, int maxEvents) {
+            return cursor.drainTo(sink, maxEvents);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return cursor.isEmpty();
         }
 
         @Override
-        EventQueue tap() {
+        public Event dequeueEvent(int waitMilliSeconds) throws EventQueueClosedException {
+            try {
+                return super.dequeueEvent(waitMilliSeconds);
+            } catch (EventQueueClosedException e) {
+                // Nothing more will be read by this tap
+                parent.detach(this);
+                cursor.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public int drainEvents(List<Event> sink, int maxEvents, int waitMilliSeconds) throws EventQueueClosedException {
+            try {
+                return super.drainEvents(sink, maxEvents, waitMilliSeconds);
+            } catch (EventQueueClosedException e) {
+                // Nothing more will be read by this tap
+                parent.detach(this);
+                cursor.close();
+                throw e;
+            }
+        }
+
+        @Override
+        EventQueue tap(TapOptions options) {
             throw new IllegalStateException("Can only tap the main queue");
         }
 
+        @Override
+        public void detach() {
+            parent.detach(this);
+            cursor.close();
+            // Wakes up the consumer, if any, so that it completes
+            doClose();
+        }
+
         @Override
         public void awaitQueuePollerStart() throws InterruptedException {
             parent.awaitQueuePollerStart();
         }
 
+        @Override
+        public CompletionStage<Void> pollerStarted() {
+            return parent.pollerStarted();
+        }
+
         @Override
         void signalQueuePollerStarted() {
             parent.signalQueuePollerStarted();
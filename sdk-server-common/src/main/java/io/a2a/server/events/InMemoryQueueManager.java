@@ -1,23 +1,83 @@
 package io.a2a.server.events;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 @ApplicationScoped
 public class InMemoryQueueManager implements QueueManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryQueueManager.class);
+
     private final ConcurrentMap<String, EventQueue> queues = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+    private final TapOptions tapOptions;
+    private final int replayCapacity;
+    private final QueueLifecycleOptions lifecycleOptions;
+    private final SubscriberOverflowMetrics overflowMetrics = new SubscriberOverflowMetrics();
+    // The queues by their activity when last ordered, which is only brought up to date when the idlest is
+    // looked for, so that the queues are not reordered on every event. Only kept to evict the idlest queue.
+    private final PriorityQueue<Activity> evictionOrder = new PriorityQueue<>(
+            (a, b) -> Long.signum(a.lastActivityNanos() - b.lastActivityNanos()));
+    // Started along with the first queue rather than on construction, since proxies of the bean are
+    // constructed too
+    private volatile ScheduledExecutorService reaper;
+
+    public InMemoryQueueManager() {
+        this(EventQueue.DEFAULT_QUEUE_SIZE);
+    }
+
+    public InMemoryQueueManager(int queueCapacity) {
+        this(queueCapacity, EventQueue.DEFAULT_TAP_OPTIONS);
+    }
+
+    public InMemoryQueueManager(int queueCapacity, TapOptions tapOptions) {
+        this(queueCapacity, tapOptions, EventQueue.DEFAULT_REPLAY_CAPACITY);
+    }
+
+    /**
+     * @param replayCapacity the number of recent events each task's queue retains to replay them to late
+     *                       subscribers, or {@code 0} to disable replay
+     */
+    public InMemoryQueueManager(int queueCapacity, TapOptions tapOptions, int replayCapacity) {
+        this(queueCapacity, tapOptions, replayCapacity, QueueLifecycleOptions.DEFAULT);
+    }
+
+    public InMemoryQueueManager(int queueCapacity, TapOptions tapOptions, int replayCapacity,
+                                QueueLifecycleOptions lifecycleOptions) {
+        Assert.checkNotNullParam("tapOptions", tapOptions);
+        Assert.checkNotNullParam("lifecycleOptions", lifecycleOptions);
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        if (replayCapacity < 0) {
+            throw new IllegalArgumentException("Replay capacity must not be negative");
+        }
+        this.queueCapacity = queueCapacity;
+        this.tapOptions = tapOptions;
+        this.replayCapacity = replayCapacity;
+        this.lifecycleOptions = lifecycleOptions;
+    }
 
     @Override
     public void add(String taskId, EventQueue queue) {
+        ensureCapacity();
         EventQueue existing = queues.putIfAbsent(taskId, queue);
         if (existing != null) {
             throw new TaskQueueExistsException();
         }
+        track(taskId, queue);
+        startReaper();
     }
 
     @Override
@@ -31,6 +91,12 @@ public class InMemoryQueueManager implements QueueManager {
         return queue == null ? null : queue.tap();
     }
 
+    @Override
+    public EventQueue tap(String taskId, TapOptions options) {
+        EventQueue queue = queues.get(taskId);
+        return queue == null ? null : queue.tap(options);
+    }
+
     @Override
     public void close(String taskId) {
         EventQueue existing = queues.remove(taskId);
@@ -45,9 +111,19 @@ public class InMemoryQueueManager implements QueueManager {
         EventQueue existing = queues.get(taskId);
         EventQueue newQueue = null;
         if (existing == null) {
-            newQueue = EventQueue.create();
+            ensureCapacity();
+            newQueue = new EventQueue.Builder()
+                    .capacity(queueCapacity)
+                    .replayCapacity(replayCapacity)
+                    .tapOptions(tapOptions)
+                    .overflowMetrics(overflowMetrics)
+                    .build();
             // Make sure an existing queue has not been added in the meantime
             existing = queues.putIfAbsent(taskId, newQueue);
+            if (existing == null) {
+                track(taskId, newQueue);
+            }
+            startReaper();
         }
         return existing == null ? newQueue : existing.tap();
     }
@@ -56,4 +132,135 @@ public class InMemoryQueueManager implements QueueManager {
     public void awaitQueuePollerStart(EventQueue eventQueue) throws InterruptedException {
         eventQueue.awaitQueuePollerStart();
     }
+
+    public SubscriberOverflowMetrics getOverflowMetrics() {
+        return overflowMetrics;
+    }
+
+    /**
+     * Closes and removes the queues which are closed already, have been idle for too long while no agent
+     * is producing their events, or which nothing started polling in time. This is done periodically in the background, but may also be
+     * called directly.
+     *
+     * @return the number of queues removed
+     */
+    public int reap() {
+        long now = System.nanoTime();
+        long idleTimeout = lifecycleOptions.getIdleTimeout().toNanos();
+        long pollerTimeout = lifecycleOptions.getPollerTimeout().toNanos();
+        int reaped = 0;
+        for (Map.Entry<String, EventQueue> entry : queues.entrySet()) {
+            EventQueue queue = entry.getValue();
+            String reason = null;
+            if (queue.isClosed()) {
+                reason = "closed";
+            } else if (idleTimeout > 0 && now - queue.getLastActivityNanos() > idleTimeout
+                    && !queue.hasRunningProducer()) {
+                reason = "idle";
+            } else if (pollerTimeout > 0 && queue instanceof EventQueue.MainQueue mainQueue
+                    && !mainQueue.isPollerStarted() && now - queue.getCreatedNanos() > pollerTimeout) {
+                reason = "never polled";
+            }
+            if (reason != null && remove(entry.getKey(), queue)) {
+                LOGGER.debug("Reaped queue of task {} ({})", entry.getKey(), reason);
+                reaped++;
+            }
+        }
+        return reaped;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService current = reaper;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private boolean remove(String taskId, EventQueue queue) {
+        if (!queues.remove(taskId, queue)) {
+            return false;
+        }
+        // Wakes up any consumer, which then completes
+        queue.close();
+        return true;
+    }
+
+    private void ensureCapacity() {
+        while (queues.size() >= lifecycleOptions.getMaxQueues()) {
+            if (lifecycleOptions.getRejectionPolicy() == QueueRejectionPolicy.REJECT) {
+                throw new QueueLimitExceededException(
+                        "The maximum of " + lifecycleOptions.getMaxQueues() + " live queues is reached");
+            }
+            Activity idlest = pollIdlest();
+            if (idlest == null) {
+                // The queues being added concurrently are not ordered yet
+                return;
+            }
+            if (remove(idlest.taskId(), idlest.queue())) {
+                LOGGER.debug("Evicted queue of task {} to make room for a new one", idlest.taskId());
+            }
+        }
+    }
+
+    private void track(String taskId, EventQueue queue) {
+        if (lifecycleOptions.getRejectionPolicy() != QueueRejectionPolicy.EVICT_IDLEST) {
+            return;
+        }
+        synchronized (evictionOrder) {
+            evictionOrder.add(new Activity(taskId, queue, queue.getLastActivityNanos()));
+            // Drops the queues removed otherwise than by eviction, once they outnumber the live ones
+            if (evictionOrder.size() > 2 * queues.size() + 16) {
+                evictionOrder.removeIf(activity -> queues.get(activity.taskId()) != activity.queue());
+            }
+        }
+    }
+
+    // Returns the live queue which has been idle the longest, reordering the queues active since they were
+    // last ordered on the way
+    private Activity pollIdlest() {
+        synchronized (evictionOrder) {
+            int reorderable = evictionOrder.size();
+            Activity activity;
+            while ((activity = evictionOrder.poll()) != null) {
+                if (queues.get(activity.taskId()) != activity.queue()) {
+                    continue;
+                }
+                long lastActivityNanos = activity.queue().getLastActivityNanos();
+                if (lastActivityNanos == activity.lastActivityNanos() || reorderable-- <= 0) {
+                    return activity;
+                }
+                evictionOrder.add(new Activity(activity.taskId(), activity.queue(), lastActivityNanos));
+            }
+            return null;
+        }
+    }
+
+    private void startReaper() {
+        if (reaper != null || !lifecycleOptions.isReaping()) {
+            return;
+        }
+        synchronized (this) {
+            if (reaper != null) {
+                return;
+            }
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "a2a-queue-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = lifecycleOptions.getReapInterval().toNanos();
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    reap();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to reap queues", e);
+                }
+            }, interval, interval, TimeUnit.NANOSECONDS);
+            reaper = executor;
+        }
+    }
+
+    private record Activity(String taskId, EventQueue queue, long lastActivityNanos) {
+    }
 }
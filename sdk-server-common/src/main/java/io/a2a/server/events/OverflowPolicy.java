@@ -0,0 +1,25 @@
+package io.a2a.server.events;
+
+/**
+ * What to do when a tap of an {@link EventQueue} falls too far behind the events being enqueued.
+ * <p>
+ * Whichever policy is used, neither the agent producing the events nor the primary consumer of the
+ * queue ever wait for a lagging tap.
+ */
+public enum OverflowPolicy {
+    /**
+     * Skip the oldest unread events, so that the tap resumes with the most recent ones.
+     */
+    DROP_OLDEST,
+    /**
+     * Skip the unread events up to the latest snapshot of the task recorded by the consumers of the queue,
+     * and resume with that snapshot and the events which followed it. Until the consumers record a snapshot,
+     * the tap resumes with the task supplied by {@link TapOptions#getSnapshotSupplier()} and the events
+     * enqueued afterwards.
+     */
+    COALESCE_TO_SNAPSHOT,
+    /**
+     * Fail the tap with an error, so that the subscriber can resubscribe.
+     */
+    DISCONNECT
+}
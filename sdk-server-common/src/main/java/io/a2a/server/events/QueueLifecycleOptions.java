@@ -0,0 +1,125 @@
+package io.a2a.server.events;
+
+import java.time.Duration;
+
+import io.a2a.util.Assert;
+
+/**
+ * Bounds the lifetime and number of the queues of an {@link InMemoryQueueManager}.
+ * <p>
+ * Queues are normally removed when the agent producing their events is done. A background reaper can
+ * also close and remove queues which have been idle for longer than {@link #getIdleTimeout()} while no
+ * agent is producing their events, or which nothing has started polling within
+ * {@link #getPollerTimeout()}, so that the queues of abandoned tasks do not accumulate. A timeout of
+ * {@link Duration#ZERO} disables the corresponding check.
+ * <p>
+ * By default, both timeouts are disabled and the number of queues is unbounded, so that queues are only
+ * reaped or rejected when opted into.
+ */
+public final class QueueLifecycleOptions {
+
+    public static final QueueLifecycleOptions DEFAULT = new Builder().build();
+
+    private final Duration idleTimeout;
+    private final Duration pollerTimeout;
+    private final Duration reapInterval;
+    private final int maxQueues;
+    private final QueueRejectionPolicy rejectionPolicy;
+
+    private QueueLifecycleOptions(Duration idleTimeout, Duration pollerTimeout, Duration reapInterval,
+                                  int maxQueues, QueueRejectionPolicy rejectionPolicy) {
+        Assert.checkNotNullParam("idleTimeout", idleTimeout);
+        Assert.checkNotNullParam("pollerTimeout", pollerTimeout);
+        Assert.checkNotNullParam("reapInterval", reapInterval);
+        Assert.checkNotNullParam("rejectionPolicy", rejectionPolicy);
+        if (idleTimeout.isNegative() || pollerTimeout.isNegative()) {
+            throw new IllegalArgumentException("Timeouts must not be negative");
+        }
+        if (reapInterval.isNegative() || reapInterval.isZero()) {
+            throw new IllegalArgumentException("Reap interval must be positive");
+        }
+        if (maxQueues <= 0) {
+            throw new IllegalArgumentException("Max queues must be positive");
+        }
+        this.idleTimeout = idleTimeout;
+        this.pollerTimeout = pollerTimeout;
+        this.reapInterval = reapInterval;
+        this.maxQueues = maxQueues;
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * How long a queue may go without any event being enqueued or dequeued, while no agent is producing its
+     * events, before it is reaped.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * How long a queue may exist without anything polling it before it is reaped.
+     */
+    public Duration getPollerTimeout() {
+        return pollerTimeout;
+    }
+
+    /**
+     * How often the reaper checks the queues.
+     */
+    public Duration getReapInterval() {
+        return reapInterval;
+    }
+
+    boolean isReaping() {
+        return !idleTimeout.isZero() || !pollerTimeout.isZero();
+    }
+
+    /**
+     * The maximum number of live queues. Since queues are added concurrently, this may briefly be
+     * exceeded by the number of queues being added at the same time.
+     */
+    public int getMaxQueues() {
+        return maxQueues;
+    }
+
+    public QueueRejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public static class Builder {
+        private Duration idleTimeout = Duration.ZERO;
+        private Duration pollerTimeout = Duration.ZERO;
+        private Duration reapInterval = Duration.ofMinutes(1);
+        private int maxQueues = Integer.MAX_VALUE;
+        private QueueRejectionPolicy rejectionPolicy = QueueRejectionPolicy.REJECT;
+
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder pollerTimeout(Duration pollerTimeout) {
+            this.pollerTimeout = pollerTimeout;
+            return this;
+        }
+
+        public Builder reapInterval(Duration reapInterval) {
+            this.reapInterval = reapInterval;
+            return this;
+        }
+
+        public Builder maxQueues(int maxQueues) {
+            this.maxQueues = maxQueues;
+            return this;
+        }
+
+        public Builder rejectionPolicy(QueueRejectionPolicy rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        public QueueLifecycleOptions build() {
+            return new QueueLifecycleOptions(idleTimeout, pollerTimeout, reapInterval, maxQueues, rejectionPolicy);
+        }
+    }
+}
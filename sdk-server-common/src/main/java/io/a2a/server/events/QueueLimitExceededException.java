@@ -0,0 +1,18 @@
+package io.a2a.server.events;
+
+public class QueueLimitExceededException extends RuntimeException {
+    public QueueLimitExceededException() {
+    }
+
+    public QueueLimitExceededException(String message) {
+        super(message);
+    }
+
+    public QueueLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public QueueLimitExceededException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -1,5 +1,7 @@
 package io.a2a.server.events;
 
+import java.util.concurrent.CompletionStage;
+
 public interface QueueManager {
     void add(String taskId, EventQueue queue);
 
@@ -7,9 +9,23 @@ public interface QueueManager {
 
     EventQueue tap(String taskId);
 
+    /**
+     * Taps the queue of the task with settings specific to this subscriber.
+     */
+    default EventQueue tap(String taskId, TapOptions options) {
+        return tap(taskId);
+    }
+
     void close(String taskId);
 
     EventQueue createOrTap(String taskId);
 
     void awaitQueuePollerStart(EventQueue eventQueue) throws InterruptedException;
+
+    /**
+     * Completes once something started polling the queue, without blocking the caller.
+     */
+    default CompletionStage<Void> queuePollerStarted(EventQueue eventQueue) {
+        return eventQueue.pollerStarted();
+    }
 }
@@ -0,0 +1,16 @@
+package io.a2a.server.events;
+
+/**
+ * What an {@link InMemoryQueueManager} does when a queue is to be added while it already holds its
+ * maximum number of live queues.
+ */
+public enum QueueRejectionPolicy {
+    /**
+     * Fail with a {@link QueueLimitExceededException}, leaving the existing queues untouched.
+     */
+    REJECT,
+    /**
+     * Close and remove the queue which has been idle the longest to make room for the new one.
+     */
+    EVICT_IDLEST
+}
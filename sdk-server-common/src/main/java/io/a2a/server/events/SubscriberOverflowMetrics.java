@@ -0,0 +1,35 @@
+package io.a2a.server.events;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often each {@link OverflowPolicy} was applied to a lagging tap, and how many events the
+ * affected taps missed as a result.
+ */
+public class SubscriberOverflowMetrics {
+
+    private final Map<OverflowPolicy, LongAdder> triggered = new EnumMap<>(OverflowPolicy.class);
+    private final Map<OverflowPolicy, LongAdder> skippedEvents = new EnumMap<>(OverflowPolicy.class);
+
+    public SubscriberOverflowMetrics() {
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            triggered.put(policy, new LongAdder());
+            skippedEvents.put(policy, new LongAdder());
+        }
+    }
+
+    void record(OverflowPolicy policy, long skipped) {
+        triggered.get(policy).increment();
+        skippedEvents.get(policy).add(skipped);
+    }
+
+    public long getTriggeredCount(OverflowPolicy policy) {
+        return triggered.get(policy).sum();
+    }
+
+    public long getSkippedEventCount(OverflowPolicy policy) {
+        return skippedEvents.get(policy).sum();
+    }
+}
@@ -0,0 +1,137 @@
+package io.a2a.server.events;
+
+import java.util.function.Supplier;
+
+import io.a2a.spec.Task;
+
+/**
+ * The settings of a single tap of an {@link EventQueue}. Anything not set falls back to the defaults
+ * of the queue being tapped.
+ */
+public final class TapOptions {
+
+    private final OverflowPolicy overflowPolicy;
+    private final int maxLag;
+    private final Supplier<Task> snapshotSupplier;
+    private final int replay;
+    private final boolean replaySinceSnapshot;
+
+    private TapOptions(OverflowPolicy overflowPolicy, int maxLag, Supplier<Task> snapshotSupplier, int replay,
+                       boolean replaySinceSnapshot) {
+        if (maxLag < 0) {
+            throw new IllegalArgumentException("Max lag must not be negative");
+        }
+        if (replay < 0) {
+            throw new IllegalArgumentException("Replay must not be negative");
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.maxLag = maxLag;
+        this.snapshotSupplier = snapshotSupplier;
+        this.replay = replay;
+        this.replaySinceSnapshot = replaySinceSnapshot;
+    }
+
+    /**
+     * The policy applied when the tap lags more than {@link #getMaxLag()} events behind.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * The number of unread events the tap may lag behind by, or {@code 0} if unset.
+     */
+    public int getMaxLag() {
+        return maxLag;
+    }
+
+    /**
+     * Supplies the task snapshot used by {@link OverflowPolicy#COALESCE_TO_SNAPSHOT} while the consumers of
+     * the queue have recorded none. Since it is read when the tap skips to the latest event, the events which
+     * the task supplied does not reflect yet are missed.
+     */
+    public Supplier<Task> getSnapshotSupplier() {
+        return snapshotSupplier;
+    }
+
+    /**
+     * The maximum number of the events preceding the tap to replay to it, as far as the queue retains
+     * them, or {@code 0} if the tap only receives the events enqueued after its creation.
+     */
+    public int getReplay() {
+        return replay;
+    }
+
+    /**
+     * Whether the tap is handed the latest snapshot of the task recorded by the consumers of the queue, and
+     * replayed the events which followed it, as far as the queue retains them, rather than
+     * {@link #getReplay()} events.
+     */
+    public boolean isReplaySinceSnapshot() {
+        return replaySinceSnapshot;
+    }
+
+    TapOptions withDefaults(TapOptions defaults) {
+        return new TapOptions(
+                overflowPolicy != null ? overflowPolicy : defaults.overflowPolicy,
+                maxLag > 0 ? maxLag : defaults.maxLag,
+                snapshotSupplier != null ? snapshotSupplier : defaults.snapshotSupplier,
+                replay > 0 ? replay : defaults.replay,
+                replaySinceSnapshot || defaults.replaySinceSnapshot);
+    }
+
+    public static class Builder {
+        private OverflowPolicy overflowPolicy;
+        private int maxLag;
+        private Supplier<Task> snapshotSupplier;
+        private int replay;
+        private boolean replaySinceSnapshot;
+
+        public Builder() {
+        }
+
+        public Builder(TapOptions options) {
+            overflowPolicy = options.overflowPolicy;
+            maxLag = options.maxLag;
+            snapshotSupplier = options.snapshotSupplier;
+            replay = options.replay;
+            replaySinceSnapshot = options.replaySinceSnapshot;
+        }
+
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder maxLag(int maxLag) {
+            this.maxLag = maxLag;
+            return this;
+        }
+
+        public Builder snapshotSupplier(Supplier<Task> snapshotSupplier) {
+            this.snapshotSupplier = snapshotSupplier;
+            return this;
+        }
+
+        public Builder replay(int replay) {
+            this.replay = replay;
+            return this;
+        }
+
+        public Builder replaySinceSnapshot(boolean replaySinceSnapshot) {
+            this.replaySinceSnapshot = replaySinceSnapshot;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the overflow policy coalesces to a snapshot, but there is no
+         *                                  snapshot supplier
+         */
+        public TapOptions build() {
+            if (overflowPolicy == OverflowPolicy.COALESCE_TO_SNAPSHOT && snapshotSupplier == null) {
+                throw new IllegalArgumentException("Coalescing to a snapshot needs a snapshot supplier");
+            }
+            return new TapOptions(overflowPolicy, maxLag, snapshotSupplier, replay, replaySinceSnapshot);
+        }
+    }
+}
@@ -2,10 +2,13 @@ package io.a2a.server.requesthandlers;
 
 import static io.a2a.server.util.async.AsyncUtils.convertingProcessor;
 import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
+import static io.a2a.server.util.async.AsyncUtils.onTermination;
+import static io.a2a.server.util.async.AsyncUtils.prepend;
 import static io.a2a.server.util.async.AsyncUtils.processor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -13,24 +16,35 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import io.a2a.server.events.CoalescingOptions;
 import io.a2a.server.events.EnhancedRunnable;
 import io.a2a.server.events.EventConsumer;
 import io.a2a.server.events.EventQueue;
+import io.a2a.server.events.NoTaskQueueException;
 import io.a2a.server.events.QueueManager;
+import io.a2a.server.events.TapOptions;
 import io.a2a.server.events.TaskQueueExistsException;
+import io.a2a.server.tasks.AsyncTaskStore;
+import io.a2a.server.tasks.BlobOffloadingTaskStore;
 import io.a2a.server.tasks.PushNotifier;
 import io.a2a.server.tasks.ResultAggregator;
 import io.a2a.server.tasks.TaskManager;
 import io.a2a.server.tasks.TaskStore;
+import io.a2a.server.tasks.TaskStoreException;
+import io.a2a.server.util.async.AsyncUtils;
 import io.a2a.server.util.async.Internal;
+import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Event;
 import io.a2a.spec.EventKind;
 import io.a2a.spec.InternalError;
+import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.JSONRPCError;
-import io.a2a.spec.Message;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.PushNotificationConfig;
 import io.a2a.spec.StreamingEventKind;
@@ -54,11 +68,37 @@ public class DefaultRequestHandler implements RequestHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRequestHandler.class);
 
+    /**
+     * The key of a boolean in the metadata of a {@link MessageSendParams}, which enables or disables the
+     * coalescing of the events of that request regardless of the handler's default.
+     */
+    public static final String COALESCE_EVENTS_METADATA_KEY = "coalesceEvents";
+
+    /**
+     * The key of a boolean in the metadata of the params of a request, which asks for the content of the
+     * files offloaded by a {@link BlobOffloadingTaskStore} to be returned inline rather than as handles.
+     */
+    public static final String INLINE_FILE_BYTES_METADATA_KEY = "inlineFileBytes";
+
+    /**
+     * The number of tasks listed by a {@link ListTasksParams} without a page size.
+     */
+    public static final int DEFAULT_LIST_PAGE_SIZE = 50;
+    /**
+     * The maximum number of tasks listed at once, whatever the page size of a {@link ListTasksParams}.
+     */
+    public static final int MAX_LIST_PAGE_SIZE = 1000;
+
+    private static final long QUEUE_POLLER_START_TIMEOUT_SECONDS = 10;
+
     private final AgentExecutor agentExecutor;
     private final TaskStore taskStore;
+    // The task store, used asynchronously if it supports it
+    private final AsyncTaskStore asyncTaskStore;
     private final QueueManager queueManager;
     private final PushNotifier pushNotifier;
     private final Supplier<RequestContext.Builder> requestContextBuilder;
+    private final CoalescingOptions coalescingOptions;
 
     private final ConcurrentMap<String, CompletableFuture<Void>> runningAgents = new ConcurrentHashMap<>();
 
@@ -67,11 +107,19 @@ public class DefaultRequestHandler implements RequestHandler {
     @Inject
     public DefaultRequestHandler(AgentExecutor agentExecutor, TaskStore taskStore,
                                  QueueManager queueManager, PushNotifier pushNotifier, @Internal Executor executor) {
+        this(agentExecutor, taskStore, queueManager, pushNotifier, executor, CoalescingOptions.DISABLED);
+    }
+
+    public DefaultRequestHandler(AgentExecutor agentExecutor, TaskStore taskStore,
+                                 QueueManager queueManager, PushNotifier pushNotifier, Executor executor,
+                                 CoalescingOptions coalescingOptions) {
         this.agentExecutor = agentExecutor;
         this.taskStore = taskStore;
+        this.asyncTaskStore = AsyncTaskStore.of(taskStore);
         this.queueManager = queueManager;
         this.pushNotifier = pushNotifier;
         this.executor = executor;
+        this.coalescingOptions = coalescingOptions;
         // TODO In Python this is also a constructor parameter defaulting to this SimpleRequestContextBuilder
         //  implementation if the parameter is null. Skip that for now, since otherwise I get CDI errors, and
         //  I am unsure about the correct scope.
@@ -82,33 +130,43 @@ public class DefaultRequestHandler implements RequestHandler {
     @Override
     public Task onGetTask(TaskQueryParams params) throws JSONRPCError {
         LOGGER.debug("onGetTask {}", params.id());
-        Task task = taskStore.get(params.id());
+        // Only the messages of the history returned are read, from stores keeping the history apart
+        Task task = params.historyLength() == null
+                ? findTask(params.id())
+                : AsyncUtils.join(asyncTaskStore.getAsync(params.id(), params.historyLength()));
         if (task == null) {
             LOGGER.debug("No task found for {}. Throwing TaskNotFoundError", params.id());
             throw new TaskNotFoundError();
         }
-        if (params.historyLength() != null && task.getHistory() != null && params.historyLength() < task.getHistory().size()) {
-            List<Message> history;
-            if (params.historyLength() <= 0) {
-                history = new ArrayList<>();
-            } else {
-                history = task.getHistory().subList(
-                        task.getHistory().size() - params.historyLength(),
-                        task.getHistory().size() - 1);
-            }
-
-            task = new Task.Builder(task)
-                    .history(history)
-                    .build();
-        }
 
         LOGGER.debug("Task found {}", task);
-        return task;
+        return inlineFiles(task, params.metadata());
+    }
+
+    @Override
+    public ListTasksResult onListTasks(ListTasksParams params) throws JSONRPCError {
+        int pageSize = params.pageSize() == null ? DEFAULT_LIST_PAGE_SIZE : Math.min(params.pageSize(), MAX_LIST_PAGE_SIZE);
+        try {
+            ListTasksResult result = taskStore.list(params.contextId(), params.state(), params.cursor(), pageSize);
+            if (!inlinesFiles(params.metadata())) {
+                return result;
+            }
+            List<Task> tasks = new ArrayList<>(result.tasks().size());
+            for (Task task : result.tasks()) {
+                tasks.add(inlineFiles(task, params.metadata()));
+            }
+            return new ListTasksResult(tasks, result.nextCursor());
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("Tasks can't be listed", e);
+            throw new UnsupportedOperationError();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParamsError(e.getMessage());
+        }
     }
 
     @Override
     public Task onCancelTask(TaskIdParams params) throws JSONRPCError {
-        Task task = taskStore.get(params.id());
+        Task task = findTask(params.id());
         if (task == null) {
             throw new TaskNotFoundError();
         }
@@ -135,10 +193,12 @@ public class DefaultRequestHandler implements RequestHandler {
         Optional.ofNullable(runningAgents.get(task.getId()))
                 .ifPresent(cf -> cf.cancel(true));
 
-        EventConsumer consumer = new EventConsumer(queue);
+        EventConsumer consumer = new EventConsumer(queue, CoalescingOptions.DISABLED, executor);
         EventKind type = resultAggregator.consumeAll(consumer);
+        // The task returned is written before returning it, as for message/send
+        AsyncUtils.join(taskManager.savesCompleted());
         if (type instanceof Task tempTask) {
-            return tempTask;
+            return inlineFiles(tempTask, params.metadata());
         }
 
         throw new InternalError("Agent did not return a valid response");
@@ -160,7 +220,7 @@ public class DefaultRequestHandler implements RequestHandler {
         EnhancedRunnable producerRunnable = registerAndExecuteAgentAsync(taskId, mss.requestContext, queue);
         ResultAggregator.EventTypeAndInterrupt etai = null;
         try {
-            EventConsumer consumer = new EventConsumer(queue);
+            EventConsumer consumer = new EventConsumer(queue, coalescingOptions(params), executor);
 
             // This callback must be added before we start consuming. Otherwise,
             // any errors thrown by the producerRunnable are not picked up by the consumer
@@ -178,6 +238,8 @@ public class DefaultRequestHandler implements RequestHandler {
             if (kind instanceof Task taskResult && !taskId.equals(taskResult.getId())) {
                 throw new InternalError("Task ID mismatch in agent response");
             }
+            // The task returned is written before returning it, so that it can be read back right away
+            AsyncUtils.join(mss.taskManager.savesCompleted());
 
         } finally {
             if (interrupted) {
@@ -189,6 +251,9 @@ public class DefaultRequestHandler implements RequestHandler {
         }
 
         LOGGER.debug("Returning: {}", etai.eventType());
+        if (etai.eventType() instanceof Task taskResult) {
+            return inlineFiles(taskResult, params.metadata());
+        }
         return etai.eventType();
     }
 
@@ -204,7 +269,7 @@ public class DefaultRequestHandler implements RequestHandler {
         EnhancedRunnable producerRunnable = registerAndExecuteAgentAsync(taskId.get(), mss.requestContext, queue);
 
         try {
-            EventConsumer consumer = new EventConsumer(queue);
+            EventConsumer consumer = new EventConsumer(queue, coalescingOptions(params), executor);
 
             // This callback must be added before we start consuming. Otherwise,
             // any errors thrown by the producerRunnable are not picked up by the consumer
@@ -257,7 +322,7 @@ public class DefaultRequestHandler implements RequestHandler {
         if (pushNotifier == null) {
             throw new UnsupportedOperationError();
         }
-        Task task = taskStore.get(params.taskId());
+        Task task = findTask(params.taskId());
         if (task == null) {
             throw new TaskNotFoundError();
         }
@@ -272,7 +337,7 @@ public class DefaultRequestHandler implements RequestHandler {
         if (pushNotifier == null) {
             throw new UnsupportedOperationError();
         }
-        Task task = taskStore.get(params.id());
+        Task task = findTask(params.id());
         if (task == null) {
             throw new TaskNotFoundError();
         }
@@ -287,22 +352,86 @@ public class DefaultRequestHandler implements RequestHandler {
 
     @Override
     public Flow.Publisher<StreamingEventKind> onResubscribeToTask(TaskIdParams params) throws JSONRPCError {
-        Task task = taskStore.get(params.id());
+        Task task = findTask(params.id());
         if (task == null) {
             throw new TaskNotFoundError();
         }
 
-        TaskManager taskManager = new TaskManager(task.getId(), task.getContextId(), taskStore, null);
-        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null);
-        EventQueue queue = queueManager.tap(task.getId());
+        String taskId = task.getId();
+        // Should this subscriber fall behind, coalescing skips to the latest snapshot recorded by the consumer
+        // of the queue, or to the task as it was last persisted while there is none
+        EventQueue queue = queueManager.tap(taskId, new TapOptions.Builder()
+                .snapshotSupplier(() -> findTask(taskId))
+                .replaySinceSnapshot(true)
+                .build());
 
         if (queue == null) {
             throw new TaskNotFoundError();
         }
 
-        EventConsumer consumer = new EventConsumer(queue);
-        Flow.Publisher<Event> results = resultAggregator.consumeAndEmit(consumer);
-        return convertingProcessor(results, e -> (StreamingEventKind) e);
+        // The subscriber starts with the snapshot of the task recorded by the consumer processing the events,
+        // taken atomically with the creation of the tap, followed by the retained events which came after
+        // it. Until a snapshot is recorded, none of the events is saved, so the task read before the tap
+        // precedes them all. The live events read from the tap follow on from the last event replayed.
+        EventQueue.Replay replay = queue.getReplay();
+        List<Event> initial = new ArrayList<>();
+        initial.add(replay.snapshot() != null ? replay.snapshot() : task);
+        for (Event event : replay.events()) {
+            if (event instanceof StreamingEventKind) {
+                initial.add(event);
+            }
+        }
+
+        // The events are saved by the consumer processing them, so the subscriber only applies them to the
+        // task it started with, rather than applying them again to the task saved since
+        TaskManager taskManager = TaskManager.withoutSaving(task, taskStore);
+        try {
+            taskManager.processAll(initial);
+        } catch (A2AServerException e) {
+            queue.detach();
+            throw new InternalError(e.getMessage());
+        }
+        ResultAggregator resultAggregator = new ResultAggregator(taskManager, null);
+
+        EventConsumer consumer = new EventConsumer(queue, coalescingOptions, executor);
+        Flow.Publisher<Event> results = prepend(initial, resultAggregator.consumeAndEmit(consumer));
+        // The tap is the subscription's handle: it is detached as soon as the subscriber cancels, rather
+        // than receiving every event until the task ends
+        return onTermination(convertingProcessor(results, e -> (StreamingEventKind) e), queue::detach);
+    }
+
+    private Task findTask(String taskId) {
+        return AsyncUtils.join(asyncTaskStore.getAsync(taskId));
+    }
+
+    // Whether the request asked for the content of offloaded files, which only a blob offloading store has
+    private boolean inlinesFiles(Map<String, Object> metadata) {
+        return taskStore instanceof BlobOffloadingTaskStore
+                && metadata != null
+                && Boolean.TRUE.equals(metadata.get(INLINE_FILE_BYTES_METADATA_KEY));
+    }
+
+    private Task inlineFiles(Task task, Map<String, Object> metadata) {
+        if (!inlinesFiles(metadata)) {
+            return task;
+        }
+        try {
+            return ((BlobOffloadingTaskStore) taskStore).inline(task);
+        } catch (TaskStoreException e) {
+            LOGGER.error("Failed to inline the files of task {}", task.getId(), e);
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    private CoalescingOptions coalescingOptions(MessageSendParams params) {
+        Object requested = params.metadata() == null ? null : params.metadata().get(COALESCE_EVENTS_METADATA_KEY);
+        if (requested instanceof Boolean coalesce) {
+            if (!coalesce) {
+                return CoalescingOptions.DISABLED;
+            }
+            return coalescingOptions.isEnabled() ? coalescingOptions : CoalescingOptions.DEFAULT;
+        }
+        return coalescingOptions;
     }
 
     private boolean shouldAddPushInfo(MessageSendParams params) {
@@ -314,21 +443,24 @@ public class DefaultRequestHandler implements RequestHandler {
             @Override
             public void run() {
                 agentExecutor.execute(requestContext, queue);
-                try {
-                    queueManager.awaitQueuePollerStart(queue);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
             }
         };
 
+        // The queue is not reaped for being idle while the agent runs, however long it goes without events
+        queue.producerStarted();
         CompletableFuture<Void> cf = CompletableFuture.runAsync(runnable, executor)
+                .whenComplete((v, err) -> queue.producerDone())
+                // The queue is only closed once its events are being consumed, or should nothing consume them,
+                // after a timeout. This is waited for asynchronously, rather than pinning the agent's thread.
+                .thenCompose(v -> queueManager.queuePollerStarted(queue).toCompletableFuture()
+                        .completeOnTimeout(null, QUEUE_POLLER_START_TIMEOUT_SECONDS, TimeUnit.SECONDS))
                 .whenComplete((v, err) -> {
                     if (err != null) {
                         runnable.setError(err);
                     }
-                    queue.close();
+                    // Let the consumers see any error before the close signal completes them
                     runnable.invokeDoneCallbacks();
+                    queue.close();
                 });
         runningAgents.put(taskId, cf);
         return runnable;
@@ -338,8 +470,13 @@ public class DefaultRequestHandler implements RequestHandler {
         // TODO the Python implementation waits for the producerRunnable
         runningAgents.get(taskId)
                 .whenComplete((v, t) -> {
-                    queueManager.close(taskId);
                     runningAgents.remove(taskId);
+                    try {
+                        queueManager.close(taskId);
+                    } catch (NoTaskQueueException e) {
+                        // Already reaped by the queue manager
+                        LOGGER.debug("Queue of task {} was already removed", taskId);
+                    }
                 });
     }
 
@@ -19,6 +19,9 @@ import io.a2a.spec.GetTaskResponse;
 import io.a2a.spec.InternalError;
 import io.a2a.spec.InvalidRequestError;
 import io.a2a.spec.JSONRPCError;
+import io.a2a.spec.ListTasksRequest;
+import io.a2a.spec.ListTasksResponse;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.SendMessageRequest;
 import io.a2a.spec.SendMessageResponse;
 import io.a2a.spec.SendStreamingMessageRequest;
@@ -150,6 +153,17 @@ public class JSONRPCHandler {
         }
     }
 
+    public ListTasksResponse onListTasks(ListTasksRequest request) {
+        try {
+            ListTasksResult result = requestHandler.onListTasks(request.getParams());
+            return new ListTasksResponse(request.getId(), result);
+        } catch (JSONRPCError e) {
+            return new ListTasksResponse(request.getId(), e);
+        } catch (Throwable t) {
+            return new ListTasksResponse(request.getId(), new InternalError(t.getMessage()));
+        }
+    }
+
     public AgentCard getAgentCard() {
         return agentCard;
     }
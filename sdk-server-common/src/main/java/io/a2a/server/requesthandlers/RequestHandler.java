@@ -4,6 +4,8 @@ import java.util.concurrent.Flow;
 
 import io.a2a.spec.EventKind;
 import io.a2a.spec.JSONRPCError;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.StreamingEventKind;
 import io.a2a.spec.Task;
@@ -14,6 +16,11 @@ import io.a2a.spec.TaskQueryParams;
 public interface RequestHandler {
     Task onGetTask(TaskQueryParams params) throws JSONRPCError;
 
+    /**
+     * Lists a page of the tasks of a context, or in a state. This is an extension to the A2A protocol.
+     */
+    ListTasksResult onListTasks(ListTasksParams params) throws JSONRPCError;
+
     Task onCancelTask(TaskIdParams params) throws JSONRPCError;
 
     EventKind onMessageSend(MessageSendParams params) throws JSONRPCError;
@@ -0,0 +1,98 @@
+package io.a2a.server.tasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import io.a2a.spec.Task;
+import io.a2a.util.Assert;
+
+/**
+ * A store of tasks whose operations complete asynchronously, so that a store reached over the network
+ * does not block the threads using it while waiting for it.
+ * <p>
+ * The request handler and {@link TaskManager} are given a {@link TaskStore}, which they use through this
+ * interface if it implements it too, and through {@link #of(TaskStore)} otherwise. A store implementing
+ * both interfaces is thereby used asynchronously wherever possible.
+ */
+public interface AsyncTaskStore {
+
+    CompletionStage<Void> saveAsync(Task task);
+
+    /**
+     * Saves the tasks, which have distinct ids. Stores able to write several tasks at once should
+     * override this.
+     */
+    default CompletionStage<Void> saveAllAsync(List<Task> tasks) {
+        CompletableFuture<?>[] saves = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < saves.length; i++) {
+            saves[i] = saveAsync(tasks.get(i)).toCompletableFuture();
+        }
+        return CompletableFuture.allOf(saves);
+    }
+
+    /**
+     * Completes with the task, or {@code null} if there is none with the id.
+     */
+    CompletionStage<Task> getAsync(String taskId);
+
+    /**
+     * Completes with the task with only the last {@code historyLength} messages of its history, or
+     * {@code null} if there is none with the id. Stores keeping the history of a task apart from it should
+     * override this, as for {@link TaskStore#get(String, int)}.
+     */
+    default CompletionStage<Task> getAsync(String taskId, int historyLength) {
+        return getAsync(taskId).thenApply(task -> TaskStore.withHistoryLength(task, historyLength));
+    }
+
+    /**
+     * Completes with the tasks found by their ids, in the order of the ids. Stores able to read several
+     * tasks at once should override this.
+     */
+    default CompletionStage<Map<String, Task>> getAllAsync(Collection<String> taskIds) {
+        List<String> ids = List.copyOf(taskIds);
+        List<CompletableFuture<Task>> reads = new ArrayList<>(ids.size());
+        for (String taskId : ids) {
+            reads.add(getAsync(taskId).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, Task> tasks = new LinkedHashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Task task = reads.get(i).join();
+                if (task != null) {
+                    tasks.put(ids.get(i), task);
+                }
+            }
+            return tasks;
+        });
+    }
+
+    CompletionStage<Void> deleteAsync(String taskId);
+
+    /**
+     * Returns the store itself if it is asynchronous already, or else an adapter calling it on the
+     * calling thread, completing before it returns.
+     */
+    static AsyncTaskStore of(TaskStore taskStore) {
+        Assert.checkNotNullParam("taskStore", taskStore);
+        if (taskStore instanceof AsyncTaskStore asyncTaskStore) {
+            return asyncTaskStore;
+        }
+        return new AsyncTaskStoreAdapter(taskStore, null);
+    }
+
+    /**
+     * Returns an adapter calling the store on the executor, so that a store which blocks does not block
+     * the calling thread.
+     */
+    static AsyncTaskStore of(TaskStore taskStore, Executor executor) {
+        Assert.checkNotNullParam("taskStore", taskStore);
+        Assert.checkNotNullParam("executor", executor);
+        return new AsyncTaskStoreAdapter(taskStore, executor);
+    }
+}
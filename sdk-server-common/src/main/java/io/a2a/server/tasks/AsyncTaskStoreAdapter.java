@@ -0,0 +1,77 @@
+package io.a2a.server.tasks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import io.a2a.spec.Task;
+
+/**
+ * Adapts a {@link TaskStore} to {@link AsyncTaskStore}, calling it either on the calling thread or on an
+ * executor. Created by {@link AsyncTaskStore#of(TaskStore)} and {@link AsyncTaskStore#of(TaskStore, Executor)}.
+ */
+final class AsyncTaskStoreAdapter implements AsyncTaskStore {
+
+    private final TaskStore taskStore;
+    // Null to call the store on the calling thread
+    private final Executor executor;
+
+    AsyncTaskStoreAdapter(TaskStore taskStore, Executor executor) {
+        this.taskStore = taskStore;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<Void> saveAsync(Task task) {
+        return call(() -> {
+            taskStore.save(task);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> saveAllAsync(List<Task> tasks) {
+        return call(() -> {
+            taskStore.saveAll(tasks);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Task> getAsync(String taskId) {
+        return call(() -> taskStore.get(taskId));
+    }
+
+    @Override
+    public CompletionStage<Task> getAsync(String taskId, int historyLength) {
+        return call(() -> taskStore.get(taskId, historyLength));
+    }
+
+    @Override
+    public CompletionStage<Map<String, Task>> getAllAsync(Collection<String> taskIds) {
+        return call(() -> taskStore.getAll(taskIds));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(String taskId) {
+        return call(() -> {
+            taskStore.delete(taskId);
+            return null;
+        });
+    }
+
+    private <T> CompletionStage<T> call(Supplier<T> operation) {
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(operation, executor);
+        }
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.FileContent;
+import io.a2a.spec.FilePart;
+import io.a2a.spec.FileWithBytes;
+import io.a2a.spec.FileWithUri;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.util.Assert;
+
+/**
+ * A {@link TaskStore} which moves the content of large files out of the tasks it saves, into a
+ * {@link LocalBlobStore}, before saving them to the store it decorates.
+ * <p>
+ * A {@link FileWithBytes} whose base64 content is longer than the offload threshold, or is streamed from a
+ * source, is replaced by a
+ * {@link FileWithUri} handle, whose URI starts with {@link #HANDLE_URI_PREFIX} followed by the digest of the
+ * content. Tasks read back hold the handles, and so does the task a {@link TaskManager} saving to this store
+ * keeps once it offloaded it, so that the tasks kept in memory, copied and saved again stay small, and the
+ * content of a file is only read and hashed once. {@link #inline(Task)} replaces the handles of a task with
+ * the content again, which the request handler does for the clients asking for it.
+ * <p>
+ * The blobs are shared by all the tasks holding the same content, so deleting a task leaves them in place.
+ */
+public class BlobOffloadingTaskStore implements TaskStore {
+
+    /**
+     * The number of base64 characters above which the content of a file is offloaded by default.
+     */
+    public static final int DEFAULT_OFFLOAD_THRESHOLD = 64 * 1024;
+    /**
+     * The start of the URI of the handle replacing the content of a file offloaded.
+     */
+    public static final String HANDLE_URI_PREFIX = "a2a-blob:sha256:";
+
+    private final TaskStore delegate;
+    private final LocalBlobStore blobStore;
+    private final int offloadThreshold;
+
+    public BlobOffloadingTaskStore(TaskStore delegate, LocalBlobStore blobStore) {
+        this(delegate, blobStore, DEFAULT_OFFLOAD_THRESHOLD);
+    }
+
+    /**
+     * @param offloadThreshold the number of base64 characters above which the content of a file is offloaded
+     */
+    public BlobOffloadingTaskStore(TaskStore delegate, LocalBlobStore blobStore, int offloadThreshold) {
+        Assert.checkNotNullParam("delegate", delegate);
+        Assert.checkNotNullParam("blobStore", blobStore);
+        if (offloadThreshold < 0) {
+            throw new IllegalArgumentException("Offload threshold must not be negative");
+        }
+        this.delegate = delegate;
+        this.blobStore = blobStore;
+        this.offloadThreshold = offloadThreshold;
+    }
+
+    @Override
+    public void save(Task task) {
+        delegate.save(offload(task));
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        List<Task> offloaded = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            offloaded.add(offload(task));
+        }
+        delegate.saveAll(offloaded);
+    }
+
+    @Override
+    public Task get(String taskId) {
+        return delegate.get(taskId);
+    }
+
+    @Override
+    public Task get(String taskId, int historyLength) {
+        return delegate.get(taskId, historyLength);
+    }
+
+    @Override
+    public Map<String, Task> getAll(Collection<String> taskIds) {
+        return delegate.getAll(taskIds);
+    }
+
+    @Override
+    public void delete(String taskId) {
+        delegate.delete(taskId);
+    }
+
+    @Override
+    public ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        return delegate.list(contextId, state, cursor, pageSize);
+    }
+
+    /**
+     * Returns the task with the content of its files larger than the offload threshold stored in the blob
+     * store, and replaced by handles, or the task itself if it has none.
+     */
+    public Task offload(Task task) {
+        return mapFiles(task, file -> {
+            if (!(file instanceof FileWithBytes withBytes)) {
+                return file;
+            }
+            String digest;
+            if (withBytes.isStreamed()) {
+                // Of unknown length, and copied from its source without reading it whole
+                try (InputStream encoded = withBytes.openEncodedStream()) {
+                    digest = blobStore.put(encoded);
+                } catch (IOException e) {
+                    throw new TaskStoreException("Failed to read the content of file " + withBytes.name(), e);
+                }
+            } else if (withBytes.bytes() != null && withBytes.bytes().length() > offloadThreshold) {
+                digest = blobStore.put(withBytes.bytes().getBytes(StandardCharsets.ISO_8859_1));
+            } else {
+                return file;
+            }
+            return new FileWithUri(withBytes.mimeType(), withBytes.name(), HANDLE_URI_PREFIX + digest);
+        });
+    }
+
+    /**
+     * Returns the task with the handles of its files replaced by their content, or the task itself if it has
+     * none. The content is read from the blob store as it is used, such as when the task is serialized,
+     * rather than held in memory.
+     *
+     * @throws TaskStoreException if the content of a handle is no longer in the blob store
+     */
+    public Task inline(Task task) {
+        return mapFiles(task, file -> {
+            if (file instanceof FileWithUri withUri && isHandle(withUri)) {
+                String digest = withUri.uri().substring(HANDLE_URI_PREFIX.length());
+                if (!blobStore.contains(digest)) {
+                    throw new TaskStoreException("Blob " + digest + " of file " + withUri.name() + " is missing");
+                }
+                return new FileWithBytes(withUri.mimeType(), withUri.name(), () -> blobStore.open(digest));
+            }
+            return file;
+        });
+    }
+
+    /**
+     * Whether the file is a handle to content offloaded to a blob store.
+     */
+    public static boolean isHandle(FileWithUri file) {
+        return file.uri() != null && file.uri().startsWith(HANDLE_URI_PREFIX);
+    }
+
+    // Rebuilds only the parts of the task holding files which the function replaced
+    private static Task mapFiles(Task task, UnaryOperator<FileContent> function) {
+        if (task == null) {
+            return null;
+        }
+        List<Message> history = map(task.getHistory(), message -> mapFiles(message, function));
+        List<Artifact> artifacts = map(task.getArtifacts(), artifact -> {
+            List<Part<?>> parts = mapParts(artifact.parts(), function);
+            return parts == artifact.parts() ? artifact : new Artifact.Builder(artifact).parts(parts).build();
+        });
+        TaskStatus status = task.getStatus();
+        Message statusMessage = mapFiles(status.message(), function);
+        if (history == task.getHistory() && artifacts == task.getArtifacts() && statusMessage == status.message()) {
+            return task;
+        }
+        return new Task.Builder(task)
+                .history(history)
+                .artifacts(artifacts)
+                .status(statusMessage == status.message()
+                        ? status
+                        : new TaskStatus(status.state(), statusMessage, status.timestamp()))
+                .build();
+    }
+
+    private static Message mapFiles(Message message, UnaryOperator<FileContent> function) {
+        if (message == null) {
+            return null;
+        }
+        List<Part<?>> parts = mapParts(message.getParts(), function);
+        return parts == message.getParts() ? message : new Message.Builder(message).parts(parts).build();
+    }
+
+    private static List<Part<?>> mapParts(List<Part<?>> parts, UnaryOperator<FileContent> function) {
+        return map(parts, part -> {
+            if (part instanceof FilePart filePart) {
+                FileContent file = function.apply(filePart.getFile());
+                if (file != filePart.getFile()) {
+                    return new FilePart(file, filePart.getMetadata());
+                }
+            }
+            return part;
+        });
+    }
+
+    // Returns the list itself unless the function replaced any of its elements, so that it is only copied then
+    private static <E> List<E> map(List<E> list, UnaryOperator<E> function) {
+        if (list == null) {
+            return null;
+        }
+        List<E> mapped = null;
+        for (int i = 0; i < list.size(); i++) {
+            E element = list.get(i);
+            E replaced = function.apply(element);
+            if (replaced != element && mapped == null) {
+                mapped = new ArrayList<>(list.subList(0, i));
+            }
+            if (mapped != null) {
+                mapped.add(replaced);
+            }
+        }
+        return mapped == null ? list : mapped;
+    }
+}
@@ -1,32 +1,464 @@
 package io.a2a.server.tasks;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * A {@link TaskStore} keeping the tasks in memory.
+ * <p>
+ * By default all tasks are kept until deleted. With {@link InMemoryTaskStoreOptions}, the tasks which
+ * reached a final state are evicted after a TTL, or the least recently used of them once too many are
+ * kept. Expiry is cheap: tasks are grouped by when they reached their final state, and each group is
+ * evicted at once when its TTL has passed, as a side effect of using the store.
+ * <p>
+ * The tasks are indexed by context id and by state, so that {@link #list(String, TaskState, String, int)}
+ * reads only the tasks of the page it lists. Each task is numbered when first saved, and the indexes map
+ * these numbers to the task ids in order, so that a cursor is the number of the last task listed. The
+ * indexes of a task are only updated when its context id or state changes.
+ * <p>
+ * Each save of a task increments its version, which {@link #save(Task, long)} compares with the expected
+ * one atomically with the save.
+ */
 @ApplicationScoped
-public class InMemoryTaskStore implements TaskStore {
+public class InMemoryTaskStore implements VersionedTaskStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryTaskStore.class);
 
-    private final ConcurrentMap<String, Task> tasks = new ConcurrentHashMap<>();
+    // The number of groups the tasks reaching a final state within a TTL are split into
+    private static final int EXPIRY_BUCKETS = 16;
+    // The expected version of a save overwriting the task whatever its version
+    private static final long ANY_VERSION = -1;
+
+    private final ConcurrentMap<String, Entry> tasks = new ConcurrentHashMap<>();
+    private final InMemoryTaskStoreOptions options;
+    private final LongSupplier nanoTime;
+    private final long ttlNanos;
+    private final long bucketNanos;
+    private final TaskEvictionMetrics metrics = new TaskEvictionMetrics();
+    private final AtomicLong sequence = new AtomicLong();
+    // The ids of the tasks by the number they were given when first saved, for each context id and state
+    private final ConcurrentMap<IndexKey, ConcurrentSkipListMap<Long, String>> indexes = new ConcurrentHashMap<>();
+    // Guards the fields below, which track the tasks in a final state
+    private final ReentrantLock lock = new ReentrantLock();
+    // Least recently used first
+    private final LinkedHashMap<String, Entry> finalTasks = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<Bucket> expiryBuckets = new ArrayDeque<>();
+    private long finalTaskBytes;
+    private volatile boolean expiryPending;
+    private volatile long nextExpiry;
+
+    public InMemoryTaskStore() {
+        this(InMemoryTaskStoreOptions.UNBOUNDED);
+    }
+
+    public InMemoryTaskStore(InMemoryTaskStoreOptions options) {
+        this(options, System::nanoTime);
+    }
+
+    InMemoryTaskStore(InMemoryTaskStoreOptions options, LongSupplier nanoTime) {
+        Assert.checkNotNullParam("options", options);
+        this.options = options;
+        this.nanoTime = nanoTime;
+        this.ttlNanos = options.getFinalTaskTtl() == null ? 0 : options.getFinalTaskTtl().toNanos();
+        this.bucketNanos = Math.max(1, ttlNanos / EXPIRY_BUCKETS);
+    }
 
     @Override
     public void save(Task task) {
-        tasks.put(task.getId(), task);
+        store(task, ANY_VERSION);
+    }
+
+    @Override
+    public long save(Task task, long expectedVersion) {
+        if (expectedVersion < NO_VERSION) {
+            throw new IllegalArgumentException("Invalid expected version: " + expectedVersion);
+        }
+        return store(task, expectedVersion);
+    }
+
+    private long store(Task task, long expectedVersion) {
+        if (!options.isBounded()) {
+            return put(task, false, 0, 0, expectedVersion).entry().version();
+        }
+        long now = nanoTime.getAsLong();
+        String taskId = task.getId();
+        boolean isFinal = task.getStatus().state().isFinal();
+        // Only the tasks in a final state are evicted, so only those need their size estimated
+        long bytes = isFinal && options.getMaxFinalTaskBytes() != Long.MAX_VALUE ? TaskSizeEstimator.estimate(task) : 0;
+        Replacement replacement = put(task, isFinal, now, bytes, expectedVersion);
+        Entry entry = replacement.entry();
+        Entry previous = replacement.previous();
+        List<Task> evicted = List.of();
+        if (isFinal || (previous != null && previous.isFinal())) {
+            lock.lock();
+            try {
+                if (previous != null) {
+                    untrack(taskId, previous);
+                }
+                // Unless deleted meanwhile
+                if (isFinal && tasks.get(taskId) == entry) {
+                    track(taskId, entry);
+                    evicted = evictOverflow();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        archive(evicted);
+        archive(expireIfDue(now));
+        return entry.version();
     }
 
     @Override
     public Task get(String taskId) {
-        return tasks.get(taskId);
+        Entry entry = read(taskId);
+        return entry == null ? null : entry.task();
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        Entry entry = read(taskId);
+        return entry == null ? null : new VersionedTask(entry.task(), entry.version());
+    }
+
+    private Entry read(String taskId) {
+        Entry entry = tasks.get(taskId);
+        if (!options.isBounded()) {
+            return entry;
+        }
+        long now = nanoTime.getAsLong();
+        archive(expireIfDue(now));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isFinal()) {
+            if (isExpired(entry, now)) {
+                // Expired, though its group is not evicted yet
+                return null;
+            }
+            // Approximately least recently used: a read is not waited on to record its use
+            if (lock.tryLock()) {
+                try {
+                    finalTasks.get(taskId);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the clock, expires the tasks due and records the use of the tasks found once for all the ids.
+     */
+    @Override
+    public Map<String, Task> getAll(Collection<String> taskIds) {
+        Map<String, Task> found = new LinkedHashMap<>();
+        if (!options.isBounded()) {
+            for (String taskId : taskIds) {
+                Entry entry = tasks.get(taskId);
+                if (entry != null) {
+                    found.put(taskId, entry.task());
+                }
+            }
+            return found;
+        }
+        long now = nanoTime.getAsLong();
+        archive(expireIfDue(now));
+        List<String> finalTaskIds = new ArrayList<>();
+        for (String taskId : taskIds) {
+            Entry entry = tasks.get(taskId);
+            if (entry != null && !isExpired(entry, now)) {
+                found.put(taskId, entry.task());
+                if (entry.isFinal()) {
+                    finalTaskIds.add(taskId);
+                }
+            }
+        }
+        if (!finalTaskIds.isEmpty() && lock.tryLock()) {
+            try {
+                for (String taskId : finalTaskIds) {
+                    finalTasks.get(taskId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return found;
     }
 
     @Override
     public void delete(String taskId) {
-        tasks.remove(taskId);
+        Entry removed = tasks.remove(taskId);
+        if (removed == null) {
+            return;
+        }
+        unindex(removed);
+        if (removed.isFinal() && options.isBounded()) {
+            lock.lock();
+            try {
+                untrack(taskId, removed);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Lists the tasks in the order they were first saved.
+     */
+    @Override
+    public ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        long after = cursor == null ? 0 : parseCursor(cursor);
+        long now = ttlNanos > 0 ? nanoTime.getAsLong() : 0;
+        if (options.isBounded()) {
+            archive(expireIfDue(now));
+        }
+        ConcurrentSkipListMap<Long, String> index = indexes.get(new IndexKey(contextId, state));
+        if (index == null) {
+            return new ListTasksResult(List.of(), null);
+        }
+        List<Task> page = new ArrayList<>(Math.min(pageSize, 64));
+        Iterator<Map.Entry<Long, String>> indexed = index.tailMap(after, false).entrySet().iterator();
+        long last = after;
+        while (page.size() < pageSize && indexed.hasNext()) {
+            Map.Entry<Long, String> next = indexed.next();
+            last = next.getKey();
+            // The task may have been saved in another state or removed since the index was read
+            Entry entry = tasks.get(next.getValue());
+            if (entry != null && entry.sequence() == last && matches(entry.task(), contextId, state)
+                    && !isExpired(entry, now)) {
+                page.add(entry.task());
+            }
+        }
+        return new ListTasksResult(page, indexed.hasNext() ? Long.toString(last) : null);
+    }
+
+    public TaskEvictionMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Replaces the entry of the task, updating its indexes atomically with it, so that those of concurrent
+    // saves of the task are updated in the same order as the entry. Saved at the time given as finalAt.
+    private Replacement put(Task task, boolean isFinal, long finalAt, long bytes, long expectedVersion) {
+        Entry[] previous = new Entry[1];
+        Entry entry = tasks.compute(task.getId(), (taskId, current) -> {
+            // A task expired but not evicted yet is not stored anymore to those reading it
+            long version = current == null || isExpired(current, finalAt) ? NO_VERSION : current.version();
+            if (expectedVersion != ANY_VERSION && expectedVersion != version) {
+                throw new TaskVersionConflictException("Task " + taskId + " is at version " + version
+                        + ", not " + expectedVersion);
+            }
+            previous[0] = current;
+            Entry replacement = new Entry(task, isFinal, finalAt, bytes,
+                    current == null ? sequence.incrementAndGet() : current.sequence(),
+                    current == null ? NO_VERSION + 1 : current.version() + 1);
+            reindex(taskId, current, replacement);
+            return replacement;
+        });
+        return new Replacement(previous[0], entry);
+    }
+
+    private void reindex(String taskId, Entry previous, Entry entry) {
+        TaskState state = entry.task().getStatus().state();
+        String contextId = entry.task().getContextId();
+        if (previous == null) {
+            index(new IndexKey(null, null), entry.sequence(), taskId);
+            index(new IndexKey(contextId, null), entry.sequence(), taskId);
+            index(new IndexKey(null, state), entry.sequence(), taskId);
+            index(new IndexKey(contextId, state), entry.sequence(), taskId);
+            return;
+        }
+        TaskState previousState = previous.task().getStatus().state();
+        String previousContextId = previous.task().getContextId();
+        boolean contextChanged = !contextId.equals(previousContextId);
+        if (!contextChanged && state == previousState) {
+            return;
+        }
+        if (contextChanged) {
+            unindex(new IndexKey(previousContextId, null), previous.sequence());
+            index(new IndexKey(contextId, null), entry.sequence(), taskId);
+        }
+        if (state != previousState) {
+            unindex(new IndexKey(null, previousState), previous.sequence());
+            index(new IndexKey(null, state), entry.sequence(), taskId);
+        }
+        unindex(new IndexKey(previousContextId, previousState), previous.sequence());
+        index(new IndexKey(contextId, state), entry.sequence(), taskId);
+    }
+
+    // Called once the entry is removed. Since a task saved again afterwards is numbered anew, this cannot
+    // remove the index entries of the task saved again.
+    private void unindex(Entry entry) {
+        String contextId = entry.task().getContextId();
+        TaskState state = entry.task().getStatus().state();
+        unindex(new IndexKey(null, null), entry.sequence());
+        unindex(new IndexKey(contextId, null), entry.sequence());
+        unindex(new IndexKey(null, state), entry.sequence());
+        unindex(new IndexKey(contextId, state), entry.sequence());
+    }
+
+    private void index(IndexKey key, long sequence, String taskId) {
+        indexes.compute(key, (k, index) -> {
+            if (index == null) {
+                index = new ConcurrentSkipListMap<>();
+            }
+            index.put(sequence, taskId);
+            return index;
+        });
+    }
+
+    private void unindex(IndexKey key, long sequence) {
+        // Indexes are dropped once empty, since there is one for every context
+        indexes.computeIfPresent(key, (k, index) -> {
+            index.remove(sequence);
+            return index.isEmpty() ? null : index;
+        });
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return entry.isFinal() && ttlNanos > 0 && now - entry.finalAt() >= ttlNanos;
+    }
+
+    private static boolean matches(Task task, String contextId, TaskState state) {
+        return (contextId == null || contextId.equals(task.getContextId()))
+                && (state == null || state == task.getStatus().state());
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private void track(String taskId, Entry entry) {
+        finalTasks.put(taskId, entry);
+        finalTaskBytes += entry.bytes();
+        if (ttlNanos > 0) {
+            Bucket bucket = expiryBuckets.peekLast();
+            if (bucket == null || entry.finalAt() - bucket.end >= 0) {
+                bucket = new Bucket(entry.finalAt() + bucketNanos);
+                expiryBuckets.addLast(bucket);
+            }
+            bucket.taskIds.add(taskId);
+            if (!expiryPending) {
+                nextExpiry = expiryBuckets.peekFirst().end + ttlNanos;
+                expiryPending = true;
+            }
+        }
+    }
+
+    private boolean untrack(String taskId, Entry entry) {
+        if (finalTasks.remove(taskId, entry)) {
+            finalTaskBytes -= entry.bytes();
+            return true;
+        }
+        return false;
+    }
+
+    private List<Task> evictOverflow() {
+        List<Task> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> leastRecentlyUsed = finalTasks.entrySet().iterator();
+        while (finalTasks.size() > options.getMaxFinalTasks() || finalTaskBytes > options.getMaxFinalTaskBytes()) {
+            Map.Entry<String, Entry> eldest = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            finalTaskBytes -= eldest.getValue().bytes();
+            if (tasks.remove(eldest.getKey(), eldest.getValue())) {
+                unindex(eldest.getValue());
+                metrics.recordEvicted();
+                evicted.add(eldest.getValue().task());
+            }
+        }
+        return evicted;
+    }
+
+    private List<Task> expireIfDue(long now) {
+        if (!expiryPending || now - nextExpiry < 0 || !lock.tryLock()) {
+            return List.of();
+        }
+        try {
+            List<Task> expired = new ArrayList<>();
+            Bucket bucket;
+            while ((bucket = expiryBuckets.peekFirst()) != null && now - bucket.end >= ttlNanos) {
+                expiryBuckets.pollFirst();
+                for (String taskId : bucket.taskIds) {
+                    // The task may have been evicted, deleted or saved again since it was grouped
+                    Entry entry = tasks.get(taskId);
+                    if (entry != null && entry.isFinal() && now - entry.finalAt() >= ttlNanos
+                            && untrack(taskId, entry) && tasks.remove(taskId, entry)) {
+                        unindex(entry);
+                        metrics.recordExpired();
+                        expired.add(entry.task());
+                    }
+                }
+            }
+            expiryPending = bucket != null;
+            if (bucket != null) {
+                nextExpiry = bucket.end + ttlNanos;
+            }
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void archive(List<Task> evicted) {
+        Consumer<Task> archiver = options.getArchiver();
+        if (archiver == null) {
+            return;
+        }
+        for (Task task : evicted) {
+            try {
+                archiver.accept(task);
+            } catch (RuntimeException e) {
+                metrics.recordArchiveFailure();
+                LOGGER.warn("Failed to archive evicted task {}", task.getId(), e);
+            }
+        }
+    }
+
+    private record Entry(Task task, boolean isFinal, long finalAt, long bytes, long sequence, long version) {
+    }
+
+    private record Replacement(Entry previous, Entry entry) {
+    }
+
+    // Either field is null in the indexes of the tasks of any context or in any state
+    private record IndexKey(String contextId, TaskState state) {
+    }
+
+    // The tasks which reached a final state before the end of the bucket, and after the end of the previous one
+    private static final class Bucket {
+        private final long end;
+        private final List<String> taskIds = new ArrayList<>();
+
+        private Bucket(long end) {
+            this.end = end;
+        }
     }
 }
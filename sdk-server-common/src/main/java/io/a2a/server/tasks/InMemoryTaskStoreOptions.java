@@ -0,0 +1,108 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import io.a2a.spec.Task;
+
+/**
+ * Configures how long an {@link InMemoryTaskStore} keeps the tasks which reached a final state.
+ * <p>
+ * Such a task is evicted once it has been in its final state for {@link #getFinalTaskTtl()}, or once
+ * it is the least recently used of more than {@link #getMaxFinalTasks()} such tasks, or of such tasks
+ * taking more than about {@link #getMaxFinalTaskBytes()} bytes. Tasks which are not in a final state are
+ * never evicted, since they may still be worked on. Evicted tasks are passed to {@link #getArchiver()},
+ * if any.
+ * <p>
+ * By default, no task is ever evicted.
+ */
+public final class InMemoryTaskStoreOptions {
+
+    public static final InMemoryTaskStoreOptions UNBOUNDED = new Builder().build();
+
+    private final Duration finalTaskTtl;
+    private final int maxFinalTasks;
+    private final long maxFinalTaskBytes;
+    private final Consumer<Task> archiver;
+
+    private InMemoryTaskStoreOptions(Duration finalTaskTtl, int maxFinalTasks, long maxFinalTaskBytes,
+                                     Consumer<Task> archiver) {
+        if (finalTaskTtl != null && (finalTaskTtl.isNegative() || finalTaskTtl.isZero())) {
+            throw new IllegalArgumentException("Final task TTL must be positive");
+        }
+        if (maxFinalTasks < 0) {
+            throw new IllegalArgumentException("Max final tasks must not be negative");
+        }
+        if (maxFinalTaskBytes < 0) {
+            throw new IllegalArgumentException("Max final task bytes must not be negative");
+        }
+        this.finalTaskTtl = finalTaskTtl;
+        this.maxFinalTasks = maxFinalTasks;
+        this.maxFinalTaskBytes = maxFinalTaskBytes;
+        this.archiver = archiver;
+    }
+
+    /**
+     * How long a task is kept once it reached a final state, or {@code null} to keep it until evicted
+     * for the other limits.
+     */
+    public Duration getFinalTaskTtl() {
+        return finalTaskTtl;
+    }
+
+    /**
+     * The number of tasks in a final state kept.
+     */
+    public int getMaxFinalTasks() {
+        return maxFinalTasks;
+    }
+
+    /**
+     * The approximate number of bytes of memory taken by the tasks in a final state kept.
+     */
+    public long getMaxFinalTaskBytes() {
+        return maxFinalTaskBytes;
+    }
+
+    /**
+     * Receives the tasks evicted, or {@code null} to drop them.
+     */
+    public Consumer<Task> getArchiver() {
+        return archiver;
+    }
+
+    boolean isBounded() {
+        return finalTaskTtl != null || maxFinalTasks != Integer.MAX_VALUE || maxFinalTaskBytes != Long.MAX_VALUE;
+    }
+
+    public static class Builder {
+        private Duration finalTaskTtl;
+        private int maxFinalTasks = Integer.MAX_VALUE;
+        private long maxFinalTaskBytes = Long.MAX_VALUE;
+        private Consumer<Task> archiver;
+
+        public Builder finalTaskTtl(Duration finalTaskTtl) {
+            this.finalTaskTtl = finalTaskTtl;
+            return this;
+        }
+
+        public Builder maxFinalTasks(int maxFinalTasks) {
+            this.maxFinalTasks = maxFinalTasks;
+            return this;
+        }
+
+        public Builder maxFinalTaskBytes(long maxFinalTaskBytes) {
+            this.maxFinalTaskBytes = maxFinalTaskBytes;
+            return this;
+        }
+
+        public Builder archiver(Consumer<Task> archiver) {
+            this.archiver = archiver;
+            return this;
+        }
+
+        public InMemoryTaskStoreOptions build() {
+            return new InMemoryTaskStoreOptions(finalTaskTtl, maxFinalTasks, maxFinalTaskBytes, archiver);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import io.a2a.util.Assert;
+
+/**
+ * A store of blobs in a directory of the local file system, addressed by the SHA-256 digest of their
+ * content, so that content stored several times is kept once.
+ * <p>
+ * Each blob is a file named by the hexadecimal digest, in a subdirectory named by its first two digits. It
+ * is written to a temporary file first and then moved in place, so that a blob is never read partially
+ * written, even by another process sharing the directory.
+ */
+public class LocalBlobStore {
+
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+
+    public LocalBlobStore(Path directory) {
+        Assert.checkNotNullParam("directory", directory);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to create the blob directory " + directory, e);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Stores the content, unless it is stored already, and returns its digest.
+     */
+    public String put(byte[] content) {
+        String digest = digest(content);
+        Path path = path(digest);
+        if (Files.exists(path)) {
+            return digest;
+        }
+        Path temporary = null;
+        try {
+            Files.createDirectories(path.getParent());
+            temporary = Files.createTempFile(path.getParent(), digest, ".tmp");
+            Files.write(temporary, content);
+            move(temporary, path);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to store blob " + digest, e);
+        } finally {
+            deleteIfExists(temporary);
+        }
+        return digest;
+    }
+
+    /**
+     * Stores the content read from the stream, unless it is stored already, and returns its digest. The
+     * content is written as it is read, and never held in memory whole.
+     */
+    public String put(InputStream content) {
+        Assert.checkNotNullParam("content", content);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, "blob", ".tmp");
+            MessageDigest digester = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temporary), digester)) {
+                content.transferTo(out);
+            }
+            String digest = HexFormat.of().formatHex(digester.digest());
+            Path path = path(digest);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                move(temporary, path);
+            }
+            return digest;
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to store a blob", e);
+        } finally {
+            deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the content with the digest, or {@code null} if there is none.
+     */
+    public byte[] get(String digest) {
+        try {
+            return Files.readAllBytes(path(digest));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to read blob " + digest, e);
+        }
+    }
+
+    /**
+     * Opens the content with the digest, to be read without holding it in memory whole.
+     *
+     * @throws NoSuchFileException if there is no content with the digest
+     */
+    public InputStream open(String digest) throws IOException {
+        return Files.newInputStream(path(digest));
+    }
+
+    public boolean contains(String digest) {
+        return Files.exists(path(digest));
+    }
+
+    /**
+     * Deletes the content with the digest. Since content is shared by all who stored it, this is only safe
+     * once none of them refers to it anymore.
+     */
+    public void delete(String digest) {
+        try {
+            Files.deleteIfExists(path(digest));
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to delete blob " + digest, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path path(String digest) {
+        if (!DIGEST.matcher(digest).matches()) {
+            throw new IllegalArgumentException("Invalid blob digest: " + digest);
+        }
+        return directory.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static void move(Path temporary, Path path) throws IOException {
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporary, path);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                // Stored concurrently, with the same content
+            }
+        }
+    }
+
+    private static void deleteIfExists(Path temporary) {
+        if (temporary != null) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                // Left behind, which is harmless
+            }
+        }
+    }
+
+    private static String digest(byte[] content) {
+        return HexFormat.of().formatHex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+
+import io.a2a.util.Assert;
+
+/**
+ * Configures the log of a {@link MappedLogTaskStore}.
+ * <p>
+ * The log is written to segment files of {@link #getSegmentSize()} bytes. A task is written in full
+ * once every {@link #getSnapshotInterval()} saves, and only the changes since its previous save
+ * otherwise, as long as that previous save is among the last {@link #getCachedTasks()} tasks saved.
+ * Every {@link #getCompactionInterval()}, the log is compacted if less than {@link #getMinLiveRatio()}
+ * of it is still needed to read the tasks.
+ */
+public final class MappedLogOptions {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+    public static final int DEFAULT_CACHED_TASKS = 1024;
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+    public static final double DEFAULT_MIN_LIVE_RATIO = 0.5;
+
+    public static final MappedLogOptions DEFAULT = new Builder().build();
+
+    // Large enough for the header of a segment and a few records
+    private static final int MIN_SEGMENT_SIZE = 4096;
+
+    private final int segmentSize;
+    private final int snapshotInterval;
+    private final int cachedTasks;
+    private final Duration compactionInterval;
+    private final double minLiveRatio;
+
+    private MappedLogOptions(int segmentSize, int snapshotInterval, int cachedTasks, Duration compactionInterval,
+                             double minLiveRatio) {
+        Assert.checkNotNullParam("compactionInterval", compactionInterval);
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE);
+        }
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        if (cachedTasks < 0) {
+            throw new IllegalArgumentException("Cached tasks must not be negative");
+        }
+        if (compactionInterval.isNegative() || compactionInterval.isZero()) {
+            throw new IllegalArgumentException("Compaction interval must be positive");
+        }
+        if (!(minLiveRatio > 0 && minLiveRatio < 1)) {
+            throw new IllegalArgumentException("Min live ratio must be between 0 and 1");
+        }
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+        this.cachedTasks = cachedTasks;
+        this.compactionInterval = compactionInterval;
+        this.minLiveRatio = minLiveRatio;
+    }
+
+    /**
+     * The size in bytes of a segment file. A task too large for a segment gets a segment of its own.
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * The number of saves of a task after which it is written in full rather than as changes, which
+     * bounds the number of changes to apply when reading it.
+     */
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * The number of most recently saved tasks kept in memory, which the changes of their next save are
+     * computed against.
+     */
+    public int getCachedTasks() {
+        return cachedTasks;
+    }
+
+    /**
+     * How often to check whether the log needs to be compacted.
+     */
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    /**
+     * The fraction of the log still needed to read the tasks below which it is compacted.
+     */
+    public double getMinLiveRatio() {
+        return minLiveRatio;
+    }
+
+    public static class Builder {
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+        private int cachedTasks = DEFAULT_CACHED_TASKS;
+        private Duration compactionInterval = DEFAULT_COMPACTION_INTERVAL;
+        private double minLiveRatio = DEFAULT_MIN_LIVE_RATIO;
+
+        public Builder segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        public Builder snapshotInterval(int snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+            return this;
+        }
+
+        public Builder cachedTasks(int cachedTasks) {
+            this.cachedTasks = cachedTasks;
+            return this;
+        }
+
+        public Builder compactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+            return this;
+        }
+
+        public Builder minLiveRatio(double minLiveRatio) {
+            this.minLiveRatio = minLiveRatio;
+            return this;
+        }
+
+        public MappedLogOptions build() {
+            return new MappedLogOptions(segmentSize, snapshotInterval, cachedTasks, compactionInterval, minLiveRatio);
+        }
+    }
+}
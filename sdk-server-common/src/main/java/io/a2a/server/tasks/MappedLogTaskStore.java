@@ -0,0 +1,605 @@
+package io.a2a.server.tasks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import io.a2a.spec.Task;
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TaskStore} keeping the tasks in an append-only log of memory-mapped files in a directory, so
+ * that they survive restarts without an external database.
+ * <p>
+ * Saving a task appends a record to the log rather than rewriting the task. As long as the previous
+ * version of the task is still cached, the record only holds the changes made by the events of the task
+ * since then: its new status, the messages added to its history and the artifacts or artifact parts
+ * added. Every {@link MappedLogOptions#getSnapshotInterval()} saves, and whenever the changes are of
+ * another kind, the record holds the whole task instead. An index in memory locates the records of each
+ * task, from which the task is rebuilt when it is read. On startup, the index is rebuilt by reading the
+ * log, up to the last record which was completely written.
+ * <p>
+ * Records which are no longer needed remain in the log until it is compacted, which is done in the
+ * background once less than {@link MappedLogOptions#getMinLiveRatio()} of the log is needed: the tasks
+ * still written to the older files of the log are written again in full, and those files are deleted.
+ * <p>
+ * The records are in the memory of the operating system as soon as they are written, so they survive the
+ * process dying, but not the machine failing before they reach the disk. {@link #sync()} writes them to
+ * the disk, as does {@link #close()}, which must be called on shutdown.
+ */
+public class MappedLogTaskStore implements TaskStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedLogTaskStore.class);
+
+    private static final int MAGIC = 0x41324154;
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    // The length of the body of a record, then the checksum of the body
+    private static final int RECORD_HEADER_SIZE = 8;
+    // The type of a record and the length of the id of its task, which start its body
+    private static final int BODY_HEADER_SIZE = 3;
+    private static final byte SNAPSHOT = 1;
+    private static final byte DELTA = 2;
+    private static final byte DELETE = 3;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{16})\\.log");
+    private static final String LOCK_FILE = "store.lock";
+
+    private final Path directory;
+    private final MappedLogOptions options;
+    // Held open for as long as the store is, so that no other store can use the log meanwhile
+    private final FileChannel lockChannel;
+    // Guards all the fields below; the records located by the index are never written again
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, Chain> index = new HashMap<>();
+    // The most recently saved tasks, which the changes made by their next save are computed against
+    private final Map<String, Task> recent;
+    private Segment active;
+    private long logBytes;
+    private long liveBytes;
+    private boolean closed;
+    // Serializes compactions, without holding the lock while a compaction reads and writes tasks
+    private final Object compactionLock = new Object();
+    private final ScheduledExecutorService compactor;
+
+    public MappedLogTaskStore(Path directory) {
+        this(directory, MappedLogOptions.DEFAULT);
+    }
+
+    public MappedLogTaskStore(Path directory, MappedLogOptions options) {
+        Assert.checkNotNullParam("directory", directory);
+        Assert.checkNotNullParam("options", options);
+        this.directory = directory;
+        this.options = options;
+        int cachedTasks = options.getCachedTasks();
+        this.recent = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Task> eldest) {
+                return size() > cachedTasks;
+            }
+        };
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to open task log " + directory, e);
+        }
+        try {
+            if (!tryLock(lockChannel)) {
+                throw new TaskStoreException("Task log " + directory + " is used by another store");
+            }
+            recover();
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            if (e instanceof TaskStoreException taskStoreException) {
+                throw taskStoreException;
+            }
+            throw new TaskStoreException("Failed to open task log " + directory, e);
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "a2a-task-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = options.getCompactionInterval().toNanos();
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                if (needsCompaction()) {
+                    compact();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to compact task log {}", directory, e);
+            }
+        }, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void save(Task task) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            write(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            for (Task task : tasks) {
+                write(task);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Location snapshot;
+        List<Location> deltas;
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Task task = recent.get(taskId);
+            if (task != null) {
+                return task;
+            }
+            Chain chain = index.get(taskId);
+            if (chain == null) {
+                return null;
+            }
+            snapshot = chain.snapshot;
+            deltas = List.copyOf(chain.deltas);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // The mapped files stay readable even if compacted meanwhile, so the records are decoded unlocked
+        return rebuild(snapshot, deltas);
+    }
+
+    @Override
+    public void delete(String taskId) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            recent.remove(taskId);
+            if (index.containsKey(taskId)) {
+                // Needed for as long as the earlier records of the task are in the log
+                append(DELETE, taskId, NO_PAYLOAD);
+                unlink(taskId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the tasks saved so far to the disk.
+     */
+    public void sync() {
+        List<Segment> dirty = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            for (Segment segment : segments.values()) {
+                if (segment.dirty) {
+                    dirty.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Segment segment : dirty) {
+            // Cleared first, so that records written meanwhile are synced by the next call
+            segment.dirty = false;
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Compacts the log: the tasks which still have records in its files written so far are written again
+     * in full to a new file, and then those files are deleted. This is done in the background when needed,
+     * so it need not be called otherwise.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            long firstRetained;
+            List<String> taskIds = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                checkOpen();
+                if (active.position > SEGMENT_HEADER_SIZE) {
+                    roll(options.getSegmentSize());
+                }
+                firstRetained = active.id;
+                for (Map.Entry<String, Chain> entry : index.entrySet()) {
+                    if (entry.getValue().snapshot.segment.id < firstRetained) {
+                        taskIds.add(entry.getKey());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // A task at a time, so that saves are not held up for the whole compaction
+            for (String taskId : taskIds) {
+                lock.writeLock().lock();
+                try {
+                    if (closed) {
+                        return;
+                    }
+                    Chain chain = index.get(taskId);
+                    if (chain != null && chain.snapshot.segment.id < firstRetained) {
+                        Task task = recent.get(taskId);
+                        if (task == null) {
+                            task = rebuild(chain.snapshot, chain.deltas);
+                        }
+                        link(taskId, new Chain(append(SNAPSHOT, taskId, TaskCodec.encode(task))));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                // Oldest first, so that the log read after a failure meanwhile still has the deletes it needs
+                Iterator<Segment> compacted = segments.headMap(firstRetained).values().iterator();
+                while (compacted.hasNext()) {
+                    Segment segment = compacted.next();
+                    logBytes -= segment.position - SEGMENT_HEADER_SIZE;
+                    compacted.remove();
+                    Files.delete(segment.path);
+                }
+                LOGGER.debug("Compacted task log {} to {} bytes, of which {} are live", directory, logBytes, liveBytes);
+            } catch (IOException e) {
+                throw new TaskStoreException("Failed to delete compacted files of task log " + directory, e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The number of bytes of the records in the log.
+     */
+    public long getLogBytes() {
+        lock.readLock().lock();
+        try {
+            return logBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of the records in the log which are needed to read the tasks.
+     */
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of files of the log.
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops compacting the log and writes it to the disk. Using the store afterwards fails.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments.values()) {
+                if (segment.dirty) {
+                    segment.buffer.force();
+                }
+            }
+            closeFiles();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Task task) {
+        String taskId = task.getId();
+        Chain chain = index.get(taskId);
+        Task previous = recent.get(taskId);
+        TaskDelta delta = null;
+        if (chain != null && previous != null && chain.deltas.size() < options.getSnapshotInterval() - 1) {
+            delta = TaskDelta.between(previous, task);
+        }
+        if (delta == null) {
+            link(taskId, new Chain(append(SNAPSHOT, taskId, TaskCodec.encode(task))));
+        } else if (!delta.isEmpty()) {
+            Location location = append(DELTA, taskId, delta.encode());
+            chain.deltas.add(location);
+            liveBytes += location.length;
+        }
+        if (options.getCachedTasks() > 0) {
+            // Removed first, so that the task becomes the most recent
+            recent.remove(taskId);
+            recent.put(taskId, task);
+        }
+    }
+
+    private boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            long garbage = logBytes - liveBytes;
+            return !closed && garbage >= options.getSegmentSize() && liveBytes < logBytes * options.getMinLiveRatio();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(String taskId, Chain chain) {
+        unlink(taskId);
+        index.put(taskId, chain);
+        liveBytes += chain.bytes();
+    }
+
+    private void unlink(String taskId) {
+        Chain previous = index.remove(taskId);
+        if (previous != null) {
+            liveBytes -= previous.bytes();
+        }
+    }
+
+    private static Task rebuild(Location snapshot, List<Location> deltas) {
+        Task task = TaskCodec.decode(snapshot.payload());
+        for (Location delta : deltas) {
+            task = TaskDelta.decode(delta.payload()).applyTo(task);
+        }
+        return task;
+    }
+
+    private Location append(byte type, String taskId, byte[] payload) {
+        byte[] id = taskId.getBytes(UTF_8);
+        if (id.length > 0xFFFF) {
+            throw new TaskStoreException("Task id too long: " + taskId);
+        }
+        int bodyLength = BODY_HEADER_SIZE + id.length + payload.length;
+        int length = RECORD_HEADER_SIZE + bodyLength;
+        if (active == null || active.position + length > active.buffer.capacity()) {
+            roll(Math.max(options.getSegmentSize(), SEGMENT_HEADER_SIZE + length));
+        }
+        Segment segment = active;
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.position;
+        int body = offset + RECORD_HEADER_SIZE;
+        buffer.put(body, type);
+        buffer.putShort(body + 1, (short) id.length);
+        buffer.put(body + BODY_HEADER_SIZE, id);
+        buffer.put(body + BODY_HEADER_SIZE + id.length, payload);
+        buffer.putInt(offset + 4, checksum(buffer, body, bodyLength));
+        // Written last, so that a record is only read once it is complete
+        buffer.putInt(offset, bodyLength);
+        segment.position += length;
+        segment.dirty = true;
+        logBytes += length;
+        return new Location(segment, offset, length);
+    }
+
+    private void roll(int capacity) {
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = directory.resolve(String.format("segment-%016d.log", id));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            Segment segment = new Segment(id, path, buffer);
+            segment.position = SEGMENT_HEADER_SIZE;
+            segment.dirty = true;
+            segments.put(id, segment);
+            active = segment;
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to create file " + path + " of task log", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+        for (Path path : paths) {
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            long id = Long.parseLong(matcher.group(1));
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() < SEGMENT_HEADER_SIZE) {
+                    // Failed while being created, before any record was written to it
+                    LOGGER.warn("Deleting incomplete file {} of task log", path);
+                    Files.delete(path);
+                    continue;
+                }
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new TaskStoreException("File " + path + " is too large for a task log");
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new TaskStoreException("File " + path + " is not a file of a task log");
+            }
+            Segment segment = new Segment(id, path, buffer);
+            segments.put(id, segment);
+            active = segment;
+            recover(segment);
+        }
+        if (active == null) {
+            roll(options.getSegmentSize());
+        }
+        LOGGER.debug("Read {} tasks from task log {}", index.size(), directory);
+    }
+
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int offset = SEGMENT_HEADER_SIZE;
+        while (offset <= capacity - RECORD_HEADER_SIZE) {
+            int bodyLength = buffer.getInt(offset);
+            if (bodyLength == 0) {
+                break;
+            }
+            int body = offset + RECORD_HEADER_SIZE;
+            if (bodyLength < BODY_HEADER_SIZE || bodyLength > capacity - body
+                    || buffer.getInt(offset + 4) != checksum(buffer, body, bodyLength)) {
+                // Anything written after it is written over, as the log continues from here
+                LOGGER.warn("Ignoring the incomplete end of file {} of task log from offset {}", segment.path, offset);
+                break;
+            }
+            Location location = new Location(segment, offset, RECORD_HEADER_SIZE + bodyLength);
+            String taskId = location.taskId();
+            logBytes += location.length;
+            byte type = buffer.get(body);
+            switch (type) {
+                case SNAPSHOT -> link(taskId, new Chain(location));
+                case DELTA -> {
+                    Chain chain = index.get(taskId);
+                    if (chain != null) {
+                        chain.deltas.add(location);
+                        liveBytes += location.length;
+                    }
+                }
+                case DELETE -> unlink(taskId);
+                default -> throw new TaskStoreException("Unknown record type " + type + " in file " + segment.path
+                        + " of task log at offset " + offset);
+            }
+            offset += location.length;
+        }
+        segment.position = offset;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The task store is closed");
+        }
+    }
+
+    // The mapped files need no closing: a mapping outlives its channel, and is released with its buffer
+    private void closeFiles() {
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close the lock of task log {}", directory, e);
+        }
+    }
+
+    private static boolean tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            // Used by another store of this process
+            return false;
+        }
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        // Where the next record is written
+        private int position;
+        private volatile boolean dirty;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private record Location(Segment segment, int offset, int length) {
+
+        private String taskId() {
+            int body = offset + RECORD_HEADER_SIZE;
+            byte[] id = new byte[Short.toUnsignedInt(segment.buffer.getShort(body + 1))];
+            segment.buffer.get(body + BODY_HEADER_SIZE, id);
+            return new String(id, UTF_8);
+        }
+
+        private byte[] payload() {
+            int body = offset + RECORD_HEADER_SIZE;
+            int idLength = Short.toUnsignedInt(segment.buffer.getShort(body + 1));
+            byte[] payload = new byte[length - RECORD_HEADER_SIZE - BODY_HEADER_SIZE - idLength];
+            segment.buffer.get(body + BODY_HEADER_SIZE + idLength, payload);
+            return payload;
+        }
+    }
+
+    // The records of a task: the last one holding all of it, and those holding changes made since
+    private static final class Chain {
+        private final Location snapshot;
+        private final List<Location> deltas = new ArrayList<>();
+
+        private Chain(Location snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private long bytes() {
+            long bytes = snapshot.length;
+            for (Location delta : deltas) {
+                bytes += delta.length;
+            }
+            return bytes;
+        }
+    }
+}
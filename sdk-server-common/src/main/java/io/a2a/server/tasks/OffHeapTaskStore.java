@@ -0,0 +1,405 @@
+package io.a2a.server.tasks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import io.a2a.spec.Task;
+
+/**
+ * A {@link TaskStore} keeping the tasks in memory outside of the heap, encoded by {@link TaskCodec}, so
+ * that retaining many tasks neither fills the heap nor lengthens garbage collections.
+ * <p>
+ * A task is only decoded when it is read. Tasks are written to blocks of a size class, the smallest power
+ * of two fitting them, which are carved from direct buffers of {@link #getChunkSize()} bytes and reused
+ * once their task is saved again or deleted. Tasks larger than a chunk get a buffer of their own.
+ * <p>
+ * The tasks are located by an open-addressing hash table of primitive arrays, keyed by the two longs of
+ * the UUID which the id of a task is normally the string form of. Tasks with other ids are located by a
+ * map on the heap instead.
+ */
+public class OffHeapTaskStore implements TaskStore {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final int MIN_BLOCK_SIZE = 64;
+    // The length of the encoded task, which starts a block
+    private static final int BLOCK_HEADER_SIZE = 4;
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int chunkSize;
+    private final int sizeClasses;
+    // Guards all the fields below
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final ArrayDeque<Integer> freeChunkIndexes = new ArrayDeque<>();
+    private final LongStack[] freeBlocks;
+    private int currentChunk = -1;
+    private int currentOffset;
+    private long allocatedBytes;
+    private long usedBytes;
+    // The two longs of the UUID of each task, and the address of its block
+    private long[] keys = new long[INITIAL_CAPACITY * 2];
+    private long[] addresses = emptyAddresses(INITIAL_CAPACITY);
+    private int size;
+    private final Map<String, Long> otherIds = new HashMap<>();
+
+    public OffHeapTaskStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the size of the direct buffers blocks are carved from, a power of two
+     */
+    public OffHeapTaskStore(int chunkSize) {
+        if (chunkSize < MIN_BLOCK_SIZE || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two of at least " + MIN_BLOCK_SIZE);
+        }
+        this.chunkSize = chunkSize;
+        this.sizeClasses = Integer.numberOfTrailingZeros(chunkSize / MIN_BLOCK_SIZE) + 1;
+        this.freeBlocks = new LongStack[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            freeBlocks[i] = new LongStack();
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        // Encoded before locking, which is only needed to copy the encoding
+        byte[] encoded = TaskCodec.encode(task);
+        String taskId = task.getId();
+        long[] uuid = parseUuid(taskId);
+        lock.writeLock().lock();
+        try {
+            long address = allocate(BLOCK_HEADER_SIZE + encoded.length);
+            ByteBuffer chunk = chunks.get(chunkIndex(address));
+            chunk.putInt(offset(address), encoded.length);
+            chunk.put(offset(address) + BLOCK_HEADER_SIZE, encoded);
+            long previous;
+            if (uuid != null) {
+                previous = put(uuid[0], uuid[1], address);
+            } else {
+                Long replaced = otherIds.put(taskId, address);
+                previous = replaced == null ? EMPTY : replaced;
+            }
+            if (previous != EMPTY) {
+                free(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        long[] uuid = parseUuid(taskId);
+        byte[] encoded;
+        lock.readLock().lock();
+        try {
+            long address;
+            if (uuid != null) {
+                int slot = slot(uuid[0], uuid[1]);
+                address = addresses[slot];
+            } else {
+                Long found = otherIds.get(taskId);
+                address = found == null ? EMPTY : found;
+            }
+            if (address == EMPTY) {
+                return null;
+            }
+            ByteBuffer chunk = chunks.get(chunkIndex(address));
+            encoded = new byte[chunk.getInt(offset(address))];
+            chunk.get(offset(address) + BLOCK_HEADER_SIZE, encoded);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return TaskCodec.decode(encoded);
+    }
+
+    @Override
+    public void delete(String taskId) {
+        long[] uuid = parseUuid(taskId);
+        lock.writeLock().lock();
+        try {
+            long address;
+            if (uuid != null) {
+                int slot = slot(uuid[0], uuid[1]);
+                address = addresses[slot];
+                if (address != EMPTY) {
+                    removeAt(slot);
+                }
+            } else {
+                Long removed = otherIds.remove(taskId);
+                address = removed == null ? EMPTY : removed;
+            }
+            if (address != EMPTY) {
+                free(address);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The number of tasks kept.
+     */
+    public int getTaskCount() {
+        lock.readLock().lock();
+        try {
+            return size + otherIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of the direct buffers allocated.
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes of the blocks holding tasks, which is less than those allocated by the blocks
+     * free to be reused.
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long allocate(int length) {
+        if (length > chunkSize) {
+            Integer index = freeChunkIndexes.poll();
+            ByteBuffer chunk = ByteBuffer.allocateDirect(length);
+            if (index == null) {
+                index = chunks.size();
+                chunks.add(chunk);
+            } else {
+                chunks.set(index, chunk);
+            }
+            allocatedBytes += length;
+            usedBytes += length;
+            return address(index, 0);
+        }
+        int sizeClass = sizeClass(length);
+        int blockSize = MIN_BLOCK_SIZE << sizeClass;
+        usedBytes += blockSize;
+        LongStack free = freeBlocks[sizeClass];
+        if (!free.isEmpty()) {
+            return free.pop();
+        }
+        if (currentChunk < 0 || chunkSize - currentOffset < blockSize) {
+            carveRemainder();
+            currentChunk = chunks.size();
+            currentOffset = 0;
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            allocatedBytes += chunkSize;
+        }
+        long address = address(currentChunk, currentOffset);
+        currentOffset += blockSize;
+        return address;
+    }
+
+    private void free(long address) {
+        int index = chunkIndex(address);
+        ByteBuffer chunk = chunks.get(index);
+        int length = BLOCK_HEADER_SIZE + chunk.getInt(offset(address));
+        if (length > chunkSize) {
+            // Released by the garbage collector along with the buffer
+            chunks.set(index, null);
+            freeChunkIndexes.push(index);
+            allocatedBytes -= length;
+            usedBytes -= length;
+            return;
+        }
+        int sizeClass = sizeClass(length);
+        usedBytes -= MIN_BLOCK_SIZE << sizeClass;
+        freeBlocks[sizeClass].push(address);
+    }
+
+    // Splits the rest of the current chunk into free blocks, largest first
+    private void carveRemainder() {
+        if (currentChunk < 0) {
+            return;
+        }
+        for (int sizeClass = sizeClasses - 1; sizeClass >= 0; sizeClass--) {
+            int blockSize = MIN_BLOCK_SIZE << sizeClass;
+            while (chunkSize - currentOffset >= blockSize) {
+                freeBlocks[sizeClass].push(address(currentChunk, currentOffset));
+                currentOffset += blockSize;
+            }
+        }
+    }
+
+    private static int sizeClass(int length) {
+        int blocks = (length + MIN_BLOCK_SIZE - 1) / MIN_BLOCK_SIZE;
+        return blocks <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(blocks - 1);
+    }
+
+    private static long address(int chunkIndex, int offset) {
+        return ((long) chunkIndex << 32) | offset;
+    }
+
+    private static int chunkIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    // Returns the previous address of the key, or EMPTY
+    private long put(long msb, long lsb, long address) {
+        int slot = slot(msb, lsb);
+        long previous = addresses[slot];
+        if (previous == EMPTY) {
+            keys[slot * 2] = msb;
+            keys[slot * 2 + 1] = lsb;
+            size++;
+        }
+        addresses[slot] = address;
+        if (previous == EMPTY && size > addresses.length * 3 / 4) {
+            resize();
+        }
+        return previous;
+    }
+
+    // The slot holding the key, or else the empty slot ending its probe sequence
+    private int slot(long msb, long lsb) {
+        int mask = addresses.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (addresses[slot] != EMPTY && (keys[slot * 2] != msb || keys[slot * 2 + 1] != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Shifts back the keys after the slot which would no longer be found, rather than leaving a tombstone
+    private void removeAt(int slot) {
+        int mask = addresses.length - 1;
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (addresses[next] == EMPTY) {
+                break;
+            }
+            int home = hash(keys[next * 2], keys[next * 2 + 1]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap * 2] = keys[next * 2];
+                keys[gap * 2 + 1] = keys[next * 2 + 1];
+                addresses[gap] = addresses[next];
+                gap = next;
+            }
+        }
+        addresses[gap] = EMPTY;
+        size--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldAddresses = addresses;
+        keys = new long[oldKeys.length * 2];
+        addresses = emptyAddresses(oldAddresses.length * 2);
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != EMPTY) {
+                int slot = slot(oldKeys[i * 2], oldKeys[i * 2 + 1]);
+                keys[slot * 2] = oldKeys[i * 2];
+                keys[slot * 2 + 1] = oldKeys[i * 2 + 1];
+                addresses[slot] = oldAddresses[i];
+            }
+        }
+    }
+
+    private static long[] emptyAddresses(int capacity) {
+        long[] addresses = new long[capacity];
+        Arrays.fill(addresses, EMPTY);
+        return addresses;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long hash = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    /**
+     * Returns the two longs of the UUID which the id is the canonical string form of, as returned by
+     * {@link java.util.UUID#toString()}, or {@code null} if it is not one.
+     */
+    static long[] parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                // Upper case digits would make distinct ids the same key
+                return null;
+            }
+            if (digits < 16) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+            digits++;
+        }
+        return new long[] {msb, lsb};
+    }
+
+    private static final class LongStack {
+        private long[] elements = new long[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+
+        long pop() {
+            return elements[--size];
+        }
+    }
+}
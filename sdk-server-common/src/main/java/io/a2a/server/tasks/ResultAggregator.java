@@ -1,10 +1,18 @@
 package io.a2a.server.tasks;
 
-import static io.a2a.server.util.async.AsyncUtils.consumer;
+import static io.a2a.server.util.async.AsyncUtils.asyncBatchProcessor;
+import static io.a2a.server.util.async.AsyncUtils.asyncConsumer;
+import static io.a2a.server.util.async.AsyncUtils.beforeCompletion;
 import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
 import static io.a2a.server.util.async.AsyncUtils.processor;
 
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -19,10 +27,17 @@ import io.a2a.spec.Task;
 import io.a2a.spec.TaskState;
 import io.a2a.spec.TaskStatusUpdateEvent;
 import io.a2a.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ResultAggregator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultAggregator.class);
+
     private final TaskManager taskManager;
     private volatile Message message;
+    // While streaming, the task as of the last event which reached the subscriber, since the events of a
+    // batch are all processed before the first of them is emitted
+    private volatile Task emittedTask;
 
     public ResultAggregator(TaskManager taskManager, Message message) {
         this.taskManager = taskManager;
@@ -33,37 +48,66 @@ public class ResultAggregator {
         if (message != null) {
             return message;
         }
-        return taskManager.getTask();
+        Task task = emittedTask;
+        return task != null ? task : taskManager.getCurrentTask();
     }
 
     public Flow.Publisher<Event> consumeAndEmit(EventConsumer consumer) {
-        Flow.Publisher<Event> all = consumer.consumeAll();
-
-        return processor(createTubeConfig(), all, ((errorConsumer, event) -> {
-            callTaskManagerProcess(event);
+        Flow.Publisher<List<Event>> all = consumer.consumeAllBatches();
+
+        // Each batch is persisted at once, before any of its events is emitted. The task as of each event is
+        // only recorded once the event reaches the next stage, so that an event dropped by a subscriber which
+        // cancelled, or still buffered, is never recorded as emitted.
+        Queue<EmittedTask> snapshots = new ConcurrentLinkedQueue<>();
+        Flow.Publisher<Event> processed = asyncBatchProcessor(createTubeConfig(), all, events ->
+                callTaskManagerProcess(consumer, events).thenApply(tasks -> {
+                    for (int i = 0; i < tasks.size(); i++) {
+                        if (tasks.get(i) != null) {
+                            snapshots.add(new EmittedTask(events.get(i), tasks.get(i)));
+                        }
+                    }
+                    return true;
+                }));
+        // The subscriber is only done once the task is written, and fails if writing it failed
+        processed = beforeCompletion(processed, taskManager::savesCompleted);
+        return processor(createTubeConfig(), processed, (errorConsumer, event) -> {
+            EmittedTask next = snapshots.peek();
+            // Events without a task, or of a batch which failed to be processed, have none
+            if (next != null && next.event() == event) {
+                snapshots.poll();
+                emittedTask = next.task();
+            }
             return true;
-        }));
+        });
     }
 
     public EventKind consumeAll(EventConsumer consumer) {
         AtomicReference<EventKind> returnedEvent = new AtomicReference<>();
-        Flow.Publisher<Event> all = consumer.consumeAll();
+        Flow.Publisher<List<Event>> all = consumer.consumeAllBatches();
         AtomicReference<Throwable> error = new AtomicReference<>();
-        consumer(
-                createTubeConfig(),
+        CountDownLatch completed = new CountDownLatch(1);
+        asyncConsumer(
                 all,
-                (event) -> {
-                    if (event instanceof Message msg) {
-                        message = msg;
-                        if (returnedEvent.get() == null) {
-                            returnedEvent.set(msg);
-                            return false;
+                (events) -> {
+                    for (int i = 0; i < events.size(); i++) {
+                        if (events.get(i) instanceof Message msg) {
+                            message = msg;
+                            if (returnedEvent.get() == null) {
+                                return callTaskManagerProcess(consumer, events.subList(0, i)).thenApply(tasks -> {
+                                    returnedEvent.set(msg);
+                                    completed.countDown();
+                                    return false;
+                                });
+                            }
                         }
                     }
-                    callTaskManagerProcess(event);
-                    return true;
+                    return callTaskManagerProcess(consumer, events).thenApply(tasks -> true);
                 },
-                error::set);
+                t -> {
+                    error.set(t);
+                    completed.countDown();
+                });
+        awaitCompletion(completed);
 
         if (returnedEvent.get() != null) {
             return returnedEvent.get();
@@ -72,42 +116,56 @@ public class ResultAggregator {
     }
 
     public EventTypeAndInterrupt consumeAndBreakOnInterrupt(EventConsumer consumer) throws JSONRPCError {
-        Flow.Publisher<Event> all = consumer.consumeAll();
+        Flow.Publisher<List<Event>> all = consumer.consumeAllBatches();
         AtomicReference<Message> message = new AtomicReference<>();
         AtomicBoolean interrupted = new AtomicBoolean(false);
         AtomicReference<Throwable> errorRef = new AtomicReference<>();
-        consumer(
-                createTubeConfig(),
+        CountDownLatch completed = new CountDownLatch(1);
+        asyncConsumer(
                 all,
-                (event -> {
-                    if (event instanceof Throwable t) {
-                        errorRef.set(t);
-                        return false;
-                    }
-                    if (event instanceof Message msg) {
-                        this.message = msg;
-                        message.set(msg);
-                        return false;
-                    }
-
-                    callTaskManagerProcess(event);
-
-                    if ((event instanceof Task task && task.getStatus().state() == TaskState.AUTH_REQUIRED)
-                            || (event instanceof TaskStatusUpdateEvent tsue && tsue.getStatus().state() == TaskState.AUTH_REQUIRED)) {
-                        // auth-required is a special state: the message should be
-                        // escalated back to the caller, but the agent is expected to
-                        // continue producing events once the authorization is received
-                        // out-of-band. This is in contrast to input-required, where a
-                        // new request is expected in order for the agent to make progress,
-                        // so the agent should exit.
+                (events -> {
+                    for (int i = 0; i < events.size(); i++) {
+                        Event event = events.get(i);
+                        if (event instanceof Throwable t) {
+                            return callTaskManagerProcess(consumer, events.subList(0, i)).thenApply(tasks -> {
+                                errorRef.set(t);
+                                completed.countDown();
+                                return false;
+                            });
+                        }
+                        if (event instanceof Message msg) {
+                            return callTaskManagerProcess(consumer, events.subList(0, i)).thenApply(tasks -> {
+                                this.message = msg;
+                                message.set(msg);
+                                completed.countDown();
+                                return false;
+                            });
+                        }
 
-                        CompletableFuture.runAsync(() -> continueConsuming(all));
-                        interrupted.set(true);
-                        return false;
+                        if ((event instanceof Task task && task.getStatus().state() == TaskState.AUTH_REQUIRED)
+                                || (event instanceof TaskStatusUpdateEvent tsue && tsue.getStatus().state() == TaskState.AUTH_REQUIRED)) {
+                            // auth-required is a special state: the message should be
+                            // escalated back to the caller, but the agent is expected to
+                            // continue producing events once the authorization is received
+                            // out-of-band. This is in contrast to input-required, where a
+                            // new request is expected in order for the agent to make progress,
+                            // so the agent should exit.
+                            List<Event> remaining = events.subList(i + 1, events.size());
+                            return callTaskManagerProcess(consumer, events.subList(0, i + 1)).thenApply(tasks -> {
+                                CompletableFuture.runAsync(() -> continueConsuming(consumer, remaining, all));
+                                interrupted.set(true);
+                                completed.countDown();
+                                return false;
+                            });
+                        }
                     }
-                    return true;
+                    return callTaskManagerProcess(consumer, events).thenApply(tasks -> true);
                 }),
-                errorRef::set);
+                t -> {
+                    errorRef.set(t);
+                    completed.countDown();
+                });
+        awaitCompletion(completed);
 
         Throwable error = errorRef.get();
         if (error != null) {
@@ -118,26 +176,55 @@ public class ResultAggregator {
                 message.get() != null ? message.get() : taskManager.getTask(), interrupted.get());
     }
 
-    private void continueConsuming(Flow.Publisher<Event> all) {
-        consumer(createTubeConfig(),
+    private void continueConsuming(EventConsumer consumer, List<Event> remaining, Flow.Publisher<List<Event>> all) {
+        callTaskManagerProcess(consumer, remaining).thenRun(() -> asyncConsumer(
                 all,
-                event -> {
-                    callTaskManagerProcess(event);
-                    return true;
-                },
-                t -> {});
+                events -> callTaskManagerProcess(consumer, events).thenApply(tasks -> true),
+                t -> taskManager.savesCompleted().whenComplete((v, e) -> {
+                    // The response was returned already, so the failure to write the task can only be logged
+                    if (e != null) {
+                        LOGGER.error("Failed to save the task of {} after it required authorization",
+                                taskManager.getTaskId(), e);
+                    }
+                })));
     }
 
-    private void callTaskManagerProcess(Event event) {
-         try {
-            taskManager.process(event);
-        } catch (A2AServerException e) {
-            // TODO Decide what to do in case of failure
-            e.printStackTrace();
+    private void awaitCompletion(CountDownLatch completed) {
+        // The events are pushed from the consumer's executor, so wait for them to be consumed
+        try {
+            completed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for events to be consumed", e);
         }
     }
 
+    // Processes the events, which are a batch emitted by the consumer, or a sub list of one, in which case the
+    // resulting task is recorded as the snapshot of the queue before it is saved. Taps replaying since that
+    // snapshot may then read the task saved from the store before they are created, or the snapshot once
+    // the task is saved, but never a saved task without the snapshot of the events applied to it.
+    private CompletionStage<List<Task>> callTaskManagerProcess(EventConsumer consumer, List<Event> events) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return taskManager.processAllAsync(events, task -> consumer.recordSnapshot(task, events))
+                .exceptionally(t -> {
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    if (!(cause instanceof A2AServerException)) {
+                        throw t instanceof CompletionException completionException
+                                ? completionException
+                                : new CompletionException(t);
+                    }
+                    // TODO Decide what to do in case of failure
+                    cause.printStackTrace();
+                    return List.of();
+                });
+    }
+
     public record EventTypeAndInterrupt(EventKind eventType, boolean interrupted) {
 
     }
+
+    private record EmittedTask(Event event, Task task) {
+    }
 }
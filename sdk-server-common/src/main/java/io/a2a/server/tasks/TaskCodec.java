@@ -0,0 +1,128 @@
+package io.a2a.server.tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.util.Utils;
+
+/**
+ * Encodes tasks compactly for the task stores which keep them in serialized form.
+ * <p>
+ * A task is encoded as its JSON representation, which is deflated when that makes it noticeably smaller.
+ * The first byte of the encoding tells which of the two follows. Lists of messages, such as segments of the
+ * history of a task which a store keeps apart from it, are encoded the same way.
+ */
+public final class TaskCodec {
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+    // Smaller tasks rarely compress enough to be worth it
+    private static final int MIN_DEFLATE_SIZE = 512;
+    private static final TypeReference<List<Message>> MESSAGES = new TypeReference<>() {
+    };
+
+    private TaskCodec() {
+    }
+
+    public static byte[] encode(Task task) {
+        try {
+            return frame(Utils.OBJECT_MAPPER.writeValueAsBytes(task));
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to serialize task " + task.getId(), e);
+        }
+    }
+
+    public static Task decode(byte[] encoded) {
+        try {
+            return Utils.OBJECT_MAPPER.readValue(unframe(encoded), Task.TYPE_REFERENCE);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to deserialize task", e);
+        }
+    }
+
+    public static byte[] encodeMessages(List<Message> messages) {
+        try {
+            return frame(Utils.OBJECT_MAPPER.writerFor(MESSAGES).writeValueAsBytes(messages));
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to serialize " + messages.size() + " messages", e);
+        }
+    }
+
+    public static List<Message> decodeMessages(byte[] encoded) {
+        try {
+            return Utils.OBJECT_MAPPER.readValue(unframe(encoded), MESSAGES);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to deserialize messages", e);
+        }
+    }
+
+    private static byte[] frame(byte[] json) {
+        if (json.length >= MIN_DEFLATE_SIZE) {
+            byte[] deflated = deflate(json);
+            if (deflated.length < json.length - json.length / 8) {
+                return deflated;
+            }
+        }
+        byte[] encoded = new byte[json.length + 1];
+        encoded[0] = PLAIN;
+        System.arraycopy(json, 0, encoded, 1, json.length);
+        return encoded;
+    }
+
+    private static byte[] unframe(byte[] encoded) {
+        if (encoded.length == 0) {
+            throw new TaskStoreException("Empty task encoding");
+        }
+        return switch (encoded[0]) {
+            case PLAIN -> Arrays.copyOfRange(encoded, 1, encoded.length);
+            case DEFLATED -> inflate(encoded);
+            default -> throw new TaskStoreException("Unknown task encoding " + encoded[0]);
+        };
+    }
+
+    private static byte[] deflate(byte[] json) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 16);
+            out.write(DEFLATED);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] encoded) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, 1, encoded.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new TaskStoreException("Truncated task encoding");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new TaskStoreException("Corrupt task encoding", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
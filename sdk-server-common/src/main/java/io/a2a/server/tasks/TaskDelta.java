@@ -0,0 +1,158 @@
+package io.a2a.server.tasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskStatus;
+import io.a2a.util.AppendOnlyList;
+import io.a2a.util.Utils;
+
+/**
+ * The changes between two versions of a task, as made by the events of a task: a new status, messages
+ * added to the history, and artifacts added, replaced or with parts added.
+ * <p>
+ * The versions are compared by identity, relying on the lists of a task being shared with its previous
+ * version, so that computing the changes is cheap. When the lists are {@link AppendOnlyList}s appended to,
+ * or with elements replaced in, those of the previous version, as the task manager builds them, this takes
+ * time proportional to the changes only, rather than to the size of the task.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record TaskDelta(TaskStatus status, List<Message> history, List<ArtifactChange> artifacts) {
+
+    private static final TypeReference<TaskDelta> TYPE_REFERENCE = new TypeReference<>() {};
+
+    /**
+     * Returns the changes from the previous version of the task to the next, or {@code null} if they are
+     * not of the kinds a delta holds.
+     */
+    static TaskDelta between(Task previous, Task next) {
+        if (!previous.getId().equals(next.getId())
+                || !previous.getContextId().equals(next.getContextId())
+                || !Objects.equals(previous.getMetadata(), next.getMetadata())) {
+            return null;
+        }
+        List<Message> history = appended(previous.getHistory(), next.getHistory());
+        if (history == null) {
+            return null;
+        }
+        List<ArtifactChange> artifacts = artifactChanges(previous.getArtifacts(), next.getArtifacts());
+        if (artifacts == null) {
+            return null;
+        }
+        TaskStatus status = Objects.equals(previous.getStatus(), next.getStatus()) ? null : next.getStatus();
+        return new TaskDelta(status, history.isEmpty() ? null : history, artifacts.isEmpty() ? null : artifacts);
+    }
+
+    static TaskDelta decode(byte[] encoded) {
+        try {
+            return Utils.OBJECT_MAPPER.readValue(encoded, TYPE_REFERENCE);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to deserialize task delta", e);
+        }
+    }
+
+    boolean isEmpty() {
+        return status == null && history == null && artifacts == null;
+    }
+
+    byte[] encode() {
+        try {
+            return Utils.OBJECT_MAPPER.writeValueAsBytes(this);
+        } catch (IOException e) {
+            throw new TaskStoreException("Failed to serialize task delta", e);
+        }
+    }
+
+    Task applyTo(Task task) {
+        Task.Builder builder = new Task.Builder(task);
+        if (status != null) {
+            builder.status(status);
+        }
+        if (history != null) {
+            builder.history(AppendOnlyList.appendAll(task.getHistory(), history));
+        }
+        if (artifacts != null) {
+            List<Artifact> current = task.getArtifacts();
+            for (ArtifactChange change : artifacts) {
+                int size = current == null ? 0 : current.size();
+                if (change.index() > size) {
+                    throw new TaskStoreException("Delta of task " + task.getId() + " changes artifact "
+                            + change.index() + " of " + size);
+                }
+                Artifact artifact;
+                if (change.artifact() != null) {
+                    artifact = change.artifact();
+                } else if (change.index() < size) {
+                    artifact = new Artifact.Builder(current.get(change.index())).appendParts(change.parts()).build();
+                } else {
+                    throw new TaskStoreException("Delta of task " + task.getId() + " adds parts to a missing artifact");
+                }
+                current = change.index() == size
+                        ? AppendOnlyList.append(current, artifact)
+                        : AppendOnlyList.replace(current, change.index(), artifact);
+            }
+            builder.artifacts(current);
+        }
+        return builder.build();
+    }
+
+    // Returns the elements added to the end of the previous list, or null if it was changed otherwise. Only
+    // the added elements are read when the next list was appended to the previous one without copying it.
+    private static <E> List<E> appended(List<E> previous, List<E> next) {
+        int previousSize = previous == null ? 0 : previous.size();
+        int nextSize = next == null ? 0 : next.size();
+        if (!AppendOnlyList.startsWith(next, previous)) {
+            return null;
+        }
+        return nextSize == previousSize ? List.of() : List.copyOf(next.subList(previousSize, nextSize));
+    }
+
+    private static List<ArtifactChange> artifactChanges(List<Artifact> previous, List<Artifact> next) {
+        int previousSize = previous == null ? 0 : previous.size();
+        int nextSize = next == null ? 0 : next.size();
+        if (nextSize < previousSize) {
+            return null;
+        }
+        List<ArtifactChange> changes = new ArrayList<>();
+        // Only the artifacts from the first one replaced or added on are compared
+        int from = AppendOnlyList.sharedPrefixLength(next, previous);
+        for (int i = from; i < nextSize; i++) {
+            Artifact artifact = next.get(i);
+            Artifact previousArtifact = i < previousSize ? previous.get(i) : null;
+            if (artifact == previousArtifact) {
+                continue;
+            }
+            List<Part<?>> parts = previousArtifact != null && sameExceptParts(previousArtifact, artifact)
+                    ? appended(previousArtifact.parts(), artifact.parts())
+                    : null;
+            if (parts != null && parts.isEmpty()) {
+                continue;
+            }
+            changes.add(parts == null ? new ArtifactChange(i, artifact, null) : new ArtifactChange(i, null, parts));
+        }
+        return changes;
+    }
+
+    private static boolean sameExceptParts(Artifact previous, Artifact next) {
+        return previous.artifactId().equals(next.artifactId())
+                && Objects.equals(previous.name(), next.name())
+                && Objects.equals(previous.description(), next.description())
+                && Objects.equals(previous.metadata(), next.metadata());
+    }
+
+    /**
+     * An artifact at an index of the artifacts of a task, either added or replaced by {@code artifact},
+     * or with {@code parts} added to it.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record ArtifactChange(int index, Artifact artifact, List<Part<?>> parts) {
+    }
+}
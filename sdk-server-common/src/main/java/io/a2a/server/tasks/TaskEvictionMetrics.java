@@ -0,0 +1,46 @@
+package io.a2a.server.tasks;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the tasks an {@link InMemoryTaskStore} evicted.
+ */
+public class TaskEvictionMetrics {
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder archiveFailures = new LongAdder();
+
+    void recordExpired() {
+        expired.increment();
+    }
+
+    void recordEvicted() {
+        evicted.increment();
+    }
+
+    void recordArchiveFailure() {
+        archiveFailures.increment();
+    }
+
+    /**
+     * The number of tasks evicted because they had been in a final state for longer than their TTL.
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * The number of tasks evicted because too many tasks in a final state, or too large ones, were kept.
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * The number of evicted tasks which the archiver failed to archive.
+     */
+    public long getArchiveFailureCount() {
+        return archiveFailures.sum();
+    }
+}
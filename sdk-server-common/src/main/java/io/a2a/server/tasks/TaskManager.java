@@ -4,32 +4,96 @@ import static io.a2a.spec.TaskState.SUBMITTED;
 import static io.a2a.util.Assert.checkNotNullParam;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
+import io.a2a.server.util.async.AsyncUtils;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
 import io.a2a.spec.Event;
 import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.Message;
-import io.a2a.spec.Part;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskArtifactUpdateEvent;
 import io.a2a.spec.TaskStatus;
 import io.a2a.spec.TaskStatusUpdateEvent;
+import io.a2a.util.AppendOnlyList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Applies the events of a task to it, and saves the results.
+ * <p>
+ * Several task managers may update the same task concurrently, such as those of a message and of the
+ * cancellation of its task. With a {@link VersionedTaskStore}, each saves the task only if it is still at
+ * the version its update was applied to, and otherwise applies its update again to the version saved by
+ * the other, so that no update is lost and no lock is needed. Saves to other stores overwrite the task.
+ * <p>
+ * The subscribers to the events of a task which another task manager saves use a task manager
+ * {@linkplain #withoutSaving(Task, TaskStore) which does not save}, since applying the events again to the
+ * task saved since would apply them twice.
+ */
 public class TaskManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskManager.class);
+
     private volatile String taskId;
     private volatile String contextId;
-    private final TaskStore taskStore;
+    private final AsyncTaskStore taskStore;
+    // Null unless the task store is versioned. An asynchronous store is used without versions, since its
+    // saves are pipelined rather than each waiting for the version saved by the previous one.
+    private final VersionedTaskStore versionedTaskStore;
+    // Null unless the task store offloads files, in which case the current task holds the handles replacing
+    // them, rather than their content, so that it is not offloaded again each time it is saved
+    private final BlobOffloadingTaskStore offloadingTaskStore;
     private final Message initialMessage;
+    private final boolean saving;
     private volatile Task currentTask;
+    // Whether the task was read from the store already, so that it is not read again while it does not exist
+    private volatile boolean loaded;
+    // The version of the current task in the versioned task store
+    private volatile long currentVersion = VersionedTaskStore.NO_VERSION;
+    // The saves of the task, chained so that its versions are written in order without waiting for each
+    private volatile CompletableFuture<Void> pendingSaves = CompletableFuture.completedFuture(null);
+    // The save whose failure was thrown to the caller already, rather than left to be observed later
+    private volatile CompletableFuture<Void> reportedSave;
+    // The position of each artifact of the current task by its id, so that the artifact a chunk updates is
+    // found in constant time. Only valid for the artifacts list it was built for, and only used by the
+    // thread processing the events.
+    private Map<String, Integer> artifactPositions;
+    private List<Artifact> indexedArtifacts;
 
     public TaskManager(String taskId, String contextId, TaskStore taskStore, Message initialMessage) {
+        this(taskId, contextId, taskStore, initialMessage, true);
+    }
+
+    private TaskManager(String taskId, String contextId, TaskStore taskStore, Message initialMessage, boolean saving) {
         checkNotNullParam("taskStore", taskStore);
         this.taskId = taskId;
         this.contextId = contextId;
-        this.taskStore = taskStore;
+        this.taskStore = AsyncTaskStore.of(taskStore);
+        this.versionedTaskStore = taskStore instanceof VersionedTaskStore versioned && !(taskStore instanceof AsyncTaskStore)
+                ? versioned
+                : null;
+        this.offloadingTaskStore = taskStore instanceof BlobOffloadingTaskStore offloading ? offloading : null;
         this.initialMessage = initialMessage;
+        this.saving = saving;
+    }
+
+    /**
+     * Creates a task manager which applies the events to the task, as it was after the events preceding
+     * them, without saving the results.
+     */
+    public static TaskManager withoutSaving(Task task, TaskStore taskStore) {
+        checkNotNullParam("task", task);
+        TaskManager taskManager = new TaskManager(task.getId(), task.getContextId(), taskStore, null, false);
+        taskManager.currentTask = task;
+        return taskManager;
     }
 
     String getTaskId() {
@@ -41,92 +105,137 @@ public class TaskManager {
     }
 
     public Task getTask() {
+        return AsyncUtils.join(getTaskAsync());
+    }
+
+    public CompletionStage<Task> getTaskAsync() {
         if (taskId == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
+        }
+        Task task = currentTask;
+        if (task != null) {
+            return CompletableFuture.completedFuture(task);
         }
-        if (currentTask != null) {
-            return currentTask;
+        if (versionedTaskStore != null) {
+            return CompletableFuture.completedFuture(load(taskId));
         }
-        currentTask = taskStore.get(taskId);
+        return taskStore.getAsync(taskId).thenApply(stored -> {
+            currentTask = stored;
+            loaded = true;
+            return stored;
+        });
+    }
+
+    /**
+     * The task as of the events processed so far, without reading it from the store.
+     */
+    Task getCurrentTask() {
         return currentTask;
     }
 
+    /**
+     * Completes once the versions of the task saved so far are written, or fails if writing the latest of
+     * them failed.
+     */
+    public CompletionStage<Void> savesCompleted() {
+        return pendingSaves;
+    }
+
     Task saveTaskEvent(Task task) throws A2AServerException {
         checkIdsAndUpdateIfNecessary(task.getId(), task.getContextId());
         return saveTask(task);
     }
 
     Task saveTaskEvent(TaskStatusUpdateEvent event) throws A2AServerException {
-        checkIdsAndUpdateIfNecessary(event.getTaskId(), event.getContextId());
-        Task task = ensureTask(event.getTaskId(), event.getContextId());
+        return saveUpdate(applyTaskEvent(event), current -> applyStatusUpdate(orCreate(current), event));
+    }
 
+    private Task applyTaskEvent(TaskStatusUpdateEvent event) throws A2AServerException {
+        checkIdsAndUpdateIfNecessary(event.getTaskId(), event.getContextId());
+        return applyStatusUpdate(ensureTask(event.getTaskId(), event.getContextId()), event);
+    }
 
+    private Task applyStatusUpdate(Task task, TaskStatusUpdateEvent event) {
         Task.Builder builder = new Task.Builder(task)
                 .status(event.getStatus());
 
         if (task.getStatus().message() != null) {
-            List<Message> newHistory = task.getHistory() == null ? new ArrayList<>() : new ArrayList<>(task.getHistory());
-            newHistory.add(task.getStatus().message());
-            builder.history(newHistory);
+            builder.appendHistory(task.getStatus().message());
         }
 
-        task = builder.build();
-        return saveTask(task);
+        return builder.build();
     }
 
     Task saveTaskEvent(TaskArtifactUpdateEvent event) throws A2AServerException {
+        return saveUpdate(applyTaskEvent(event), current -> applyArtifactUpdate(orCreate(current), event));
+    }
+
+    private Task applyTaskEvent(TaskArtifactUpdateEvent event) throws A2AServerException {
         checkIdsAndUpdateIfNecessary(event.getTaskId(), event.getContextId());
-        Task task = ensureTask(event.getTaskId(), event.getContextId());
+        return applyArtifactUpdate(ensureTask(event.getTaskId(), event.getContextId()), event);
+    }
 
-        // Append artifacts
-        List<Artifact> artifacts = task.getArtifacts() == null ? new ArrayList<>() : new ArrayList<>(task.getArtifacts());
+    private Task applyArtifactUpdate(Task task, TaskArtifactUpdateEvent event) {
+        // The artifacts and their parts are shared with the previous task rather than copied
+        List<Artifact> artifacts = task.getArtifacts() == null ? List.of() : task.getArtifacts();
+        Task.Builder builder = new Task.Builder(task);
 
         Artifact newArtifact = event.getArtifact();
         String artifactId = newArtifact.artifactId();
         boolean appendParts = event.isAppend() != null && event.isAppend();
 
-        Artifact existingArtifact = null;
-        int existingArtifactIndex = -1;
-
-        for (int i = 0; i < artifacts.size(); i++) {
-            Artifact curr = artifacts.get(i);
-            if (curr.artifactId() != null && curr.artifactId().equals(artifactId)) {
-                existingArtifact = curr;
-                existingArtifactIndex = i;
-                break;
-            }
-        }
+        int existingArtifactIndex = artifactPosition(artifacts, artifactId);
+        Artifact existingArtifact = existingArtifactIndex >= 0 ? artifacts.get(existingArtifactIndex) : null;
+        boolean added = false;
 
         if (!appendParts) {
             // This represents the first chunk for this artifact index
             if (existingArtifactIndex >= 0) {
                 // Replace the existing artifact entirely with the new artifact
-                artifacts.set(existingArtifactIndex, newArtifact);
+                builder.artifacts(AppendOnlyList.replace(artifacts, existingArtifactIndex, newArtifact));
             } else {
                 // Append the new artifact since no artifact with this id/index exists yet
-                artifacts.add(newArtifact);
+                builder.appendArtifact(newArtifact);
+                added = true;
             }
 
         } else if (existingArtifact != null) {
             // Append new parts to the existing artifact's parts list
-            // Do this to a copy
-
-            List<Part<?>> parts = new ArrayList<>(existingArtifact.parts());
-            parts.addAll(newArtifact.parts());
             Artifact updated = new Artifact.Builder(existingArtifact)
-                    .parts(parts)
+                    .appendParts(newArtifact.parts())
                     .build();
-            artifacts.set(existingArtifactIndex, updated);
+            builder.artifacts(AppendOnlyList.replace(artifacts, existingArtifactIndex, updated));
         } else {
             // We received a chunk to append, but we don't have an existing artifact.
             // We will ignore this chunk
         }
 
-        task = new Task.Builder(task)
-                .artifacts(artifacts)
-                .build();
+        Task updated = builder.build();
+        if (indexedArtifacts == artifacts && updated.getArtifacts() != null) {
+            // Carry the index over to the new artifacts list, in which only the added artifact moved
+            if (added) {
+                artifactPositions.put(artifactId, artifacts.size());
+            }
+            indexedArtifacts = updated.getArtifacts();
+        }
+        return updated;
+    }
 
-        return saveTask(task);
+    private int artifactPosition(List<Artifact> artifacts, String artifactId) {
+        if (artifacts != indexedArtifacts) {
+            // The task was replaced, so index its artifacts once
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < artifacts.size(); i++) {
+                String id = artifacts.get(i).artifactId();
+                if (id != null) {
+                    positions.putIfAbsent(id, i);
+                }
+            }
+            artifactPositions = positions;
+            indexedArtifacts = artifacts;
+        }
+        Integer position = artifactPositions.get(artifactId);
+        return position == null ? -1 : position;
     }
 
     public Event process(Event event) throws A2AServerException {
@@ -140,16 +249,130 @@ public class TaskManager {
         return event;
     }
 
+    /**
+     * Processes the events in order as {@link #process(Event)} does, but only saves the resulting task
+     * once, after the last of them.
+     *
+     * @return the task as it was after each of the events, which is {@code null} for any event preceding
+     *         the task's creation
+     */
+    public List<Task> processAll(List<Event> events) throws A2AServerException {
+        return processAll(events, null);
+    }
+
+    /**
+     * As {@link #processAll(List)}, passing the task resulting from all the events to {@code beforeSave}
+     * before saving it, unless the task does not exist, one of the events failed to be applied, or the task
+     * manager does not save.
+     */
+    public List<Task> processAll(List<Event> events, Consumer<Task> beforeSave) throws A2AServerException {
+        List<Task> snapshots = new ArrayList<>(events.size());
+        Task updated = null;
+        int applied = 0;
+        try {
+            for (Event event : events) {
+                Task task = null;
+                if (event instanceof Task t) {
+                    task = t;
+                } else if (event instanceof TaskStatusUpdateEvent taskStatusUpdateEvent) {
+                    task = applyTaskEvent(taskStatusUpdateEvent);
+                } else if (event instanceof TaskArtifactUpdateEvent taskArtifactUpdateEvent) {
+                    task = applyTaskEvent(taskArtifactUpdateEvent);
+                }
+                if (task != null) {
+                    updated = setCurrentTask(task);
+                }
+                snapshots.add(currentTask);
+                applied++;
+            }
+        } finally {
+            if (beforeSave != null && saving && applied == events.size() && currentTask != null) {
+                beforeSave.accept(currentTask);
+            }
+            // The events preceding one which failed are still saved
+            if (updated != null) {
+                List<Event> saved = events.subList(0, applied);
+                saveUpdate(updated, current -> {
+                    Task task = current;
+                    for (Event event : saved) {
+                        task = applyEvent(task, event);
+                    }
+                    return task;
+                });
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * As {@link #processAll(List, Consumer)}, but the task the events apply to is read from the store
+     * asynchronously, rather than by blocking the calling thread. The stage fails with an
+     * {@link A2AServerException} if one of the events failed to be applied.
+     */
+    public CompletionStage<List<Task>> processAllAsync(List<Event> events, Consumer<Task> beforeSave) {
+        return loadAsync(events).thenApply(v -> {
+            try {
+                return processAll(events, beforeSave);
+            } catch (A2AServerException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    // Reads the task which the first of the events updates, unless it is read already or the events replace it
+    private CompletionStage<Void> loadAsync(List<Event> events) {
+        if (currentTask != null || loaded || versionedTaskStore != null) {
+            // A versioned task store is synchronous, and read along with the version
+            return CompletableFuture.completedFuture(null);
+        }
+        String eventTaskId = null;
+        for (Event event : events) {
+            if (event instanceof Task) {
+                return CompletableFuture.completedFuture(null);
+            } else if (event instanceof TaskStatusUpdateEvent taskStatusUpdateEvent) {
+                eventTaskId = taskStatusUpdateEvent.getTaskId();
+                break;
+            } else if (event instanceof TaskArtifactUpdateEvent taskArtifactUpdateEvent) {
+                eventTaskId = taskArtifactUpdateEvent.getTaskId();
+                break;
+            }
+        }
+        if (eventTaskId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Should the ids differ, applying the event fails without reading anything
+        String id = taskId != null ? taskId : eventTaskId;
+        return taskStore.getAsync(id).thenAccept(stored -> {
+            if (currentTask == null) {
+                currentTask = stored;
+                loaded = true;
+            }
+        });
+    }
+
     public Task updateWithMessage(Message message, Task task) {
-        List<Message> history = task.getHistory() == null ? new ArrayList<>() : new ArrayList<>(task.getHistory());
+        return saveUpdate(appendMessage(task, message), current -> appendMessage(orCreate(current), message));
+    }
+
+    private Task appendMessage(Task task, Message message) {
+        Task.Builder builder = new Task.Builder(task);
         if (task.getStatus().message() != null) {
-            history.add(task.getStatus().message());
+            builder.appendHistory(task.getStatus().message());
         }
-        history.add(message);
-        task = new Task.Builder(task)
-                .history(history)
+        return builder
+                .appendHistory(message)
                 .build();
-        saveTask(task);
+    }
+
+    // Applies an event to the task as processAll does, once the ids of the event were checked
+    private Task applyEvent(Task task, Event event) {
+        if (event instanceof Task t) {
+            return t;
+        } else if (event instanceof TaskStatusUpdateEvent taskStatusUpdateEvent) {
+            return applyStatusUpdate(orCreate(task), taskStatusUpdateEvent);
+        } else if (event instanceof TaskArtifactUpdateEvent taskArtifactUpdateEvent) {
+            return applyArtifactUpdate(orCreate(task), taskArtifactUpdateEvent);
+        }
         return task;
     }
 
@@ -172,14 +395,23 @@ public class TaskManager {
         if (task != null) {
             return task;
         }
-        task = taskStore.get(taskId);
+        if (!loaded) {
+            task = versionedTaskStore != null ? load(taskId) : AsyncUtils.join(taskStore.getAsync(taskId));
+            loaded = true;
+        }
         if (task == null) {
-            task = createTask(eventTaskId, eventContextId);
-            saveTask(task);
+            Task created = createTask(eventTaskId, eventContextId);
+            // Unless created by another writer meanwhile
+            task = saveUpdate(created, current -> current != null ? current : created);
         }
         return task;
     }
 
+    // The task an update is applied to, which is created if it was deleted meanwhile
+    private Task orCreate(Task task) {
+        return task != null ? task : createTask(taskId, contextId);
+    }
+
     private Task createTask(String taskId, String contextId) {
         List<Message> history = initialMessage != null ? List.of(initialMessage) : null;
         return new Task.Builder()
@@ -191,7 +423,73 @@ public class TaskManager {
     }
 
     private Task saveTask(Task task) {
-        taskStore.save(task);
+        // A task replaces the task saved by another writer too
+        return saveUpdate(task, current -> task);
+    }
+
+    /**
+     * Saves the task resulting from an update of the current task. With a versioned task store, an update
+     * conflicting with the save of another writer is applied again to the task that writer saved, until
+     * the task is saved without conflict. Since each conflict means another writer's save succeeded, the
+     * writers of a task keep progressing without locking it.
+     *
+     * @param reapply applies the update to the stored task, which is {@code null} if it was deleted
+     */
+    private Task saveUpdate(Task updated, UnaryOperator<Task> reapply) {
+        if (!saving) {
+            return setCurrentTask(updated);
+        }
+        if (versionedTaskStore == null) {
+            return write(updated);
+        }
+        while (true) {
+            try {
+                currentVersion = versionedTaskStore.save(updated, currentVersion);
+                return setCurrentTask(updated);
+            } catch (TaskVersionConflictException e) {
+                Task stored = load(updated.getId());
+                updated = reapply.apply(stored);
+                if (updated == stored) {
+                    // The update is already part of the stored task
+                    return setCurrentTask(stored);
+                }
+            }
+        }
+    }
+
+    // Reads the task with its version, which becomes the current task
+    private Task load(String id) {
+        VersionedTask stored = versionedTaskStore.getVersioned(id);
+        currentVersion = stored == null ? VersionedTaskStore.NO_VERSION : stored.version();
+        currentTask = stored == null ? null : stored.task();
+        loaded = true;
+        return currentTask;
+    }
+
+    private Task write(Task updated) {
+        // The store finds nothing more to offload in a task offloaded already
+        Task task = offloadingTaskStore != null ? offloadingTaskStore.offload(updated) : updated;
+        CompletableFuture<Void> previous = pendingSaves;
+        // A version which failed to be written is superseded by this one, so it does not hold this one up,
+        // but its failure is logged unless it was thrown already
+        CompletableFuture<Void> save = previous
+                .handle((v, e) -> {
+                    if (e != null && previous != reportedSave) {
+                        LOGGER.warn("Failed to save a version of task {} superseded since", task.getId(), e);
+                    }
+                    return null;
+                })
+                .thenCompose(v -> taskStore.saveAsync(task));
+        pendingSaves = save;
+        if (save.isCompletedExceptionally()) {
+            // Fails right away like a synchronous save would, when the store completes the save before returning
+            reportedSave = save;
+            AsyncUtils.join(save);
+        }
+        return setCurrentTask(task);
+    }
+
+    private Task setCurrentTask(Task task) {
         if (taskId == null) {
             taskId = task.getId();
             contextId = task.getContextId();
@@ -0,0 +1,109 @@
+package io.a2a.server.tasks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.DataPart;
+import io.a2a.spec.FileContent;
+import io.a2a.spec.FilePart;
+import io.a2a.spec.FileWithBytes;
+import io.a2a.spec.FileWithUri;
+import io.a2a.spec.Message;
+import io.a2a.spec.Part;
+import io.a2a.spec.Task;
+import io.a2a.spec.TextPart;
+
+/**
+ * Estimates the memory taken by a task, from the sizes of its strings and the number of its objects,
+ * without serializing it.
+ */
+final class TaskSizeEstimator {
+
+    // A rough size of an object with its header and a few fields, or of an entry of a collection
+    private static final int OBJECT_BYTES = 32;
+
+    private TaskSizeEstimator() {
+    }
+
+    static long estimate(Task task) {
+        long bytes = OBJECT_BYTES * 3 + string(task.getId()) + string(task.getContextId());
+        Message statusMessage = task.getStatus().message();
+        if (statusMessage != null) {
+            bytes += message(statusMessage);
+        }
+        if (task.getHistory() != null) {
+            for (Message message : task.getHistory()) {
+                bytes += OBJECT_BYTES + message(message);
+            }
+        }
+        if (task.getArtifacts() != null) {
+            for (Artifact artifact : task.getArtifacts()) {
+                bytes += OBJECT_BYTES * 2 + string(artifact.artifactId()) + string(artifact.name())
+                        + string(artifact.description()) + parts(artifact.parts()) + value(artifact.metadata());
+            }
+        }
+        return bytes + value(task.getMetadata());
+    }
+
+    private static long message(Message message) {
+        return OBJECT_BYTES * 2 + string(message.getMessageId()) + string(message.getContextId())
+                + string(message.getTaskId()) + parts(message.getParts()) + value(message.getMetadata());
+    }
+
+    private static long parts(List<Part<?>> parts) {
+        if (parts == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Part<?> part : parts) {
+            bytes += OBJECT_BYTES * 2 + value(part.getMetadata());
+            if (part instanceof TextPart textPart) {
+                bytes += string(textPart.getText());
+            } else if (part instanceof FilePart filePart) {
+                bytes += file(filePart.getFile());
+            } else if (part instanceof DataPart dataPart) {
+                bytes += value(dataPart.getData());
+            }
+        }
+        return bytes;
+    }
+
+    private static long file(FileContent file) {
+        if (file instanceof FileWithBytes withBytes) {
+            // Content streamed from a source is not held
+            long content = withBytes.isStreamed() ? 0 : string(withBytes.bytes());
+            return OBJECT_BYTES + string(withBytes.name()) + string(withBytes.mimeType()) + content;
+        } else if (file instanceof FileWithUri withUri) {
+            return OBJECT_BYTES + string(withUri.name()) + string(withUri.mimeType()) + string(withUri.uri());
+        }
+        return OBJECT_BYTES;
+    }
+
+    private static long value(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String string) {
+            return string(string);
+        } else if (value instanceof Map<?, ?> map) {
+            long bytes = OBJECT_BYTES;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += OBJECT_BYTES + value(entry.getKey()) + value(entry.getValue());
+            }
+            return bytes;
+        } else if (value instanceof Collection<?> collection) {
+            long bytes = OBJECT_BYTES;
+            for (Object element : collection) {
+                bytes += 8 + value(element);
+            }
+            return bytes;
+        }
+        return OBJECT_BYTES / 2;
+    }
+
+    private static long string(String string) {
+        // Compact strings take a byte per Latin-1 character
+        return string == null ? 0 : OBJECT_BYTES + string.length();
+    }
+}
@@ -1,11 +1,83 @@
 package io.a2a.server.tasks;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Message;
 import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
 
 public interface TaskStore {
     void save(Task task);
 
+    /**
+     * Saves the tasks, which have distinct ids. Stores able to write several tasks at once should
+     * override this, since callers batching their saves use it.
+     */
+    default void saveAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            save(task);
+        }
+    }
+
     Task get(String taskId);
 
+    /**
+     * Returns the task with only the last {@code historyLength} messages of its history, or {@code null} if
+     * there is none with the id. Stores keeping the history of a task apart from it should override this, so
+     * that reading a task with a long history reads only the messages returned.
+     */
+    default Task get(String taskId, int historyLength) {
+        return withHistoryLength(get(taskId), historyLength);
+    }
+
+    /**
+     * Returns the tasks found by their ids, in the order of the ids. Stores able to read several tasks at
+     * once should override this, so that callers needing several tasks do not read them one at a time.
+     */
+    default Map<String, Task> getAll(Collection<String> taskIds) {
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            Task task = get(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
     void delete(String taskId);
+
+    /**
+     * Lists a page of the tasks with the context id and in the state, either of which may be {@code null} to
+     * list the tasks of any context or in any state. The tasks are listed in an order fixed by the store,
+     * resuming after the cursor returned with the previous page. Stores able to list tasks should do so
+     * using indexes, at a cost proportional to the size of the page rather than the number of tasks.
+     *
+     * @throws IllegalArgumentException if the cursor was not returned by this store
+     * @throws UnsupportedOperationException if the store does not index its tasks
+     */
+    default ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not list tasks");
+    }
+
+    /**
+     * Returns the task with only the last {@code historyLength} messages of its history, or the task itself if
+     * its history is no longer than that.
+     */
+    static Task withHistoryLength(Task task, int historyLength) {
+        if (historyLength < 0) {
+            throw new IllegalArgumentException("History length must not be negative");
+        }
+        if (task == null || task.getHistory() == null || task.getHistory().size() <= historyLength) {
+            return task;
+        }
+        List<Message> history = task.getHistory();
+        return new Task.Builder(task)
+                .history(List.copyOf(history.subList(history.size() - historyLength, history.size())))
+                .build();
+    }
 }
@@ -0,0 +1,21 @@
+package io.a2a.server.tasks;
+
+/**
+ * Thrown by a {@link TaskStore} which failed to read or write a task in its underlying storage.
+ */
+public class TaskStoreException extends RuntimeException {
+    public TaskStoreException() {
+    }
+
+    public TaskStoreException(String message) {
+        super(message);
+    }
+
+    public TaskStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TaskStoreException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,22 @@
+package io.a2a.server.tasks;
+
+/**
+ * Thrown by a {@link VersionedTaskStore} asked to save a task on top of a version which is not the stored one,
+ * because the task was saved by another writer in the meantime.
+ */
+public class TaskVersionConflictException extends RuntimeException {
+    public TaskVersionConflictException() {
+    }
+
+    public TaskVersionConflictException(String message) {
+        super(message);
+    }
+
+    public TaskVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TaskVersionConflictException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,359 @@
+package io.a2a.server.tasks;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.util.Assert;
+
+/**
+ * A {@link TaskStore} which caches the tasks most recently used in memory, in front of a slower store it
+ * decorates, such as a durable one.
+ * <p>
+ * A task is typically read several times while a request is handled, by the request handler, the
+ * {@link TaskManager} and the request context builder, all of which are served from the cache. Saves
+ * update the cache, and are written to the decorated store either before they return or in batches, as
+ * configured by {@link TieredTaskStoreOptions}. Tasks found not to exist are cached too, for a short
+ * while, so that looking up a new task does not reach the decorated store repeatedly.
+ * <p>
+ * Once the cache is full, a task which was not read since it was last considered is evicted, in the
+ * order the tasks were cached. The cache assumes that the tasks it holds are only saved through it.
+ * <p>
+ * A task is written to the decorated store and cached while its cache entry is locked, so that concurrent
+ * saves of a task leave the cache holding the one written last. Use {@link #of(TaskStore, TieredTaskStoreOptions)}
+ * for the store to be a {@link VersionedTaskStore} as well when the decorated store is one.
+ */
+public class TieredTaskStore implements TaskStore, AutoCloseable {
+
+    // The version of a cached task which was not read or saved along with its version
+    private static final long UNKNOWN_VERSION = -1;
+
+    private final TaskStore delegate;
+    private final WriteBehindTaskStore writeBehind;
+    private final TieredTaskStoreOptions options;
+    private final LongSupplier nanoTime;
+    private final long negativeTtlNanos;
+    private final TieredTaskStoreMetrics metrics = new TieredTaskStoreMetrics();
+    // Entries are replaced rather than removed, except when evicted, so that each cached id is queued once
+    private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    // The ids of the cached tasks, in the order they were cached or last given a second chance
+    private final ConcurrentLinkedQueue<String> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    public TieredTaskStore(TaskStore delegate) {
+        this(delegate, TieredTaskStoreOptions.DEFAULT);
+    }
+
+    public TieredTaskStore(TaskStore delegate, TieredTaskStoreOptions options) {
+        this(delegate, options, System::nanoTime);
+    }
+
+    /**
+     * Returns a tiered store in front of the decorated store, which is a {@link VersionedTaskStore} as well if
+     * the decorated store is one and is written through.
+     */
+    public static TieredTaskStore of(TaskStore delegate, TieredTaskStoreOptions options) {
+        return of(delegate, options, System::nanoTime);
+    }
+
+    static TieredTaskStore of(TaskStore delegate, TieredTaskStoreOptions options, LongSupplier nanoTime) {
+        Assert.checkNotNullParam("options", options);
+        if (delegate instanceof VersionedTaskStore versioned
+                && options.getWriteMode() == TieredTaskStoreOptions.WriteMode.WRITE_THROUGH) {
+            return new Versioned(versioned, options, nanoTime);
+        }
+        return new TieredTaskStore(delegate, options, nanoTime);
+    }
+
+    TieredTaskStore(TaskStore delegate, TieredTaskStoreOptions options, LongSupplier nanoTime) {
+        Assert.checkNotNullParam("delegate", delegate);
+        Assert.checkNotNullParam("options", options);
+        this.writeBehind = options.getWriteMode() == TieredTaskStoreOptions.WriteMode.WRITE_BEHIND
+                ? new WriteBehindTaskStore(delegate, options.getWriteBehindOptions())
+                : null;
+        this.delegate = writeBehind == null ? delegate : writeBehind;
+        this.options = options;
+        this.nanoTime = nanoTime;
+        this.negativeTtlNanos = options.getNegativeCacheTtl().toNanos();
+    }
+
+    @Override
+    public void save(Task task) {
+        write(task.getId(), () -> {
+            delegate.save(task);
+            return new CacheEntry(task, 0, UNKNOWN_VERSION);
+        });
+    }
+
+    /**
+     * Writes the tasks to the decorated store at once, then has them read from it again, since the batch is
+     * not ordered with the concurrent saves of its tasks.
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        delegate.saveAll(tasks);
+        long now = nanoTime.getAsLong();
+        for (Task task : tasks) {
+            // An expired miss, which a read started before the batch was written cannot replace
+            cache(task.getId(), new CacheEntry(null, now, UNKNOWN_VERSION));
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        CacheEntry entry = cache.get(taskId);
+        if (entry != null) {
+            if (entry.task != null) {
+                entry.referenced = true;
+                metrics.recordHit();
+                return entry.task;
+            }
+            if (nanoTime.getAsLong() - entry.expiresAt < 0) {
+                metrics.recordNegativeHit();
+                return null;
+            }
+        }
+        long start = nanoTime.getAsLong();
+        Task task = delegate.get(taskId);
+        long end = nanoTime.getAsLong();
+        metrics.recordMiss(end - start);
+        cacheLoaded(taskId, entry, task, UNKNOWN_VERSION, end);
+        return task;
+    }
+
+    /**
+     * Serves the task from the cache if it is cached, and otherwise reads only the messages of its history
+     * returned from the decorated store, without caching the task, which is incomplete.
+     */
+    @Override
+    public Task get(String taskId, int historyLength) {
+        CacheEntry entry = cache.get(taskId);
+        if (entry != null) {
+            if (entry.task != null) {
+                entry.referenced = true;
+                metrics.recordHit();
+                return TaskStore.withHistoryLength(entry.task, historyLength);
+            }
+            if (nanoTime.getAsLong() - entry.expiresAt < 0) {
+                metrics.recordNegativeHit();
+                return null;
+            }
+        }
+        long start = nanoTime.getAsLong();
+        Task task = delegate.get(taskId, historyLength);
+        metrics.recordMiss(nanoTime.getAsLong() - start);
+        return task;
+    }
+
+    /**
+     * Serves the tasks cached from the cache, and reads the others from the decorated store at once.
+     */
+    @Override
+    public Map<String, Task> getAll(Collection<String> taskIds) {
+        Map<String, Task> hits = new LinkedHashMap<>();
+        // The entries found for the tasks to read, or null if there were none
+        Map<String, CacheEntry> misses = new LinkedHashMap<>();
+        long now = nanoTime.getAsLong();
+        for (String taskId : taskIds) {
+            CacheEntry entry = cache.get(taskId);
+            if (entry != null && entry.task != null) {
+                entry.referenced = true;
+                metrics.recordHit();
+                hits.put(taskId, entry.task);
+            } else if (entry != null && now - entry.expiresAt < 0) {
+                metrics.recordNegativeHit();
+            } else {
+                misses.put(taskId, entry);
+            }
+        }
+        if (misses.isEmpty()) {
+            return hits;
+        }
+        long start = nanoTime.getAsLong();
+        Map<String, Task> loaded = delegate.getAll(misses.keySet());
+        long end = nanoTime.getAsLong();
+        metrics.recordMisses(misses.size(), end - start);
+        for (Map.Entry<String, CacheEntry> miss : misses.entrySet()) {
+            cacheLoaded(miss.getKey(), miss.getValue(), loaded.get(miss.getKey()), UNKNOWN_VERSION, end);
+        }
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            Task task = hits.get(taskId);
+            if (task == null) {
+                task = loaded.get(taskId);
+            }
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        write(taskId, () -> {
+            delegate.delete(taskId);
+            return new CacheEntry(null, nanoTime.getAsLong() + negativeTtlNanos, UNKNOWN_VERSION);
+        });
+    }
+
+    /**
+     * Lists the tasks from the decorated store, whose indexes the cache does not hold.
+     */
+    @Override
+    public ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        return delegate.list(contextId, state, cursor, pageSize);
+    }
+
+    /**
+     * Writes the saves not written to the decorated store yet, in {@link TieredTaskStoreOptions.WriteMode#WRITE_BEHIND}
+     * mode.
+     */
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    public TieredTaskStoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the saves not written to the decorated store yet, and stops writing in the background.
+     */
+    @Override
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    // Caches the task read from the decorated store, or that it does not exist if it is null
+    private void cacheLoaded(String taskId, CacheEntry entry, Task task, long version, long loadedAt) {
+        if (task == null && negativeTtlNanos == 0) {
+            return;
+        }
+        CacheEntry loaded = new CacheEntry(task, loadedAt + negativeTtlNanos, version);
+        // Unless saved or deleted meanwhile, which the task read may predate
+        if (entry == null) {
+            if (cache.putIfAbsent(taskId, loaded) == null) {
+                queue(taskId);
+            }
+        } else {
+            cache.replace(taskId, entry, loaded);
+        }
+    }
+
+    // Writes to the decorated store and caches the entry returned while the task's entry is locked, so that
+    // the writes of a task and the updates of its entry are made in the same order
+    private void write(String taskId, Supplier<CacheEntry> write) {
+        boolean[] added = new boolean[1];
+        cache.compute(taskId, (id, previous) -> {
+            added[0] = previous == null;
+            return write.get();
+        });
+        if (added[0]) {
+            queue(taskId);
+        }
+    }
+
+    private void cache(String taskId, CacheEntry entry) {
+        if (cache.put(taskId, entry) == null) {
+            queue(taskId);
+        }
+    }
+
+    private void queue(String taskId) {
+        evictionQueue.offer(taskId);
+        while (cache.size() > options.getMaxCachedTasks()) {
+            String candidate = evictionQueue.poll();
+            if (candidate == null) {
+                return;
+            }
+            CacheEntry entry = cache.get(candidate);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced) {
+                // Read since it was last considered, so given a second chance
+                entry.referenced = false;
+                evictionQueue.offer(candidate);
+            } else if (cache.remove(candidate, entry)) {
+                metrics.recordEviction();
+            } else {
+                // Replaced meanwhile, so still cached
+                evictionQueue.offer(candidate);
+            }
+        }
+    }
+
+    // A cached task, or a task found not to exist if the task is null
+    private static final class CacheEntry {
+        private final Task task;
+        private final long expiresAt;
+        private final long version;
+        private volatile boolean referenced;
+
+        private CacheEntry(Task task, long expiresAt, long version) {
+            this.task = task;
+            this.expiresAt = expiresAt;
+            this.version = version;
+        }
+    }
+
+    // Forwards the saves conditional on the version of a task to the decorated store, caching the tasks read
+    // along with their versions
+    private static final class Versioned extends TieredTaskStore implements VersionedTaskStore {
+        private final VersionedTaskStore versionedDelegate;
+
+        private Versioned(VersionedTaskStore delegate, TieredTaskStoreOptions options, LongSupplier nanoTime) {
+            super(delegate, options, nanoTime);
+            this.versionedDelegate = delegate;
+        }
+
+        @Override
+        public VersionedTask getVersioned(String taskId) {
+            // The private members of the cache are reached through the enclosing class
+            TieredTaskStore store = this;
+            CacheEntry entry = store.cache.get(taskId);
+            if (entry != null) {
+                if (entry.task != null && entry.version != UNKNOWN_VERSION) {
+                    entry.referenced = true;
+                    store.metrics.recordHit();
+                    return new VersionedTask(entry.task, entry.version);
+                }
+                if (entry.task == null && store.nanoTime.getAsLong() - entry.expiresAt < 0) {
+                    store.metrics.recordNegativeHit();
+                    return null;
+                }
+            }
+            long start = store.nanoTime.getAsLong();
+            VersionedTask task = versionedDelegate.getVersioned(taskId);
+            long end = store.nanoTime.getAsLong();
+            store.metrics.recordMiss(end - start);
+            store.cacheLoaded(taskId, entry, task == null ? null : task.task(),
+                    task == null ? UNKNOWN_VERSION : task.version(), end);
+            return task;
+        }
+
+        @Override
+        public long save(Task task, long expectedVersion) {
+            TieredTaskStore store = this;
+            long[] version = new long[1];
+            store.write(task.getId(), () -> {
+                version[0] = versionedDelegate.save(task, expectedVersion);
+                return new CacheEntry(task, 0, version[0]);
+            });
+            return version[0];
+        }
+    }
+}
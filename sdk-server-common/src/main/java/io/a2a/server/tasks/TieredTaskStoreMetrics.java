@@ -0,0 +1,86 @@
+package io.a2a.server.tasks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the reads a {@link TieredTaskStore} served from its cache, and those it read from the store it
+ * decorates.
+ */
+public class TieredTaskStoreMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    void recordMiss(long nanos) {
+        misses.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    // A read of several tasks at once from the decorated store
+    void recordMisses(int count, long nanos) {
+        misses.add(count);
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * The number of reads of a task served from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * The number of reads of a task known not to exist, served from the cache.
+     */
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    /**
+     * The number of reads of a task from the decorated store.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The number of tasks evicted from the cache to bound its size.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long served = hits.sum() + negativeHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    public long getTotalLoadTime(TimeUnit unit) {
+        return unit.convert(loadNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxLoadTime(TimeUnit unit) {
+        return unit.convert(maxLoadNanos.get(), TimeUnit.NANOSECONDS);
+    }
+}
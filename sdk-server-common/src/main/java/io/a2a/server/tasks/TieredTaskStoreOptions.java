@@ -0,0 +1,107 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+
+import io.a2a.util.Assert;
+
+/**
+ * Configures the cache of a {@link TieredTaskStore} and how it writes to the store it decorates.
+ * <p>
+ * Up to {@link #getMaxCachedTasks()} tasks are cached, along with the ids of tasks found not to exist,
+ * which are cached for {@link #getNegativeCacheTtl()}. Saves are written to the decorated store as
+ * configured by {@link #getWriteMode()}.
+ */
+public final class TieredTaskStoreOptions {
+
+    public enum WriteMode {
+        /**
+         * Saves are written to the decorated store before they return.
+         */
+        WRITE_THROUGH,
+        /**
+         * Saves are written to the decorated store in batches, as configured by
+         * {@link TieredTaskStoreOptions#getWriteBehindOptions()}.
+         */
+        WRITE_BEHIND
+    }
+
+    public static final int DEFAULT_MAX_CACHED_TASKS = 10_000;
+    public static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofSeconds(1);
+
+    public static final TieredTaskStoreOptions DEFAULT = new Builder().build();
+
+    private final int maxCachedTasks;
+    private final Duration negativeCacheTtl;
+    private final WriteMode writeMode;
+    private final WriteBehindOptions writeBehindOptions;
+
+    private TieredTaskStoreOptions(int maxCachedTasks, Duration negativeCacheTtl, WriteMode writeMode,
+                                   WriteBehindOptions writeBehindOptions) {
+        Assert.checkNotNullParam("negativeCacheTtl", negativeCacheTtl);
+        Assert.checkNotNullParam("writeMode", writeMode);
+        Assert.checkNotNullParam("writeBehindOptions", writeBehindOptions);
+        if (maxCachedTasks <= 0) {
+            throw new IllegalArgumentException("Max cached tasks must be positive");
+        }
+        if (negativeCacheTtl.isNegative()) {
+            throw new IllegalArgumentException("Negative cache TTL must not be negative");
+        }
+        this.maxCachedTasks = maxCachedTasks;
+        this.negativeCacheTtl = negativeCacheTtl;
+        this.writeMode = writeMode;
+        this.writeBehindOptions = writeBehindOptions;
+    }
+
+    /**
+     * The number of tasks, and ids of tasks found not to exist, cached.
+     */
+    public int getMaxCachedTasks() {
+        return maxCachedTasks;
+    }
+
+    /**
+     * How long a task found not to exist is assumed not to, or zero not to cache such tasks.
+     */
+    public Duration getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    public WriteBehindOptions getWriteBehindOptions() {
+        return writeBehindOptions;
+    }
+
+    public static class Builder {
+        private int maxCachedTasks = DEFAULT_MAX_CACHED_TASKS;
+        private Duration negativeCacheTtl = DEFAULT_NEGATIVE_CACHE_TTL;
+        private WriteMode writeMode = WriteMode.WRITE_THROUGH;
+        private WriteBehindOptions writeBehindOptions = WriteBehindOptions.DEFAULT;
+
+        public Builder maxCachedTasks(int maxCachedTasks) {
+            this.maxCachedTasks = maxCachedTasks;
+            return this;
+        }
+
+        public Builder negativeCacheTtl(Duration negativeCacheTtl) {
+            this.negativeCacheTtl = negativeCacheTtl;
+            return this;
+        }
+
+        public Builder writeMode(WriteMode writeMode) {
+            this.writeMode = writeMode;
+            return this;
+        }
+
+        public Builder writeBehindOptions(WriteBehindOptions writeBehindOptions) {
+            this.writeBehindOptions = writeBehindOptions;
+            return this;
+        }
+
+        public TieredTaskStoreOptions build() {
+            return new TieredTaskStoreOptions(maxCachedTasks, negativeCacheTtl, writeMode, writeBehindOptions);
+        }
+    }
+}
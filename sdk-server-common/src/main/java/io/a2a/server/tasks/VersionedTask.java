@@ -0,0 +1,9 @@
+package io.a2a.server.tasks;
+
+import io.a2a.spec.Task;
+
+/**
+ * A task read from a {@link VersionedTaskStore}, along with the version it was stored as.
+ */
+public record VersionedTask(Task task, long version) {
+}
@@ -0,0 +1,35 @@
+package io.a2a.server.tasks;
+
+import io.a2a.spec.Task;
+
+/**
+ * A {@link TaskStore} numbering the versions of each task it stores, so that a task can be saved only if it
+ * was not saved by anyone else since it was read.
+ * <p>
+ * This lets several writers update a task concurrently without locking: each reads the task with its
+ * version, applies its update, and saves the result with {@link #save(Task, long)}. A writer whose save
+ * conflicts reads the task again and applies its update to that version instead, as {@link TaskManager}
+ * does. Saves through {@link #save(Task)} overwrite the task whatever its version, and delete it
+ * discards its versions.
+ */
+public interface VersionedTaskStore extends TaskStore {
+
+    /**
+     * The version of a task which is not stored.
+     */
+    long NO_VERSION = 0;
+
+    /**
+     * Returns the task along with its version, or {@code null} if there is none with the id.
+     */
+    VersionedTask getVersioned(String taskId);
+
+    /**
+     * Saves the task if its stored version is the expected one, which is {@link #NO_VERSION} for a task
+     * which should not be stored yet.
+     *
+     * @return the version the task was stored as
+     * @throws TaskVersionConflictException if the stored version is not the expected one
+     */
+    long save(Task task, long expectedVersion);
+}
@@ -0,0 +1,80 @@
+package io.a2a.server.tasks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the saves a {@link WriteBehindTaskStore} received and the batches it wrote them in.
+ */
+public class WriteBehindMetrics {
+
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder coalescedSaves = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedTasks = new LongAdder();
+    private final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+
+    void recordSave(boolean coalesced) {
+        saves.increment();
+        if (coalesced) {
+            coalescedSaves.increment();
+        }
+    }
+
+    void recordFlush(int batchSize, long nanos) {
+        flushes.increment();
+        flushedTasks.add(batchSize);
+        maxBatchSize.accumulate(batchSize);
+        flushNanos.add(nanos);
+        maxFlushNanos.accumulate(nanos);
+    }
+
+    /**
+     * The number of saves received.
+     */
+    public long getSaveCount() {
+        return saves.sum();
+    }
+
+    /**
+     * The number of saves which replaced a buffered version of the same task, and so were never
+     * written themselves.
+     */
+    public long getCoalescedSaveCount() {
+        return coalescedSaves.sum();
+    }
+
+    /**
+     * The number of batches written.
+     */
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    /**
+     * The number of tasks written, over all batches.
+     */
+    public long getFlushedTaskCount() {
+        return flushedTasks.sum();
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    public double getAverageBatchSize() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : (double) flushedTasks.sum() / count;
+    }
+
+    public long getTotalFlushTime(TimeUnit unit) {
+        return unit.convert(flushNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxFlushTime(TimeUnit unit) {
+        return unit.convert(maxFlushNanos.get(), TimeUnit.NANOSECONDS);
+    }
+}
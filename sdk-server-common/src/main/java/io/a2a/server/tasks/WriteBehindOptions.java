@@ -0,0 +1,67 @@
+package io.a2a.server.tasks;
+
+import java.time.Duration;
+
+import io.a2a.util.Assert;
+
+/**
+ * Configures when a {@link WriteBehindTaskStore} writes the tasks it buffers to the store it decorates.
+ * <p>
+ * Buffered tasks are written once {@link #getMaxBatchSize()} tasks are waiting, which also bounds the
+ * number of tasks buffered, or once the oldest of them has waited for {@link #getMaxDelay()}.
+ */
+public final class WriteBehindOptions {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(50);
+
+    public static final WriteBehindOptions DEFAULT = new Builder().build();
+
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+
+    private WriteBehindOptions(int maxBatchSize, Duration maxDelay) {
+        Assert.checkNotNullParam("maxDelay", maxDelay);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Max delay must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * The number of distinct tasks buffered which triggers writing them.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * How long a task may stay buffered before it is written.
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public static class Builder {
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public WriteBehindOptions build() {
+            return new WriteBehindOptions(maxBatchSize, maxDelay);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package io.a2a.server.tasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TaskStore} which buffers the tasks saved, and writes them to the store it decorates in
+ * batches, so that a durable store is not written to for every event of a task.
+ * <p>
+ * Only the latest version of each task is buffered, so repeated saves of a task between two batches
+ * result in a single write. The buffered tasks are written once as many as configured by
+ * {@link WriteBehindOptions} are waiting or once the configured delay has passed, and right away when a
+ * task reaches a final state. Reading a task returns its buffered version, or the version being
+ * written, if there is one, and otherwise reads it from the decorated store, so that reads always see the
+ * latest saves without writing the other tasks. Listing tasks writes the buffered tasks first, since the
+ * decorated store selects and orders them.
+ * <p>
+ * Buffered tasks are lost if the process dies before they are written, so {@link #close()} must be
+ * called on shutdown.
+ */
+public class WriteBehindTaskStore implements TaskStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindTaskStore.class);
+
+    private final TaskStore delegate;
+    private final WriteBehindOptions options;
+    private final WriteBehindMetrics metrics = new WriteBehindMetrics();
+    private final ConcurrentMap<String, Task> pending = new ConcurrentHashMap<>();
+    // The tasks of the batch being written, which are added before they are removed from the pending tasks
+    // and removed once written, so that a task read is always found in one of them or in the delegate
+    private final ConcurrentMap<String, Task> writing = new ConcurrentHashMap<>();
+    // Serializes the writes to the delegate, so that versions of a task are written in order
+    private final Object flushLock = new Object();
+    private volatile ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    public WriteBehindTaskStore(TaskStore delegate) {
+        this(delegate, WriteBehindOptions.DEFAULT);
+    }
+
+    public WriteBehindTaskStore(TaskStore delegate, WriteBehindOptions options) {
+        Assert.checkNotNullParam("delegate", delegate);
+        Assert.checkNotNullParam("options", options);
+        this.delegate = delegate;
+        this.options = options;
+    }
+
+    @Override
+    public void save(Task task) {
+        if (closed) {
+            throw new IllegalStateException("The task store is closed");
+        }
+        Task previous = pending.put(task.getId(), task);
+        metrics.recordSave(previous != null);
+        if (task.getStatus().state().isFinal() || pending.size() >= options.getMaxBatchSize()) {
+            flush();
+        } else {
+            startFlusher();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            save(task);
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        Task buffered = buffered(taskId);
+        return buffered != null ? buffered : delegate.get(taskId);
+    }
+
+    @Override
+    public Task get(String taskId, int historyLength) {
+        Task buffered = buffered(taskId);
+        return buffered != null
+                ? TaskStore.withHistoryLength(buffered, historyLength)
+                : delegate.get(taskId, historyLength);
+    }
+
+    @Override
+    public Map<String, Task> getAll(Collection<String> taskIds) {
+        Map<String, Task> buffered = new HashMap<>();
+        List<String> stored = new ArrayList<>();
+        for (String taskId : taskIds) {
+            Task task = buffered(taskId);
+            if (task != null) {
+                buffered.put(taskId, task);
+            } else {
+                stored.add(taskId);
+            }
+        }
+        if (buffered.isEmpty()) {
+            return delegate.getAll(taskIds);
+        }
+        Map<String, Task> found = stored.isEmpty() ? Map.of() : delegate.getAll(stored);
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            Task task = buffered.containsKey(taskId) ? buffered.get(taskId) : found.get(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        synchronized (flushLock) {
+            pending.remove(taskId);
+            delegate.delete(taskId);
+        }
+    }
+
+    @Override
+    public ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        flush();
+        return delegate.list(contextId, state, cursor, pageSize);
+    }
+
+    /**
+     * Writes the buffered tasks to the decorated store.
+     */
+    public void flush() {
+        // Even with nothing buffered, a flush in progress may still be writing, which reads must wait for
+        synchronized (flushLock) {
+            List<Task> batch = new ArrayList<>(Math.min(pending.size(), options.getMaxBatchSize()));
+            for (Map.Entry<String, Task> entry : pending.entrySet()) {
+                // Removed one by one, so that a version saved concurrently is either in this batch or the next
+                Task task = entry.getValue();
+                writing.put(entry.getKey(), task);
+                if (pending.remove(entry.getKey(), task)) {
+                    batch.add(task);
+                } else {
+                    writing.remove(entry.getKey(), task);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                delegate.saveAll(batch);
+            } catch (RuntimeException e) {
+                // Keep the tasks for the next attempt, unless they were saved again in the meantime
+                for (Task task : batch) {
+                    pending.putIfAbsent(task.getId(), task);
+                }
+                throw e;
+            } finally {
+                for (Task task : batch) {
+                    writing.remove(task.getId(), task);
+                }
+            }
+            metrics.recordFlush(batch.size(), System.nanoTime() - start);
+            LOGGER.debug("Wrote {} tasks", batch.size());
+        }
+    }
+
+    // The version of the task not yet written to the delegate, if any, looked up in the order it moves in
+    private Task buffered(String taskId) {
+        Task task = pending.get(taskId);
+        return task != null ? task : writing.get(taskId);
+    }
+
+    public WriteBehindMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the buffered tasks and stops writing in the background. Saving tasks afterwards fails.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledExecutorService current = flusher;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        flush();
+    }
+
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        synchronized (this) {
+            if (flusher != null || closed) {
+                return;
+            }
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "a2a-task-store-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long delay = options.getMaxDelay().toNanos();
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to write buffered tasks", e);
+                }
+            }, delay, delay, TimeUnit.NANOSECONDS);
+            flusher = executor;
+        }
+    }
+}
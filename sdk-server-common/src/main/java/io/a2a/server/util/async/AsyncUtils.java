@@ -1,11 +1,16 @@
 package io.a2a.server.util.async;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.a2a.util.Assert;
 import mutiny.zero.BackpressureStrategy;
@@ -25,7 +30,7 @@ public class AsyncUtils {
     public static TubeConfiguration createTubeConfig(int bufferSize) {
         return new TubeConfiguration()
                 .withBackpressureStrategy(BackpressureStrategy.BUFFER)
-                .withBufferSize(256);
+                .withBufferSize(bufferSize);
     }
 
     public static <T> void consumer(
@@ -70,6 +75,19 @@ public class AsyncUtils {
                 });
     }
 
+    /**
+     * Like {@link #consumer(TubeConfiguration, Flow.Publisher, Function, Consumer)}, but the items are
+     * processed asynchronously: the next item is only requested once the stage returned for the previous
+     * one completes with {@code true}. The error consumer is passed the failure of a stage or of the source,
+     * or {@code null} once the source completes.
+     */
+    public static <T> void asyncConsumer(
+            Flow.Publisher<T> source,
+            Function<T, CompletionStage<Boolean>> nextFunction,
+            Consumer<Throwable> errorConsumer) {
+        source.subscribe(new AsyncProcessingSubscriber<>(nextFunction, item -> {}, errorConsumer));
+    }
+
     public static <T> Flow.Publisher<T> processor(
             TubeConfiguration config,
             Flow.Publisher<T> source,
@@ -80,10 +98,174 @@ public class AsyncUtils {
         });
     }
 
+    /**
+     * Like {@link #processor(TubeConfiguration, Flow.Publisher, BiFunction)}, but processes the items of
+     * the source in batches and emits them one by one.
+     */
+    public static <T> Flow.Publisher<T> batchProcessor(
+            TubeConfiguration config,
+            Flow.Publisher<List<T>> source,
+            BiFunction<Consumer<Throwable>, List<T>, Boolean> nextFunction) {
+        return ZeroPublisher.create(config, tube -> {
+            source.subscribe(new BatchProcessingSubscriber<>(tube, nextFunction));
+        });
+    }
+
+    /**
+     * Like {@link #batchProcessor(TubeConfiguration, Flow.Publisher, BiFunction)}, but the batches are
+     * processed asynchronously: the items of a batch are only emitted, and the next batch requested, once
+     * the stage returned for it completes with {@code true}. Should the stage fail, so does the publisher.
+     */
+    public static <T> Flow.Publisher<T> asyncBatchProcessor(
+            TubeConfiguration config,
+            Flow.Publisher<List<T>> source,
+            Function<List<T>, CompletionStage<Boolean>> nextFunction) {
+        return ZeroPublisher.create(config, tube -> {
+            source.subscribe(new AsyncProcessingSubscriber<List<T>>(
+                    nextFunction,
+                    batch -> {
+                        for (T item : batch) {
+                            tube.send(item);
+                        }
+                    },
+                    t -> {
+                        if (t == null) {
+                            tube.complete();
+                        } else {
+                            tube.fail(t);
+                        }
+                    }));
+        });
+    }
+
+    /**
+     * Completes the subscriber only once the stage supplied when the source completes does, or fails it if
+     * that stage fails, so that work the items started can be waited for before the subscriber is done.
+     */
+    public static <T> Flow.Publisher<T> beforeCompletion(Flow.Publisher<T> source,
+                                                         Supplier<? extends CompletionStage<?>> completion) {
+        Assert.checkNotNullParam("completion", completion);
+        return subscriber -> source.subscribe(new Flow.Subscriber<T>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(T item) {
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completion.get().whenComplete((v, t) -> {
+                    if (t == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(unwrap(t));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Emits the given items, followed by those of the source.
+     */
+    public static <T> Flow.Publisher<T> prepend(List<T> items, Flow.Publisher<T> source) {
+        if (items.isEmpty()) {
+            return source;
+        }
+        // The items are sent before any are requested, so make sure they fit in the buffer
+        return ZeroPublisher.create(createTubeConfig(DEFAULT_TUBE_BUFFER_SIZE + items.size()), tube -> {
+            items.forEach(tube::send);
+            source.subscribe(new ProcessingSubscriber<>(tube, (errorConsumer, item) -> true));
+        });
+    }
+
     public static <T, N> Flow.Publisher<N> convertingProcessor(Flow.Publisher<T> source, Function<T, N> converterFunction) {
         return new Transform<>(source, converterFunction);
     }
 
+    /**
+     * Waits for the stage to complete, and returns its result or throws the exception it failed with,
+     * rather than one wrapping it.
+     */
+    public static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    /**
+     * Runs the action once, as soon as the subscriber cancels its subscription or the source completes
+     * or fails, whichever comes first.
+     */
+    public static <T> Flow.Publisher<T> onTermination(Flow.Publisher<T> source, Runnable action) {
+        Assert.checkNotNullParam("action", action);
+        return subscriber -> {
+            AtomicBoolean terminated = new AtomicBoolean();
+            Runnable once = () -> {
+                if (terminated.compareAndSet(false, true)) {
+                    action.run();
+                }
+            };
+            source.subscribe(new Flow.Subscriber<T>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                            subscription.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            try {
+                                subscription.cancel();
+                            } finally {
+                                once.run();
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    once.run();
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    once.run();
+                    subscriber.onComplete();
+                }
+            });
+        };
+    }
 
     private static abstract class AbstractSubscriber<T> implements Flow.Subscriber<T> {
         private Flow.Subscription subscription;
@@ -179,6 +361,121 @@ public class AsyncUtils {
         }
     }
 
+    private static class BatchProcessingSubscriber<T> extends AbstractSubscriber<List<T>> {
+
+        public BatchProcessingSubscriber(Tube<T> tube, BiFunction<Consumer<Throwable>, List<T>, Boolean> nextFunction) {
+            super(
+                    nextFunction,
+                    batch -> {
+                        for (T item : batch) {
+                            tube.send(item);
+                        }
+                    },
+                    t -> {
+                        if (t == null) {
+                            tube.complete();
+                        } else {
+                            tube.fail(t);
+                        }
+                    }
+            );
+            Assert.checkNotNullParam("tube", tube);
+        }
+    }
+
+    // Requests the next item only once the stage returned for the previous one completed, and holds back the
+    // completion or failure of the source until then
+    private static class AsyncProcessingSubscriber<T> implements Flow.Subscriber<T> {
+        private final Function<T, CompletionStage<Boolean>> nextFunction;
+        private final Consumer<T> publishNextConsumer;
+        private final Consumer<Throwable> failureOrCompleteConsumer;
+        private Flow.Subscription subscription;
+        // Guarded by this
+        private boolean processing;
+        private boolean terminated;
+        private Runnable pendingTermination;
+
+        AsyncProcessingSubscriber(Function<T, CompletionStage<Boolean>> nextFunction, Consumer<T> publishNextConsumer,
+                                  Consumer<Throwable> failureOrCompleteConsumer) {
+            Assert.checkNotNullParam("nextFunction", nextFunction);
+            this.nextFunction = nextFunction;
+            this.publishNextConsumer = publishNextConsumer;
+            this.failureOrCompleteConsumer = failureOrCompleteConsumer;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(T item) {
+            synchronized (this) {
+                processing = true;
+            }
+            CompletionStage<Boolean> stage;
+            try {
+                stage = nextFunction.apply(item);
+            } catch (Throwable t) {
+                stage = CompletableFuture.failedFuture(t);
+            }
+            stage.whenComplete((continueProcessing, t) -> {
+                boolean proceed = t == null && Boolean.TRUE.equals(continueProcessing);
+                if (proceed) {
+                    publishNextConsumer.accept(item);
+                }
+                Runnable termination;
+                synchronized (this) {
+                    processing = false;
+                    termination = pendingTermination;
+                    pendingTermination = null;
+                    if (!proceed) {
+                        terminated = true;
+                    }
+                }
+                if (!proceed) {
+                    subscription.cancel();
+                    if (t != null) {
+                        failureOrCompleteConsumer.accept(unwrap(t));
+                    }
+                } else if (termination != null) {
+                    termination.run();
+                } else {
+                    subscription.request(1);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            terminate(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        private void terminate(Throwable throwable) {
+            Runnable termination = () -> {
+                subscription.cancel();
+                failureOrCompleteConsumer.accept(throwable);
+            };
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+                if (processing) {
+                    pendingTermination = termination;
+                    return;
+                }
+            }
+            termination.run();
+        }
+    }
+
     private static class ConvertingProcessingSubscriber<T, N> implements Flow.Subscriber<T> {
         private Flow.Subscription subscription;
         private Tube<N> tube;
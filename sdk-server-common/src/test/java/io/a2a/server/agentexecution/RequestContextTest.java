@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 
+import io.a2a.server.tasks.InMemoryTaskStore;
 import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.Message;
 import io.a2a.spec.MessageSendParams;
@@ -20,6 +21,7 @@ import org.mockito.MockedStatic;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 public class RequestContextTest {
 
@@ -127,6 +129,42 @@ public class RequestContextTest {
         assertEquals(anotherTask, context.getRelatedTasks().get(1));
     }
 
+    @Test
+    public void testSimpleBuilderReadsReferredTasksAtOnce() {
+        InMemoryTaskStore taskStore = new InMemoryTaskStore();
+        Task first = new Task.Builder().id("task-1").contextId("context-456").status(new TaskStatus(TaskState.COMPLETED)).build();
+        Task second = new Task.Builder(first).id("task-2").build();
+        taskStore.save(first);
+        taskStore.save(second);
+        var message = new Message.Builder().role(Message.Role.USER).parts(List.of(new TextPart("")))
+                .referenceTaskIds(List.of("task-2", "missing", "task-1")).build();
+        var params = new MessageSendParams.Builder().message(message).build();
+
+        RequestContext context = new SimpleRequestContextBuilder(taskStore, true).setParams(params).build();
+
+        assertEquals(List.of(second, first), context.getRelatedTasks());
+    }
+
+    @Test
+    public void testSimpleBuilderReadsReferredTasksWhileAgentStarts() {
+        InMemoryTaskStore taskStore = new InMemoryTaskStore();
+        Task referred = new Task.Builder().id("task-1").contextId("context-456").status(new TaskStatus(TaskState.COMPLETED)).build();
+        taskStore.save(referred);
+        var message = new Message.Builder().role(Message.Role.USER).parts(List.of(new TextPart("")))
+                .referenceTaskIds(List.of("task-1")).build();
+        var params = new MessageSendParams.Builder().message(message).build();
+        List<Runnable> reads = new ArrayList<>();
+        Executor executor = reads::add;
+
+        RequestContext context = new SimpleRequestContextBuilder(taskStore, true, executor).setParams(params).build();
+        assertEquals(1, reads.size());
+
+        reads.get(0).run();
+        Task attached = new Task.Builder(referred).id("task-2").build();
+        context.attachRelatedTask(attached);
+        assertEquals(List.of(referred, attached), context.getRelatedTasks());
+    }
+
     @Test
     public void testCheckOrGenerateTaskIdWithExistingTaskId() {
         String existingId = "existing-task-id";
@@ -4,13 +4,18 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import io.a2a.spec.A2AError;
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
@@ -87,7 +92,7 @@ public class EventConsumerTest {
     }
 
     @Test
-    public void testConsumeAllMultipleEvents() throws JsonProcessingException {
+    public void testConsumeAllMultipleEvents() throws Exception {
         List<Event> events = List.of(
                 Utils.unmarshalFrom(MINIMAL_TASK, Task.TYPE_REFERENCE),
                 new TaskArtifactUpdateEvent.Builder()
@@ -112,6 +117,7 @@ public class EventConsumerTest {
         Flow.Publisher<Event> publisher = eventConsumer.consumeAll();
         final List<Event> receivedEvents = new ArrayList<>();
         final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch completed = new CountDownLatch(1);
 
         publisher.subscribe(new Flow.Subscriber<>() {
             private Flow.Subscription subscription;
@@ -132,14 +138,18 @@ public class EventConsumerTest {
             @Override
             public void onError(Throwable throwable) {
                 error.set(throwable);
+                completed.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                completed.countDown();
             }
         });
 
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+
         assertNull(error.get());
         assertEquals(events.size(), receivedEvents.size());
         for (int i = 0; i < events.size(); i++) {
@@ -173,6 +183,7 @@ public class EventConsumerTest {
         Flow.Publisher<Event> publisher = eventConsumer.consumeAll();
         final List<Event> receivedEvents = new ArrayList<>();
         final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch completed = new CountDownLatch(1);
 
         publisher.subscribe(new Flow.Subscriber<>() {
             private Flow.Subscription subscription;
@@ -193,14 +204,18 @@ public class EventConsumerTest {
             @Override
             public void onError(Throwable throwable) {
                 error.set(throwable);
+                completed.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                completed.countDown();
             }
         });
 
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+
         assertNull(error.get());
         assertEquals(3, receivedEvents.size());
         for (int i = 0; i < 3; i++) {
@@ -222,6 +237,7 @@ public class EventConsumerTest {
         Flow.Publisher<Event> publisher = eventConsumer.consumeAll();
         final List<Event> receivedEvents = new ArrayList<>();
         final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch completed = new CountDownLatch(1);
 
         publisher.subscribe(new Flow.Subscriber<>() {
             private Flow.Subscription subscription;
@@ -242,20 +258,342 @@ public class EventConsumerTest {
             @Override
             public void onError(Throwable throwable) {
                 error.set(throwable);
+                completed.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                completed.countDown();
             }
         });
 
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+
         assertNull(error.get());
         // The stream is closed after the first Message
         assertEquals(1, receivedEvents.size());
         assertSame(message, receivedEvents.get(0));
     }
 
+    @Test
+    public void testConsumeAllPushesEventsEnqueuedAfterSubscribing() throws Exception {
+        final List<Event> receivedEvents = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        eventConsumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                receivedEvents.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        // Subscribing does not block waiting for events
+        assertEquals(0, receivedEvents.size());
+
+        Event working = new TaskStatusUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .isFinal(false)
+                .build();
+        Event done = new TaskStatusUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .isFinal(true)
+                .build();
+        Thread producer = new Thread(() -> {
+            eventQueue.enqueueEvent(working);
+            eventQueue.enqueueEvent(done);
+        });
+        producer.start();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(working, done), receivedEvents);
+    }
+
+    @Test
+    public void testConsumeAllFailsAsSoonAsAgentFails() throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch failed = new CountDownLatch(1);
+        eventConsumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Event item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+                failed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        RuntimeException agentError = new RuntimeException("Agent failed");
+        EnhancedRunnable agentRunnable = new EnhancedRunnable() {
+            @Override
+            public void run() {
+            }
+        };
+        agentRunnable.addDoneCallback(eventConsumer.createAgentRunnableDoneCallback());
+        agentRunnable.setError(agentError);
+        agentRunnable.invokeDoneCallbacks();
+
+        // No event was enqueued, so the failure is signalled without waiting for a poll timeout
+        assertTrue(failed.await(100, TimeUnit.MILLISECONDS));
+        assertSame(agentError, error.get());
+    }
+
+    @Test
+    public void testConsumeAllPushesEventsFromExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "drainer"));
+        try {
+            EventConsumer consumer = new EventConsumer(eventQueue, CoalescingOptions.DISABLED, executor);
+            final List<String> threads = new CopyOnWriteArrayList<>();
+            final CountDownLatch completed = new CountDownLatch(1);
+            consumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Event item) {
+                    threads.add(Thread.currentThread().getName());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+
+            // The thread enqueuing the events only signals the consumer, which drains the queue on the executor
+            eventQueue.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+            eventQueue.enqueueEvent(statusUpdate(TaskState.COMPLETED, true));
+
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("drainer", "drainer"), threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConsumeAllCoalescesQueuedBursts() throws Exception {
+        EventConsumer coalescing = new EventConsumer(eventQueue, CoalescingOptions.DEFAULT);
+        for (int i = 0; i < 3; i++) {
+            eventQueue.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        }
+        TaskStatusUpdateEvent lastWorking = statusUpdate(TaskState.WORKING, false);
+        eventQueue.enqueueEvent(lastWorking);
+        eventQueue.enqueueEvent(artifactUpdate("a", "one", false, null));
+        eventQueue.enqueueEvent(artifactUpdate("a", "two", true, null));
+        eventQueue.enqueueEvent(artifactUpdate("a", "three", true, true));
+        eventQueue.enqueueEvent(artifactUpdate("b", "other", true, null));
+        TaskStatusUpdateEvent done = statusUpdate(TaskState.COMPLETED, true);
+        eventQueue.enqueueEvent(done);
+
+        List<Event> receivedEvents = consumeAll(coalescing);
+
+        assertEquals(4, receivedEvents.size());
+        assertSame(lastWorking, receivedEvents.get(0));
+        TaskArtifactUpdateEvent merged = (TaskArtifactUpdateEvent) receivedEvents.get(1);
+        assertEquals(3, merged.getArtifact().parts().size());
+        assertEquals("one", ((TextPart) merged.getArtifact().parts().get(0)).getText());
+        assertEquals("three", ((TextPart) merged.getArtifact().parts().get(2)).getText());
+        assertEquals(false, merged.isAppend());
+        assertEquals(true, merged.isLastChunk());
+        assertEquals("b", ((TaskArtifactUpdateEvent) receivedEvents.get(2)).getArtifact().artifactId());
+        assertSame(done, receivedEvents.get(3));
+    }
+
+    @Test
+    public void testConsumeAllDoesNotCoalesceStatusWithMessage() throws Exception {
+        EventConsumer coalescing = new EventConsumer(eventQueue, CoalescingOptions.DEFAULT);
+        Message message = Utils.unmarshalFrom(MESSAGE_PAYLOAD, Message.TYPE_REFERENCE);
+        TaskStatusUpdateEvent withMessage = new TaskStatusUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING, message, null))
+                .build();
+        TaskStatusUpdateEvent working = statusUpdate(TaskState.WORKING, false);
+        TaskStatusUpdateEvent done = statusUpdate(TaskState.COMPLETED, true);
+        eventQueue.enqueueEvent(withMessage);
+        eventQueue.enqueueEvent(working);
+        eventQueue.enqueueEvent(done);
+
+        // The final event is passed on as is, even though it replaces the redundant update before it
+        assertEquals(List.of(withMessage, done), consumeAll(coalescing));
+    }
+
+    @Test
+    public void testConsumeAllFlushesHeldEventAfterMaxDelay() throws Exception {
+        EventConsumer coalescing = new EventConsumer(eventQueue, new CoalescingOptions.Builder()
+                .maxDelayMillis(50)
+                .build());
+        final List<Event> receivedEvents = new CopyOnWriteArrayList<>();
+        final CountDownLatch received = new CountDownLatch(1);
+        coalescing.consumeAll().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                receivedEvents.add(item);
+                received.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        eventQueue.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+        TaskStatusUpdateEvent latest = statusUpdate(TaskState.WORKING, false);
+        eventQueue.enqueueEvent(latest);
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(latest), receivedEvents);
+    }
+
+    @Test
+    public void testConsumeAllBatchesEmitsQueuedEventsTogether() throws Exception {
+        TaskStatusUpdateEvent working = statusUpdate(TaskState.WORKING, false);
+        TaskArtifactUpdateEvent artifact = artifactUpdate("a", "one", false, null);
+        TaskStatusUpdateEvent done = statusUpdate(TaskState.COMPLETED, true);
+        eventQueue.enqueueEvent(working);
+        eventQueue.enqueueEvent(artifact);
+        eventQueue.enqueueEvent(done);
+        // Not sent, since it follows the final event
+        eventQueue.enqueueEvent(statusUpdate(TaskState.WORKING, false));
+
+        final List<List<Event>> batches = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        eventConsumer.consumeAllBatches().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(List<Event> item) {
+                batches.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(working, artifact, done)), batches);
+    }
+
+    private static TaskStatusUpdateEvent statusUpdate(TaskState state, boolean isFinal) {
+        return new TaskStatusUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .isFinal(isFinal)
+                .build();
+    }
+
+    private static TaskArtifactUpdateEvent artifactUpdate(String artifactId, String text, boolean append, Boolean lastChunk) {
+        return new TaskArtifactUpdateEvent.Builder()
+                .taskId("task-123")
+                .contextId("session-xyz")
+                .artifact(new Artifact.Builder()
+                        .artifactId(artifactId)
+                        .parts(new TextPart(text))
+                        .build())
+                .append(append)
+                .lastChunk(lastChunk)
+                .build();
+    }
+
+    private static List<Event> consumeAll(EventConsumer consumer) throws InterruptedException {
+        final List<Event> receivedEvents = new ArrayList<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        consumer.consumeAll().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Event item) {
+                receivedEvents.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                subscription.cancel();
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+        return receivedEvents;
+    }
+
     private void enqueueAndConsumeOneEvent(Event event) throws Exception {
         eventQueue.enqueueEvent(event);
         Event result = eventConsumer.consumeOne();
@@ -0,0 +1,352 @@
+package io.a2a.server.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.a2a.spec.Event;
+import io.a2a.spec.InternalError;
+import io.a2a.spec.JSONRPCError;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+public class EventLogTest {
+
+    @Test
+    public void testCursorsReadIndependentlyAcrossSegments() {
+        EventLog log = new EventLog(4, new SubscriberOverflowMetrics());
+        EventLog.Cursor first = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        EventLog.Cursor second = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Event event = new JSONRPCError(i, "error", null);
+            events.add(event);
+            log.append(event);
+        }
+        assertEquals(10, log.appended());
+        assertEquals(10, first.lag());
+
+        for (Event event : events) {
+            assertSame(event, first.poll());
+        }
+        assertNull(first.poll());
+        assertTrue(first.isEmpty());
+
+        // The second cursor is unaffected by the first having read everything
+        assertEquals(10, second.lag());
+        for (Event event : events) {
+            assertSame(event, second.poll());
+        }
+        assertNull(second.poll());
+    }
+
+    @Test
+    public void testCursorOnlySeesEventsAppendedAfterOpening() {
+        EventLog log = new EventLog(2, new SubscriberOverflowMetrics());
+        Event early = new JSONRPCError(1, "early", null);
+        Event late = new JSONRPCError(2, "late", null);
+        log.append(early);
+        log.append(early);
+        EventLog.Cursor cursor = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        log.append(late);
+        assertSame(late, cursor.poll());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testClosingCursorDetachesIt() {
+        EventLog log = new EventLog(4, new SubscriberOverflowMetrics());
+        EventLog.Cursor cursor = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        assertTrue(log.hasCursors());
+        log.append(new JSONRPCError(1, "error", null));
+        cursor.close();
+        assertFalse(log.hasCursors());
+        assertNull(cursor.poll());
+        assertEquals(0, cursor.lag());
+    }
+
+    @Test
+    public void testSegmentsReclaimedOnceCursorsMovePast() throws Exception {
+        EventLog log = new EventLog(2, new SubscriberOverflowMetrics());
+        EventLog.Cursor cursor = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        Event event = new JSONRPCError(1, "error", null);
+        log.append(event);
+        WeakReference<Event> reference = new WeakReference<>(event);
+        event = null;
+        for (int i = 0; i < 4; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+        }
+        for (int i = 0; i < 5; i++) {
+            cursor.poll();
+        }
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testPollWaitsForAppend() throws Exception {
+        EventLog log = new EventLog(4, new SubscriberOverflowMetrics());
+        EventLog.Cursor cursor = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        Event event = new JSONRPCError(1, "error", null);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.append(event);
+        });
+        producer.start();
+        assertSame(event, cursor.poll(5, TimeUnit.SECONDS));
+        assertNull(cursor.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCloseWakesUpWaitingPoll() throws Exception {
+        EventLog log = new EventLog(4, new SubscriberOverflowMetrics());
+        EventLog.Cursor cursor = log.openCursor(EventQueue.DEFAULT_TAP_OPTIONS);
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cursor.close();
+        });
+        closer.start();
+        long start = System.nanoTime();
+        assertNull(cursor.poll(30, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testDropOldestKeepsMostRecentEvents() {
+        SubscriberOverflowMetrics metrics = new SubscriberOverflowMetrics();
+        EventLog log = new EventLog(4, metrics);
+        EventLog.Cursor cursor = log.openCursor(options(OverflowPolicy.DROP_OLDEST, 6, null));
+        EventLog.Cursor fast = log.openCursor(options(OverflowPolicy.DROP_OLDEST, 6, null));
+
+        for (int i = 0; i < 9; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+            assertEquals(i, ((JSONRPCError) fast.poll()).getCode());
+            // The lag is checked on every append, although the maximum is not a multiple of the segment size
+            assertTrue(cursor.lag() <= 6);
+        }
+
+        assertEquals(3, metrics.getTriggeredCount(OverflowPolicy.DROP_OLDEST));
+        assertEquals(3, metrics.getSkippedEventCount(OverflowPolicy.DROP_OLDEST));
+        assertEquals(6, cursor.lag());
+        assertEquals(3, ((JSONRPCError) cursor.poll()).getCode());
+        assertEquals(0, fast.lag());
+    }
+
+    @Test
+    public void testCoalesceResumesWithSnapshot() {
+        SubscriberOverflowMetrics metrics = new SubscriberOverflowMetrics();
+        EventLog log = new EventLog(4, metrics);
+        Task snapshot = new Task.Builder()
+                .id("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        EventLog.Cursor cursor = log.openCursor(options(OverflowPolicy.COALESCE_TO_SNAPSHOT, 2, () -> snapshot));
+
+        for (int i = 0; i < 3; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+        }
+        Event latest = new JSONRPCError(3, "latest", null);
+        log.append(latest);
+
+        assertEquals(1, metrics.getTriggeredCount(OverflowPolicy.COALESCE_TO_SNAPSHOT));
+        assertFalse(cursor.isEmpty());
+        assertSame(snapshot, cursor.poll());
+        assertSame(latest, cursor.poll());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testCoalesceResumesWithRecordedSnapshotAndTheEventsFollowingIt() {
+        SubscriberOverflowMetrics metrics = new SubscriberOverflowMetrics();
+        EventLog log = new EventLog(4, metrics);
+        Task recorded = new Task.Builder()
+                .id("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        Task supplied = new Task.Builder(recorded).status(new TaskStatus(TaskState.COMPLETED)).build();
+        EventLog.Cursor cursor = log.openCursor(options(OverflowPolicy.COALESCE_TO_SNAPSHOT, 2, () -> supplied));
+
+        log.append(new JSONRPCError(0, "error", null));
+        log.append(new JSONRPCError(1, "error", null));
+        log.recordSnapshot(recorded, 2);
+        Event following = new JSONRPCError(2, "following", null);
+        log.append(following);
+
+        assertEquals(1, metrics.getTriggeredCount(OverflowPolicy.COALESCE_TO_SNAPSHOT));
+        assertEquals(2, metrics.getSkippedEventCount(OverflowPolicy.COALESCE_TO_SNAPSHOT));
+        assertSame(recorded, cursor.poll());
+        assertSame(following, cursor.poll());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testCoalesceWaitsForASnapshotAheadOfTheCursor() {
+        SubscriberOverflowMetrics metrics = new SubscriberOverflowMetrics();
+        EventLog log = new EventLog(4, metrics);
+        Task initial = new Task.Builder()
+                .id("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.SUBMITTED))
+                .build();
+        log.recordSnapshot(initial, 0);
+        EventLog.Cursor cursor = log.openCursor(options(OverflowPolicy.COALESCE_TO_SNAPSHOT, 2, () -> initial));
+
+        for (int i = 0; i < 3; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+        }
+        // The consumer has not recorded a snapshot past the cursor yet, so none of the events is skipped
+        assertEquals(0, metrics.getTriggeredCount(OverflowPolicy.COALESCE_TO_SNAPSHOT));
+        assertEquals(3, cursor.lag());
+
+        Task working = new Task.Builder(initial).status(new TaskStatus(TaskState.WORKING)).build();
+        log.recordSnapshot(working, 3);
+        assertEquals(1, metrics.getTriggeredCount(OverflowPolicy.COALESCE_TO_SNAPSHOT));
+        assertSame(working, cursor.poll());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testCoalesceNeedsASnapshotSupplier() {
+        assertThrows(IllegalArgumentException.class, () -> new TapOptions.Builder()
+                .overflowPolicy(OverflowPolicy.COALESCE_TO_SNAPSHOT)
+                .maxLag(2)
+                .build());
+    }
+
+    @Test
+    public void testDisconnectFailsLaggingCursor() {
+        SubscriberOverflowMetrics metrics = new SubscriberOverflowMetrics();
+        EventLog log = new EventLog(4, metrics);
+        EventLog.Cursor cursor = log.openCursor(options(OverflowPolicy.DISCONNECT, 2, null));
+
+        for (int i = 0; i < 2; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+        }
+        assertTrue(log.hasCursors());
+        log.append(new JSONRPCError(2, "error", null));
+
+        assertEquals(1, metrics.getTriggeredCount(OverflowPolicy.DISCONNECT));
+        assertFalse(log.hasCursors());
+        assertInstanceOf(InternalError.class, cursor.poll());
+        assertTrue(cursor.isEmpty());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testLaggingTapNeverBlocksProducer() throws Exception {
+        EventQueue queue = new EventQueue.Builder()
+                .capacity(10_000)
+                .tapOptions(options(OverflowPolicy.DISCONNECT, 10, null))
+                .build();
+        EventQueue stalled = queue.tap();
+        for (int i = 0; i < 5_000; i++) {
+            queue.enqueueEvent(new JSONRPCError(i, "error", null));
+        }
+        assertInstanceOf(InternalError.class, stalled.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testLateCursorReplaysRetainedEvents() {
+        EventLog log = new EventLog(4, 6, new SubscriberOverflowMetrics());
+        assertTrue(log.retainsEvents());
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            Event event = new JSONRPCError(i, "error", null);
+            events.add(event);
+            log.append(event);
+        }
+
+        EventLog.ReplayingCursor replaying = log.openReplayingCursor(new TapOptions.Builder(EventQueue.DEFAULT_TAP_OPTIONS)
+                .replay(Integer.MAX_VALUE)
+                .build());
+        // Only the last 6 events are replayed, although whole segments are retained
+        assertEquals(events.subList(7, 13), replaying.replay().events());
+        assertEquals(7, replaying.replay().firstSequence());
+        EventLog.Cursor cursor = replaying.cursor();
+        assertEquals(13, cursor.position());
+
+        List<Event> limited = log.openReplayingCursor(new TapOptions.Builder(EventQueue.DEFAULT_TAP_OPTIONS)
+                .replay(2)
+                .build()).replay().events();
+        assertEquals(events.subList(11, 13), limited);
+
+        Event live = new JSONRPCError(13, "live", null);
+        log.append(live);
+        assertSame(live, cursor.poll());
+        assertNull(cursor.poll());
+    }
+
+    @Test
+    public void testCursorReplaysSinceLatestSnapshot() {
+        EventLog log = new EventLog(4, 6, new SubscriberOverflowMetrics());
+        TapOptions sinceSnapshot = new TapOptions.Builder(EventQueue.DEFAULT_TAP_OPTIONS)
+                .replaySinceSnapshot(true)
+                .build();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Event event = new JSONRPCError(i, "error", null);
+            events.add(event);
+            log.append(event);
+        }
+        // Without a snapshot, the events are replayed from the first one retained
+        EventQueue.Replay replay = log.openReplayingCursor(sinceSnapshot).replay();
+        assertNull(replay.snapshot());
+        assertEquals(events, replay.events());
+
+        Task snapshot = new Task.Builder()
+                .id("task-123")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        log.recordSnapshot(snapshot, 3);
+        // An older snapshot is ignored
+        log.recordSnapshot(new Task.Builder(snapshot).status(new TaskStatus(TaskState.SUBMITTED)).build(), 2);
+        replay = log.openReplayingCursor(sinceSnapshot).replay();
+        assertSame(snapshot, replay.snapshot());
+        assertEquals(3, replay.firstSequence());
+        assertEquals(events.subList(3, 5), replay.events());
+
+        // The events following a snapshot are only replayed as far as they are retained
+        for (int i = 5; i < 12; i++) {
+            log.append(new JSONRPCError(i, "error", null));
+        }
+        replay = log.openReplayingCursor(sinceSnapshot).replay();
+        assertSame(snapshot, replay.snapshot());
+        assertEquals(6, replay.firstSequence());
+        assertEquals(6, replay.events().size());
+    }
+
+    private static TapOptions options(OverflowPolicy policy, int maxLag, Supplier<Task> snapshotSupplier) {
+        return new TapOptions.Builder()
+                .overflowPolicy(policy)
+                .maxLag(maxLag)
+                .snapshotSupplier(snapshotSupplier)
+                .build();
+    }
+}
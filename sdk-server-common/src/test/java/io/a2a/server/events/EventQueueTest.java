@@ -1,9 +1,18 @@
 package io.a2a.server.events;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.a2a.spec.Artifact;
 import io.a2a.spec.Event;
@@ -113,4 +122,166 @@ public class EventQueueTest {
             assertSame(event, dequeuedEvent);
         }
     }
+
+    @Test
+    public void testTapsReadEventsIndependently() throws Exception {
+        EventQueue tap1 = eventQueue.tap();
+        EventQueue tap2 = eventQueue.tap();
+
+        List<Event> events = List.of(
+                new JSONRPCError(1, "first", null),
+                new JSONRPCError(2, "second", null));
+        for (Event event : events) {
+            eventQueue.enqueueEvent(event);
+        }
+
+        for (Event event : events) {
+            assertSame(event, eventQueue.dequeueEvent(-1));
+            assertSame(event, tap1.dequeueEvent(-1));
+            assertSame(event, tap2.dequeueEvent(100));
+        }
+        assertNull(tap1.dequeueEvent(-1));
+
+        eventQueue.close();
+        assertThrows(EventQueueClosedException.class, () -> tap1.dequeueEvent(-1));
+        assertThrows(EventQueueClosedException.class, () -> tap2.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testDetachedTapNoLongerReceivesEvents() throws Exception {
+        EventQueue.MainQueue mainQueue = (EventQueue.MainQueue) eventQueue;
+        EventQueue tap = eventQueue.tap();
+        EventQueue other = eventQueue.tap();
+        assertEquals(2, mainQueue.childCount());
+
+        tap.detach();
+        assertEquals(1, mainQueue.childCount());
+
+        Event event = new JSONRPCError(1, "error", null);
+        eventQueue.enqueueEvent(event);
+        assertThrows(EventQueueClosedException.class, () -> tap.dequeueEvent(-1));
+        assertSame(event, other.dequeueEvent(-1));
+        assertSame(event, eventQueue.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testPollerStartedCompletesWhenTapIsPolled() throws Exception {
+        EventQueue tap = eventQueue.tap();
+        CompletableFuture<Void> started = eventQueue.pollerStarted().toCompletableFuture();
+        assertFalse(started.isDone());
+
+        tap.dequeueEvent(-1);
+        assertTrue(started.isDone());
+        assertTrue(tap.pollerStarted().toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void testDrainEvents() throws Exception {
+        EventQueue tap = eventQueue.tap();
+        List<Event> events = List.of(
+                new JSONRPCError(1, "one", null),
+                new JSONRPCError(2, "two", null),
+                new JSONRPCError(3, "three", null));
+        events.forEach(eventQueue::enqueueEvent);
+
+        assertEquals(events.subList(0, 2), eventQueue.drainEvents(2, 0));
+        assertEquals(events.subList(2, 3), eventQueue.drainEvents(10, 0));
+        assertTrue(eventQueue.drainEvents(10, 10).isEmpty());
+        assertEquals(events, tap.drainEvents(10, 0));
+
+        eventQueue.close();
+        assertThrows(EventQueueClosedException.class, () -> eventQueue.drainEvents(10, 0));
+        assertThrows(EventQueueClosedException.class, () -> tap.drainEvents(10, 0));
+    }
+
+    @Test
+    public void testTapReplaysSinceSnapshotRecordedAtPositionDequeued() throws Exception {
+        List<Event> events = List.of(
+                new JSONRPCError(1, "one", null),
+                new JSONRPCError(2, "two", null),
+                new JSONRPCError(3, "three", null));
+        events.forEach(eventQueue::enqueueEvent);
+        assertEquals(events.subList(0, 2), eventQueue.drainEvents(2, 0));
+        Task snapshot = Utils.unmarshalFrom(MINIMAL_TASK, Task.TYPE_REFERENCE);
+        eventQueue.recordSnapshot(snapshot, eventQueue.position());
+
+        EventQueue tap = eventQueue.tap(new TapOptions.Builder().replaySinceSnapshot(true).build());
+        EventQueue.Replay replay = tap.getReplay();
+        assertSame(snapshot, replay.snapshot());
+        assertEquals(2, replay.firstSequence());
+        assertEquals(events.subList(2, 3), replay.events());
+
+        Event live = new JSONRPCError(4, "four", null);
+        eventQueue.enqueueEvent(live);
+        assertSame(live, tap.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testProducerWaitsForCapacityWithoutBlockingOthers() throws Exception {
+        EventQueue queue = new EventQueue.Builder().capacity(1).build();
+        EventQueue tap = queue.tap();
+        Event first = new JSONRPCError(1, "one", null);
+        queue.enqueueEvent(first);
+
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicReference<Throwable> interrupted = new AtomicReference<>();
+        Thread blocked = new Thread(() -> {
+            started.countDown();
+            try {
+                queue.enqueueEvent(new JSONRPCError(2, "two", null));
+            } catch (RuntimeException e) {
+                interrupted.set(e.getCause());
+            }
+        });
+        Event third = new JSONRPCError(3, "three", null);
+        Thread waiting = new Thread(() -> {
+            started.countDown();
+            queue.enqueueEvent(third);
+        });
+        blocked.start();
+        waiting.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Both producers wait for the consumer, which the tap does not hold back
+        assertSame(first, tap.dequeueEvent(-1));
+        blocked.interrupt();
+        blocked.join(5000);
+        assertFalse(blocked.isAlive());
+        assertTrue(interrupted.get() instanceof InterruptedException);
+
+        assertSame(first, queue.dequeueEvent(-1));
+        waiting.join(5000);
+        assertFalse(waiting.isAlive());
+        assertSame(third, queue.dequeueEvent(-1));
+        assertSame(third, tap.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testConsumerAndTapsReadConcurrentProducersInTheSameOrder() throws Exception {
+        EventQueue queue = new EventQueue.Builder().capacity(16).build();
+        EventQueue tap = queue.tap(new TapOptions.Builder().maxLag(10_000).build());
+        int producers = 4;
+        int perProducer = 500;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.enqueueEvent(new JSONRPCError(producer * perProducer + i, "error", null));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        List<Event> consumed = new ArrayList<>();
+        while (consumed.size() < producers * perProducer) {
+            queue.drainEvents(consumed, 64, 100);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(consumed.size(), queue.position());
+        assertEquals(consumed, tap.drainEvents(producers * perProducer, 0));
+    }
 }
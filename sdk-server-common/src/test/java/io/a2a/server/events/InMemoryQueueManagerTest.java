@@ -0,0 +1,154 @@
+package io.a2a.server.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import io.a2a.spec.JSONRPCError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryQueueManagerTest {
+
+    private InMemoryQueueManager queueManager;
+
+    @AfterEach
+    public void shutdown() {
+        if (queueManager != null) {
+            queueManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testReapsIdleQueues() throws Exception {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .idleTimeout(Duration.ofMillis(50))
+                .pollerTimeout(Duration.ZERO)
+                .build());
+        EventQueue idle = queueManager.createOrTap("idle");
+        EventQueue active = queueManager.createOrTap("active");
+
+        Thread.sleep(100);
+        active.enqueueEvent(new JSONRPCError(1, "error", null));
+
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("idle"));
+        assertSame(active, queueManager.get("active"));
+        // The consumers of the reaped queue are released
+        assertThrows(EventQueueClosedException.class, () -> idle.dequeueEvent(-1));
+    }
+
+    @Test
+    public void testDoesNotReapIdleQueuesWithRunningProducer() throws Exception {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .idleTimeout(Duration.ofMillis(50))
+                .build());
+        EventQueue running = queueManager.createOrTap("running");
+        running.producerStarted();
+
+        Thread.sleep(100);
+        assertEquals(0, queueManager.reap());
+        assertSame(running, queueManager.get("running"));
+
+        running.producerDone();
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("running"));
+    }
+
+    @Test
+    public void testDefaultsNeitherReapNorLimitQueues() throws Exception {
+        QueueLifecycleOptions defaults = QueueLifecycleOptions.DEFAULT;
+        assertEquals(Duration.ZERO, defaults.getIdleTimeout());
+        assertEquals(Duration.ZERO, defaults.getPollerTimeout());
+        assertEquals(Integer.MAX_VALUE, defaults.getMaxQueues());
+
+        queueManager = create(defaults);
+        EventQueue queue = queueManager.createOrTap("1");
+        Thread.sleep(5);
+        assertEquals(0, queueManager.reap());
+        assertSame(queue, queueManager.get("1"));
+    }
+
+    @Test
+    public void testReapsQueuesNeverPolled() throws Exception {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .idleTimeout(Duration.ZERO)
+                .pollerTimeout(Duration.ofMillis(50))
+                .build());
+        queueManager.createOrTap("orphan");
+        EventQueue polled = queueManager.createOrTap("polled");
+        polled.dequeueEvent(-1);
+
+        Thread.sleep(100);
+
+        assertEquals(1, queueManager.reap());
+        assertNull(queueManager.get("orphan"));
+        assertNotNull(queueManager.get("polled"));
+    }
+
+    @Test
+    public void testRejectsQueuesOverLimit() {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .maxQueues(2)
+                .build());
+        queueManager.createOrTap("1");
+        queueManager.createOrTap("2");
+
+        assertThrows(QueueLimitExceededException.class, () -> queueManager.createOrTap("3"));
+        // Tapping an existing queue is not affected by the limit
+        assertNotNull(queueManager.createOrTap("1"));
+    }
+
+    @Test
+    public void testEvictsIdlestQueueOverLimit() throws Exception {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .maxQueues(2)
+                .rejectionPolicy(QueueRejectionPolicy.EVICT_IDLEST)
+                .build());
+        queueManager.createOrTap("1");
+        EventQueue second = queueManager.createOrTap("2");
+        Thread.sleep(5);
+        second.enqueueEvent(new JSONRPCError(1, "error", null));
+
+        queueManager.createOrTap("3");
+
+        assertNull(queueManager.get("1"));
+        assertNotNull(queueManager.get("2"));
+        assertNotNull(queueManager.get("3"));
+    }
+
+    @Test
+    public void testEvictsQueueIdlestSinceItsLastActivity() throws Exception {
+        queueManager = create(new QueueLifecycleOptions.Builder()
+                .maxQueues(3)
+                .rejectionPolicy(QueueRejectionPolicy.EVICT_IDLEST)
+                .build());
+        EventQueue first = queueManager.createOrTap("1");
+        EventQueue second = queueManager.createOrTap("2");
+        queueManager.createOrTap("3");
+        Thread.sleep(5);
+        // Created first, but active since the others were
+        first.enqueueEvent(new JSONRPCError(1, "error", null));
+        Thread.sleep(5);
+        second.enqueueEvent(new JSONRPCError(2, "error", null));
+        queueManager.close("2");
+
+        // Room is made by the close, then by evicting the idlest of the queues still live
+        queueManager.createOrTap("4");
+        queueManager.createOrTap("5");
+
+        assertNotNull(queueManager.get("1"));
+        assertNull(queueManager.get("3"));
+        assertNotNull(queueManager.get("4"));
+        assertNotNull(queueManager.get("5"));
+    }
+
+    private static InMemoryQueueManager create(QueueLifecycleOptions lifecycleOptions) {
+        return new InMemoryQueueManager(EventQueue.DEFAULT_QUEUE_SIZE,
+                EventQueue.DEFAULT_TAP_OPTIONS, EventQueue.DEFAULT_REPLAY_CAPACITY, lifecycleOptions);
+    }
+}
@@ -49,7 +49,11 @@ import io.a2a.spec.GetTaskRequest;
 import io.a2a.spec.GetTaskResponse;
 import io.a2a.spec.InternalError;
 import io.a2a.spec.InvalidRequestError;
+import io.a2a.spec.InvalidParamsError;
 import io.a2a.spec.JSONRPCError;
+import io.a2a.spec.ListTasksParams;
+import io.a2a.spec.ListTasksRequest;
+import io.a2a.spec.ListTasksResponse;
 import io.a2a.spec.Message;
 import io.a2a.spec.MessageSendParams;
 import io.a2a.spec.PushNotificationConfig;
@@ -152,6 +156,23 @@ public class JSONRPCHandlerTest {
         assertNull(response.getError());
     }
 
+    @Test
+    public void testOnGetTaskWithHistoryLength() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        Message first = new Message.Builder(MESSAGE).messageId("1").build();
+        Message second = new Message.Builder(MESSAGE).messageId("2").build();
+        Message third = new Message.Builder(MESSAGE).messageId("3").build();
+        taskStore.save(new Task.Builder(MINIMAL_TASK).history(first, second, third).build());
+
+        GetTaskResponse response = handler.onGetTask(new GetTaskRequest("1", new TaskQueryParams(MINIMAL_TASK.getId(), 2)));
+        assertNull(response.getError());
+        assertEquals(List.of(second, third), response.getResult().getHistory());
+        response = handler.onGetTask(new GetTaskRequest("1", new TaskQueryParams(MINIMAL_TASK.getId(), 0)));
+        assertEquals(List.of(), response.getResult().getHistory());
+        response = handler.onGetTask(new GetTaskRequest("1", new TaskQueryParams(MINIMAL_TASK.getId(), 5)));
+        assertEquals(List.of(first, second, third), response.getResult().getHistory());
+    }
+
     @Test
     public void testOnGetTaskNotFound() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
@@ -162,6 +183,50 @@ public class JSONRPCHandlerTest {
         assertNull(response.getResult());
     }
 
+    @Test
+    public void testOnListTasks() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        taskStore.save(MINIMAL_TASK);
+        Task working = new Task.Builder(MINIMAL_TASK)
+                .id("task-456")
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        taskStore.save(working);
+        taskStore.save(new Task.Builder(working).id("task-789").contextId("session-abc").build());
+
+        ListTasksRequest request = new ListTasksRequest("1", new ListTasksParams("session-xyz", TaskState.WORKING));
+        ListTasksResponse response = handler.onListTasks(request);
+        assertEquals(request.getId(), response.getId());
+        assertNull(response.getError());
+        assertEquals(List.of(working), response.getResult().tasks());
+        assertNull(response.getResult().nextCursor());
+
+        response = handler.onListTasks(new ListTasksRequest("2", new ListTasksParams(null, null, "?", 10)));
+        assertInstanceOf(InvalidParamsError.class, response.getError());
+    }
+
+    @Test
+    public void testOnListTasksNotSupportedByStore() throws Exception {
+        TaskStore unindexed = new TaskStore() {
+            @Override
+            public void save(Task task) {
+            }
+
+            @Override
+            public Task get(String taskId) {
+                return null;
+            }
+
+            @Override
+            public void delete(String taskId) {
+            }
+        };
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, new DefaultRequestHandler(
+                executor, unindexed, queueManager, null, internalExecutor));
+        ListTasksResponse response = handler.onListTasks(new ListTasksRequest("1", new ListTasksParams(null, null)));
+        assertInstanceOf(UnsupportedOperationError.class, response.getError());
+    }
+
     @Test
     public void testOnCancelTaskSuccess() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
@@ -248,7 +313,7 @@ public class JSONRPCHandlerTest {
         SendMessageResponse response;
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
-                (mock, context) -> {Mockito.doReturn(ZeroPublisher.fromItems(MINIMAL_TASK)).when(mock).consumeAll();})){
+                (mock, context) -> {Mockito.doReturn(ZeroPublisher.fromItems(List.of(MINIMAL_TASK))).when(mock).consumeAllBatches();})){
             response = handler.onMessageSend(request);
         }
         assertNull(response.getError());
@@ -292,7 +357,7 @@ public class JSONRPCHandlerTest {
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
                 (mock, context) -> {
-                    Mockito.doReturn(ZeroPublisher.fromItems(MINIMAL_TASK)).when(mock).consumeAll();})){
+                    Mockito.doReturn(ZeroPublisher.fromItems(List.of(MINIMAL_TASK))).when(mock).consumeAllBatches();})){
             response = handler.onMessageSend(request);
         }
         assertNull(response.getError());
@@ -303,7 +368,7 @@ public class JSONRPCHandlerTest {
     @Test
     public void testOnMessageError() {
         // See testMessageOnErrorMocks() for a test more similar to the Python implementation, using mocks for
-        // EventConsumer.consumeAll()
+        // EventConsumer.consumeAllBatches()
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         agentExecutorExecute = (context, eventQueue) -> {
             eventQueue.enqueueEvent(new UnsupportedOperationError());
@@ -332,7 +397,7 @@ public class JSONRPCHandlerTest {
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
                 (mock, context) -> {
-                    Mockito.doReturn(ZeroPublisher.fromItems(new UnsupportedOperationError())).when(mock).consumeAll();})){
+                    Mockito.doReturn(ZeroPublisher.fromItems(List.of(new UnsupportedOperationError()))).when(mock).consumeAllBatches();})){
             response = handler.onMessageSend(request);
         }
 
@@ -341,7 +406,7 @@ public class JSONRPCHandlerTest {
     }
 
     @Test
-    public void testOnMessageStreamNewMessageSuccess() {
+    public void testOnMessageStreamNewMessageSuccess() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         agentExecutorExecute = (context, eventQueue) -> {
             eventQueue.enqueueEvent(context.getTask() != null ? context.getTask() : context.getMessage());
@@ -386,6 +451,9 @@ public class JSONRPCHandlerTest {
             }
         });
 
+        // Events are pushed to the subscriber as the agent enqueues them
+        latch.await(10, TimeUnit.SECONDS);
+
         // The Python implementation has several events emitted since it uses mocks. Also, in the
         // implementation, a Message is considered a 'final' Event in EventConsumer.consumeAll()
         // so there would be no more Events.
@@ -427,7 +495,7 @@ public class JSONRPCHandlerTest {
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
                 (mock, context) -> {
-                    Mockito.doReturn(ZeroPublisher.fromIterable(events)).when(mock).consumeAll();})){
+                    Mockito.doReturn(ZeroPublisher.fromItems(events)).when(mock).consumeAllBatches();})){
             response = handler.onMessageSendStream(request);
         }
 
@@ -572,7 +640,7 @@ public class JSONRPCHandlerTest {
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
                 (mock, context) -> {
-                    Mockito.doReturn(ZeroPublisher.fromIterable(events)).when(mock).consumeAll();})){
+                    Mockito.doReturn(ZeroPublisher.fromItems(events)).when(mock).consumeAllBatches();})){
             response = handler.onMessageSendStream(request);
         }
 
@@ -753,7 +821,7 @@ public class JSONRPCHandlerTest {
     }
 
     @Test
-    public void testOnResubscribeExistingTaskSuccess() {
+    public void testOnResubscribeExistingTaskSuccess() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         taskStore.save(MINIMAL_TASK);
         queueManager.createOrTap(MINIMAL_TASK.getId());
@@ -780,6 +848,7 @@ public class JSONRPCHandlerTest {
 
 
         List<StreamingEventKind> results = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
 
         response.subscribe(new Flow.Subscriber<>() {
             private Flow.Subscription subscription;
@@ -799,18 +868,24 @@ public class JSONRPCHandlerTest {
             @Override
             public void onError(Throwable throwable) {
                 subscription.cancel();
+                completed.countDown();
             }
 
             @Override
             public void onComplete() {
                 subscription.cancel();
+                completed.countDown();
             }
         });
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
 
         // The Python implementation has several events emitted since it uses mocks.
         //
         // See testOnMessageStreamNewMessageExistingTaskSuccessMocks() for a test more similar to the Python implementation
-        assertEquals(1, results.size());
+        // The resubscription starts with the current task, followed by the message
+        assertEquals(2, results.size());
+        assertInstanceOf(Task.class, results.get(0));
+        assertInstanceOf(Message.class, results.get(1));
     }
 
 
@@ -840,7 +915,7 @@ public class JSONRPCHandlerTest {
         try (MockedConstruction<EventConsumer> mocked = Mockito.mockConstruction(
                 EventConsumer.class,
                 (mock, context) -> {
-                    Mockito.doReturn(ZeroPublisher.fromIterable(events)).when(mock).consumeAll();})){
+                    Mockito.doReturn(ZeroPublisher.fromItems(events)).when(mock).consumeAllBatches();})){
             response = handler.onResubscribeToTask(request);
         }
 
@@ -878,7 +953,67 @@ public class JSONRPCHandlerTest {
         // The Python implementation has several events emitted since it uses mocks.
         //
         // See testOnMessageStreamNewMessageExistingTaskSuccessMocks() for a test more similar to the Python implementation
-        assertEquals(events, results);
+        List<Event> expected = new ArrayList<>();
+        expected.add(MINIMAL_TASK);
+        expected.addAll(events);
+        assertEquals(expected, results);
+    }
+
+    @Test
+    public void testOnResubscribeReplaysRecentEvents() throws Exception {
+        JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
+        taskStore.save(MINIMAL_TASK);
+        EventQueue queue = queueManager.createOrTap(MINIMAL_TASK.getId());
+
+        TaskStatusUpdateEvent missed = new TaskStatusUpdateEvent.Builder()
+                .taskId(MINIMAL_TASK.getId())
+                .contextId(MINIMAL_TASK.getContextId())
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        queue.enqueueEvent(missed);
+
+        TaskResubscriptionRequest request = new TaskResubscriptionRequest("1", new TaskIdParams(MINIMAL_TASK.getId()));
+        Flow.Publisher<SendStreamingMessageResponse> response = handler.onResubscribeToTask(request);
+
+        TaskStatusUpdateEvent live = new TaskStatusUpdateEvent.Builder()
+                .taskId(MINIMAL_TASK.getId())
+                .contextId(MINIMAL_TASK.getContextId())
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .isFinal(true)
+                .build();
+        queue.enqueueEvent(live);
+
+        List<StreamingEventKind> results = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        response.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(SendStreamingMessageResponse item) {
+                results.add(item.getResult());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        // The current task, the event enqueued before resubscribing, then the live events without duplicates
+        assertEquals(List.of(MINIMAL_TASK, missed, live), results);
     }
 
     @Test
@@ -1196,7 +1331,7 @@ public class JSONRPCHandlerTest {
     }
 
     @Test
-    public void testOnMessageStreamTaskIdMismatch() {
+    public void testOnMessageStreamTaskIdMismatch() throws Exception {
         JSONRPCHandler handler = new JSONRPCHandler(CARD, requestHandler);
         taskStore.save(MINIMAL_TASK);
 
@@ -1209,6 +1344,7 @@ public class JSONRPCHandlerTest {
 
         List<SendStreamingMessageResponse> results = new ArrayList<>();
         AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
 
         response.subscribe(new Flow.Subscriber<SendStreamingMessageResponse>() {
             private Flow.Subscription subscription;
@@ -1233,9 +1369,11 @@ public class JSONRPCHandlerTest {
             @Override
             public void onComplete() {
                 subscription.cancel();
+                latch.countDown();
             }
         });
 
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
         assertNull(error.get());
         assertEquals(1, results.size());
         assertInstanceOf(InternalError.class, results.get(0).getError());
@@ -0,0 +1,181 @@
+package io.a2a.server.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.FileContent;
+import io.a2a.spec.FilePart;
+import io.a2a.spec.FileWithBytes;
+import io.a2a.spec.FileWithUri;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TaskStatusUpdateEvent;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BlobOffloadingTaskStoreTest {
+
+    private static final String LARGE = "aGVsbG8=".repeat(16);
+    private static final String SMALL = "aGVsbG8=";
+
+    private Path directory;
+    private LocalBlobStore blobStore;
+    private InMemoryTaskStore delegate;
+    private BlobOffloadingTaskStore store;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("blobs");
+        blobStore = new LocalBlobStore(directory);
+        delegate = new InMemoryTaskStore();
+        store = new BlobOffloadingTaskStore(delegate, blobStore, 64);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testTaskManagerHoldsTheHandlesOfTheFilesOffloaded() throws Exception {
+        AtomicInteger puts = new AtomicInteger();
+        store = new BlobOffloadingTaskStore(delegate, new LocalBlobStore(directory) {
+            @Override
+            public String put(byte[] content) {
+                puts.incrementAndGet();
+                return super.put(content);
+            }
+        }, 64);
+        TaskManager taskManager = new TaskManager(null, null, store, null);
+        taskManager.process(new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .history(message(LARGE))
+                .build());
+        assertEquals(1, puts.get());
+        assertInstanceOf(FileWithUri.class, file(taskManager.getTask().getHistory().get(0)));
+
+        // Later saves of the task do not read the content of its files again
+        taskManager.process(new TaskStatusUpdateEvent("task-abc", new TaskStatus(TaskState.COMPLETED),
+                "session-xyz", true, null));
+        assertEquals(1, puts.get());
+        assertSame(taskManager.getTask(), delegate.get("task-abc"));
+    }
+
+    @Test
+    public void testLargeFilesAreOffloadedAndInlinedAgain() throws IOException {
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .history(message(LARGE), message(SMALL))
+                .artifacts(List.of(new Artifact.Builder()
+                        .artifactId("artifact-1")
+                        .parts(new TextPart("text"), new FilePart(new FileWithBytes("image/png", "b.png", LARGE)))
+                        .build()))
+                .build();
+        store.save(task);
+
+        Task stored = store.get("task-abc");
+        FileWithUri handle = assertInstanceOf(FileWithUri.class, file(stored.getHistory().get(0)));
+        assertTrue(BlobOffloadingTaskStore.isHandle(handle));
+        assertEquals("image/png", handle.mimeType());
+        assertSame(task.getHistory().get(1), stored.getHistory().get(1));
+        FileContent artifactFile = ((FilePart) stored.getArtifacts().get(0).parts().get(1)).getFile();
+        assertEquals(new FileWithUri("image/png", "b.png", handle.uri()), artifactFile);
+        // The same content is stored once
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+
+        Task inlined = store.inline(stored);
+        assertEquals(LARGE, ((FileWithBytes) file(inlined.getHistory().get(0))).bytes());
+        assertEquals(LARGE, ((FileWithBytes) ((FilePart) inlined.getArtifacts().get(0).parts().get(1)).getFile()).bytes());
+        assertSame(stored.getHistory().get(1), inlined.getHistory().get(1));
+
+        // Saving a task read back offloads nothing again
+        assertSame(stored, store.offload(stored));
+    }
+
+    @Test
+    public void testTaskWithoutLargeFilesIsSavedAsIs() {
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING, message(SMALL), null))
+                .build();
+        store.save(task);
+        assertSame(task, delegate.get("task-abc"));
+        assertSame(task, store.inline(task));
+    }
+
+    @Test
+    public void testStreamedFilesAreOffloadedWhateverTheirSize() {
+        FileWithBytes streamed = new FileWithBytes("image/png", "a.png",
+                () -> new ByteArrayInputStream(SMALL.getBytes(StandardCharsets.ISO_8859_1)));
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .history(new Message.Builder(message(SMALL)).parts(new FilePart(streamed)).build())
+                .build();
+        store.save(task);
+
+        FileWithUri handle = (FileWithUri) file(store.get("task-abc").getHistory().get(0));
+        String digest = handle.uri().substring(BlobOffloadingTaskStore.HANDLE_URI_PREFIX.length());
+        assertEquals(SMALL, new String(blobStore.get(digest), StandardCharsets.ISO_8859_1));
+        FileWithBytes inlined = (FileWithBytes) file(store.inline(store.get("task-abc")).getHistory().get(0));
+        assertTrue(inlined.isStreamed());
+        assertEquals(SMALL, inlined.bytes());
+    }
+
+    @Test
+    public void testMissingBlob() {
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING, message(LARGE), null))
+                .build();
+        store.save(task);
+        Task stored = store.get("task-abc");
+        String uri = ((FileWithUri) file(stored.getStatus().message())).uri();
+        blobStore.delete(uri.substring(BlobOffloadingTaskStore.HANDLE_URI_PREFIX.length()));
+
+        assertThrows(TaskStoreException.class, () -> store.inline(stored));
+    }
+
+    private static Message message(String bytes) {
+        return new Message.Builder()
+                .messageId("message-" + bytes.length())
+                .role(Message.Role.USER)
+                .parts(new FilePart(new FileWithBytes("image/png", "a.png", bytes)))
+                .build();
+    }
+
+    private static FileContent file(Message message) {
+        return ((FilePart) message.getParts().get(0)).getFile();
+    }
+}
@@ -1,9 +1,21 @@
 package io.a2a.server.tasks;
 
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.a2a.spec.ListTasksResult;
 import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
 import io.a2a.util.Utils;
 import org.junit.jupiter.api.Test;
 
@@ -47,4 +59,163 @@ public class InMemoryTaskStoreTest {
         InMemoryTaskStore store = new InMemoryTaskStore();
         store.delete("non-existent");
     }
+
+    @Test
+    public void testFinalTasksExpireAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        List<Task> archived = new ArrayList<>();
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .finalTaskTtl(Duration.ofMinutes(1))
+                .archiver(archived::add)
+                .build(), now::get);
+        Task completed = task("completed", TaskState.COMPLETED);
+        Task working = task("working", TaskState.WORKING);
+        store.save(completed);
+        store.save(working);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertSame(completed, store.get("completed"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(store.get("completed"));
+        // Tasks which are not in a final state are kept
+        assertSame(working, store.get("working"));
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        store.get("working");
+        assertEquals(List.of(completed), archived);
+        assertEquals(1, store.getMetrics().getExpiredCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFinalTaskIsEvicted() {
+        List<Task> archived = new ArrayList<>();
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .maxFinalTasks(2)
+                .archiver(archived::add)
+                .build());
+        Task a = task("a", TaskState.COMPLETED);
+        Task b = task("b", TaskState.FAILED);
+        store.save(a);
+        store.save(b);
+        store.save(task("working", TaskState.WORKING));
+        store.get("a");
+        Task c = task("c", TaskState.CANCELED);
+        store.save(c);
+
+        assertNull(store.get("b"));
+        assertSame(a, store.get("a"));
+        assertSame(c, store.get("c"));
+        assertEquals(List.of(b), archived);
+        assertEquals(1, store.getMetrics().getEvictedCount());
+
+        // Saving a task again in a state which is not final stops it from being evicted
+        store.save(task("a", TaskState.WORKING));
+        store.save(task("d", TaskState.COMPLETED));
+        store.save(task("e", TaskState.COMPLETED));
+        assertEquals(TaskState.WORKING, store.get("a").getStatus().state());
+        assertNull(store.get("c"));
+    }
+
+    @Test
+    public void testFinalTasksAreEvictedOverByteBudget() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .maxFinalTaskBytes(TaskSizeEstimator.estimate(task("a", TaskState.COMPLETED)) * 2)
+                .build());
+        store.save(task("a", TaskState.COMPLETED));
+        store.save(task("b", TaskState.COMPLETED));
+        store.save(task("c", TaskState.COMPLETED));
+        assertNull(store.get("a"));
+        assertEquals("b", store.get("b").getId());
+        assertEquals("c", store.get("c").getId());
+    }
+
+    @Test
+    public void testVersionedSaves() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        assertNull(store.getVersioned("a"));
+        assertEquals(1, store.save(task("a", TaskState.SUBMITTED), VersionedTaskStore.NO_VERSION));
+        assertThrows(TaskVersionConflictException.class,
+                () -> store.save(task("a", TaskState.WORKING), VersionedTaskStore.NO_VERSION));
+
+        Task working = task("a", TaskState.WORKING);
+        assertEquals(2, store.save(working, 1));
+        assertThrows(TaskVersionConflictException.class, () -> store.save(task("a", TaskState.COMPLETED), 1));
+        assertSame(working, store.getVersioned("a").task());
+        assertEquals(2, store.getVersioned("a").version());
+
+        // Plain saves increment the version too
+        store.save(task("a", TaskState.COMPLETED));
+        assertEquals(3, store.getVersioned("a").version());
+    }
+
+    @Test
+    public void testExpiredTaskIsNotStoredToVersionedSaves() {
+        AtomicLong now = new AtomicLong();
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .finalTaskTtl(Duration.ofMinutes(10))
+                .build(), now::get);
+        store.save(task("a", TaskState.COMPLETED));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertNull(store.getVersioned("a"));
+        store.save(task("a", TaskState.WORKING), VersionedTaskStore.NO_VERSION);
+        assertEquals(TaskState.WORKING, store.get("a").getStatus().state());
+    }
+
+    @Test
+    public void testGetAll() {
+        AtomicLong now = new AtomicLong();
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .finalTaskTtl(Duration.ofMinutes(1))
+                .build(), now::get);
+        Task working = task("working", TaskState.WORKING);
+        Task completed = task("completed", TaskState.COMPLETED);
+        store.save(working);
+        store.save(completed);
+
+        assertEquals(List.of("completed", "working"),
+                List.copyOf(store.getAll(List.of("completed", "missing", "working")).keySet()));
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(Map.of("working", working), store.getAll(List.of("completed", "working")));
+    }
+
+    @Test
+    public void testListByContextAndState() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        for (int i = 0; i < 5; i++) {
+            store.save(task("a" + i, "context-a", TaskState.WORKING));
+            store.save(task("b" + i, "context-b", TaskState.WORKING));
+        }
+        store.save(task("a1", "context-a", TaskState.COMPLETED));
+        store.delete("a3");
+
+        ListTasksResult page = store.list("context-a", TaskState.WORKING, null, 2);
+        assertEquals(List.of("a0", "a2"), ids(page));
+        page = store.list("context-a", TaskState.WORKING, page.nextCursor(), 2);
+        assertEquals(List.of("a4"), ids(page));
+        assertNull(page.nextCursor());
+
+        assertEquals(List.of("a0", "a1", "a2", "a4"), ids(store.list("context-a", null, null, 10)));
+        assertEquals(List.of("a1"), ids(store.list(null, TaskState.COMPLETED, null, 10)));
+        assertEquals(9, store.list(null, null, null, 10).tasks().size());
+        assertEquals(List.of(), ids(store.list("context-c", null, null, 10)));
+        assertThrows(IllegalArgumentException.class, () -> store.list(null, null, "not a cursor", 10));
+    }
+
+    @Test
+    public void testEvictedTasksAreNotListed() {
+        InMemoryTaskStore store = new InMemoryTaskStore(new InMemoryTaskStoreOptions.Builder()
+                .maxFinalTasks(1)
+                .build());
+        store.save(task("a", TaskState.COMPLETED));
+        store.save(task("b", TaskState.COMPLETED));
+        assertEquals(List.of("b"), ids(store.list("context", TaskState.COMPLETED, null, 10)));
+    }
+
+    private static List<String> ids(ListTasksResult page) {
+        List<String> ids = new ArrayList<>();
+        for (Task task : page.tasks()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,200 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MappedLogTaskStoreTest {
+
+    private Path root;
+    private Path directory;
+    private MappedLogTaskStore store;
+
+    @BeforeEach
+    public void init() throws IOException {
+        root = Files.createTempDirectory("task-log");
+        directory = root;
+        store = new MappedLogTaskStore(directory);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testChangesAreWrittenAndReadBack() {
+        Task submitted = task("a", TaskState.SUBMITTED);
+        store.save(submitted);
+        long snapshotBytes = store.getLogBytes();
+
+        Task working = new Task.Builder(submitted)
+                .status(new TaskStatus(TaskState.WORKING))
+                .appendHistory(message("started"))
+                .appendArtifact(new Artifact.Builder().artifactId("art").parts(new TextPart("one")).build())
+                .build();
+        store.save(working);
+        Artifact chunked = new Artifact.Builder(working.getArtifacts().get(0))
+                .appendParts(List.of(new TextPart("two")))
+                .build();
+        Task chunk = new Task.Builder(working)
+                .artifacts(List.of(chunked))
+                .build();
+        long beforeChunk = store.getLogBytes();
+        store.save(chunk);
+        // Only the part added is written, not the whole task again
+        assertTrue(store.getLogBytes() - beforeChunk < snapshotBytes);
+        Task completed = new Task.Builder(chunk)
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .build();
+        store.save(completed);
+        assertSame(completed, store.get("a"));
+
+        reopen(MappedLogOptions.DEFAULT);
+        Task read = store.get("a");
+        assertNotNull(read);
+        assertEquals(TaskState.COMPLETED, read.getStatus().state());
+        assertEquals(1, read.getHistory().size());
+        assertEquals("started", ((TextPart) read.getHistory().get(0).getParts().get(0)).getText());
+        assertEquals(1, read.getArtifacts().size());
+        List<String> texts = read.getArtifacts().get(0).parts().stream()
+                .map(part -> ((TextPart) part).getText())
+                .toList();
+        assertEquals(List.of("one", "two"), texts);
+    }
+
+    @Test
+    public void testTasksAreWrittenInFullAfterSnapshotInterval() {
+        reopen(new MappedLogOptions.Builder().snapshotInterval(2).build());
+        Task task = task("a", TaskState.SUBMITTED);
+        store.save(task);
+        task = new Task.Builder(task).appendHistory(message("first")).build();
+        store.save(task);
+        assertEquals(store.getLogBytes(), store.getLiveBytes());
+
+        task = new Task.Builder(task).appendHistory(message("second")).build();
+        store.save(task);
+        // The first two records are superseded by the third
+        assertTrue(store.getLiveBytes() < store.getLogBytes());
+
+        reopen(new MappedLogOptions.Builder().snapshotInterval(2).build());
+        assertEquals(2, store.get("a").getHistory().size());
+    }
+
+    @Test
+    public void testDeletesAreWrittenAndReadBack() {
+        store.save(task("a", TaskState.SUBMITTED));
+        store.save(task("b", TaskState.SUBMITTED));
+        store.delete("a");
+        assertNull(store.get("a"));
+
+        reopen(MappedLogOptions.DEFAULT);
+        assertNull(store.get("a"));
+        assertNotNull(store.get("b"));
+    }
+
+    @Test
+    public void testIncompleteRecordIsIgnored() throws IOException {
+        store.save(task("a", TaskState.SUBMITTED));
+        long complete = store.getLogBytes();
+        store.save(task("b", TaskState.SUBMITTED));
+        store.close();
+
+        // Corrupt the body of the record of b, as if the process died while writing it
+        Path segment;
+        try (Stream<Path> paths = Files.list(directory)) {
+            segment = paths.filter(path -> path.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 8 + complete + 20);
+        }
+
+        reopen(MappedLogOptions.DEFAULT);
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(complete, store.getLogBytes());
+
+        // The log continues after the last complete record
+        store.save(task("c", TaskState.SUBMITTED));
+        reopen(MappedLogOptions.DEFAULT);
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("c"));
+    }
+
+    @Test
+    public void testCompactionKeepsTheTasks() {
+        MappedLogOptions options = new MappedLogOptions.Builder()
+                .segmentSize(4096)
+                .snapshotInterval(1)
+                .build();
+        // The segments already created keep their size
+        store.close();
+        directory = directory.resolve("small");
+        store = new MappedLogTaskStore(directory, options);
+        for (int i = 0; i < 100; i++) {
+            store.save(new Task.Builder(task("a", TaskState.WORKING)).appendHistory(message("a" + i)).build());
+            store.save(new Task.Builder(task("b", TaskState.WORKING)).appendHistory(message("b" + i)).build());
+        }
+        store.save(task("c", TaskState.SUBMITTED));
+        store.delete("c");
+        assertTrue(store.getSegmentCount() > 1);
+
+        store.compact();
+        assertEquals(1, store.getSegmentCount());
+        assertEquals(store.getLiveBytes(), store.getLogBytes());
+
+        reopen(options);
+        assertEquals("a99", ((TextPart) store.get("a").getHistory().get(0).getParts().get(0)).getText());
+        assertEquals("b99", ((TextPart) store.get("b").getHistory().get(0).getParts().get(0)).getText());
+        assertNull(store.get("c"));
+    }
+
+    @Test
+    public void testLogIsUsedByOneStoreAtATime() {
+        assertThrows(TaskStoreException.class, () -> new MappedLogTaskStore(directory));
+        store.close();
+        assertThrows(IllegalStateException.class, () -> store.get("a"));
+    }
+
+    private void reopen(MappedLogOptions options) {
+        store.close();
+        store = new MappedLogTaskStore(directory, options);
+    }
+
+    private static Message message(String text) {
+        return new Message.Builder()
+                .role(Message.Role.AGENT)
+                .parts(new TextPart(text))
+                .messageId(text)
+                .build();
+    }
+}
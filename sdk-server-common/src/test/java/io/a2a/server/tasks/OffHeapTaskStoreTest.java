@@ -0,0 +1,109 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapTaskStoreTest {
+
+    @Test
+    public void testSaveGetAndDelete() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        String uuid = UUID.randomUUID().toString();
+        store.save(task(uuid, TaskState.SUBMITTED));
+        store.save(task("task-abc", TaskState.SUBMITTED));
+        store.save(task(uuid, TaskState.WORKING));
+
+        assertEquals(TaskState.WORKING, store.get(uuid).getStatus().state());
+        assertEquals("task-abc", store.get("task-abc").getId());
+        // Not the same id, so not the same key
+        assertNull(store.get(uuid.toUpperCase()));
+        assertEquals(2, store.getTaskCount());
+
+        store.delete(uuid);
+        store.delete("task-abc");
+        assertNull(store.get(uuid));
+        assertNull(store.get("task-abc"));
+        assertEquals(0, store.getTaskCount());
+        assertEquals(0, store.getUsedBytes());
+    }
+
+    @Test
+    public void testManyTasks() {
+        OffHeapTaskStore store = new OffHeapTaskStore(4096);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            store.save(task(id, TaskState.SUBMITTED));
+        }
+        for (int i = 0; i < ids.size(); i += 2) {
+            store.delete(ids.get(i));
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            Task task = store.get(ids.get(i));
+            if (i % 2 == 0) {
+                assertNull(task);
+            } else {
+                assertEquals(ids.get(i), task.getId());
+            }
+        }
+        assertEquals(5_000, store.getTaskCount());
+    }
+
+    @Test
+    public void testBlocksAreReused() {
+        OffHeapTaskStore store = new OffHeapTaskStore(4096);
+        String id = UUID.randomUUID().toString();
+        store.save(task(id, TaskState.SUBMITTED));
+        long allocated = store.getAllocatedBytes();
+        for (int i = 0; i < 1000; i++) {
+            store.save(task(id, i % 2 == 0 ? TaskState.WORKING : TaskState.SUBMITTED));
+        }
+        assertEquals(allocated, store.getAllocatedBytes());
+    }
+
+    @Test
+    public void testTaskLargerThanAChunk() {
+        OffHeapTaskStore store = new OffHeapTaskStore(256);
+        StringBuilder random = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            // Does not compress to less than a chunk
+            random.append(UUID.randomUUID());
+        }
+        String text = random.toString();
+        Task task = new Task.Builder(task("large", TaskState.WORKING))
+                .appendHistory(new Message.Builder()
+                        .role(Message.Role.AGENT)
+                        .parts(new TextPart(text))
+                        .messageId("message")
+                        .build())
+                .build();
+        store.save(task);
+        assertEquals(text, ((TextPart) store.get("large").getHistory().get(0).getParts().get(0)).getText());
+
+        store.delete("large");
+        assertEquals(0, store.getAllocatedBytes());
+    }
+
+    @Test
+    public void testParseUuid() {
+        UUID uuid = UUID.randomUUID();
+        assertArrayEquals(new long[] {uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()},
+                OffHeapTaskStore.parseUuid(uuid.toString()));
+        assertNull(OffHeapTaskStore.parseUuid(uuid.toString().toUpperCase()));
+        assertNull(OffHeapTaskStore.parseUuid(uuid.toString().replace('-', '0')));
+        assertNull(OffHeapTaskStore.parseUuid("task-abc"));
+    }
+}
@@ -0,0 +1,86 @@
+package io.a2a.server.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import io.a2a.spec.Artifact;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.Test;
+
+public class TaskCodecTest {
+
+    @Test
+    public void testRoundTripSmallTask() {
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.WORKING))
+                .build();
+        byte[] encoded = TaskCodec.encode(task);
+        assertEquals(0, encoded[0]);
+        assertTaskEquals(task, TaskCodec.decode(encoded));
+    }
+
+    @Test
+    public void testRoundTripLargeTaskIsDeflated() {
+        Message message = new Message.Builder()
+                .role(Message.Role.USER)
+                .parts(new TextPart("hello ".repeat(200)))
+                .messageId("message-1")
+                .build();
+        Task task = new Task.Builder()
+                .id("task-abc")
+                .contextId("session-xyz")
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .history(message)
+                .artifacts(List.of(new Artifact.Builder()
+                        .artifactId("artifact-1")
+                        .parts(new TextPart("result ".repeat(500)))
+                        .build()))
+                .build();
+        byte[] encoded = TaskCodec.encode(task);
+        assertEquals(1, encoded[0]);
+        assertTrue(encoded.length < 1000);
+
+        Task decoded = TaskCodec.decode(encoded);
+        assertTaskEquals(task, decoded);
+        assertEquals(1, decoded.getHistory().size());
+        assertEquals("result ".repeat(500), ((TextPart) decoded.getArtifacts().get(0).parts().get(0)).getText());
+    }
+
+    @Test
+    public void testRoundTripMessages() {
+        Message message = new Message.Builder()
+                .role(Message.Role.AGENT)
+                .parts(new TextPart("hello ".repeat(200)))
+                .messageId("message-1")
+                .build();
+        byte[] encoded = TaskCodec.encodeMessages(List.of(message, new Message.Builder(message).messageId("message-2").build()));
+        assertEquals(1, encoded[0]);
+
+        List<Message> decoded = TaskCodec.decodeMessages(encoded);
+        assertEquals(2, decoded.size());
+        assertEquals("message-2", decoded.get(1).getMessageId());
+        assertEquals("hello ".repeat(200), ((TextPart) decoded.get(0).getParts().get(0)).getText());
+    }
+
+    @Test
+    public void testCorruptEncoding() {
+        assertThrows(TaskStoreException.class, () -> TaskCodec.decode(new byte[0]));
+        assertThrows(TaskStoreException.class, () -> TaskCodec.decode(new byte[] {7, 1, 2}));
+        assertThrows(TaskStoreException.class, () -> TaskCodec.decode(new byte[] {1, 1, 2}));
+    }
+
+    private static void assertTaskEquals(Task expected, Task actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getContextId(), actual.getContextId());
+        assertEquals(expected.getStatus().state(), actual.getStatus().state());
+    }
+}
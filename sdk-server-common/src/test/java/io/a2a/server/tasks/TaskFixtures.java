@@ -0,0 +1,26 @@
+package io.a2a.server.tasks;
+
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+
+/**
+ * The tasks saved by the tests of the task stores.
+ */
+final class TaskFixtures {
+
+    private TaskFixtures() {
+    }
+
+    static Task task(String id, TaskState state) {
+        return task(id, "context", state);
+    }
+
+    static Task task(String id, String contextId, TaskState state) {
+        return new Task.Builder()
+                .id(id)
+                .contextId(contextId)
+                .status(new TaskStatus(state))
+                .build();
+    }
+}
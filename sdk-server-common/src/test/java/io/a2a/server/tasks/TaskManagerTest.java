@@ -1,15 +1,23 @@
 package io.a2a.server.tasks;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.a2a.spec.A2AServerException;
 import io.a2a.spec.Artifact;
+import io.a2a.spec.Event;
 import io.a2a.spec.Message;
 import io.a2a.spec.Task;
 import io.a2a.spec.TaskArtifactUpdateEvent;
@@ -175,4 +183,259 @@ public class TaskManagerTest {
         Task retrieved = taskManagerWithoutId.getTask();
         assertNull(retrieved);
     }
+
+    @Test
+    public void testSavesToAnAsyncStoreAreWrittenInOrderWithoutWaiting() throws A2AServerException {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        AsyncInMemoryTaskStore asyncStore = new AsyncInMemoryTaskStore(writes);
+        asyncStore.save(minimalTask);
+        TaskManager manager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), asyncStore, null);
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        TaskStatus completed = new TaskStatus(TaskState.COMPLETED);
+        manager.process(new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null));
+        manager.process(new TaskStatusUpdateEvent(minimalTask.getId(), completed, minimalTask.getContextId(), true, null));
+        assertSame(completed, manager.getTask().getStatus());
+        // The second save waits for the first to be written
+        assertEquals(1, writes.size());
+        assertSame(minimalTask, asyncStore.get(minimalTask.getId()));
+
+        writes.get(0).complete(null);
+        assertSame(working, asyncStore.get(minimalTask.getId()).getStatus());
+        assertEquals(2, writes.size());
+        assertFalse(manager.savesCompleted().toCompletableFuture().isDone());
+
+        writes.get(1).complete(null);
+        assertSame(completed, asyncStore.get(minimalTask.getId()).getStatus());
+        assertTrue(manager.savesCompleted().toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void testProcessAllAsyncReadsTheTaskWithoutBlocking() throws Exception {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        CompletableFuture<Task> read = new CompletableFuture<>();
+        AsyncInMemoryTaskStore asyncStore = new AsyncInMemoryTaskStore(writes) {
+            @Override
+            public CompletionStage<Task> getAsync(String taskId) {
+                return read;
+            }
+        };
+        TaskManager manager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), asyncStore, null);
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        CompletableFuture<List<Task>> processed = manager.processAllAsync(List.of(
+                new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null)),
+                null).toCompletableFuture();
+        assertFalse(processed.isDone());
+
+        read.complete(minimalTask);
+        assertSame(working, processed.get().get(0).getStatus());
+        assertEquals(minimalTask.getContextId(), processed.get().get(0).getContextId());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void testSupersededSaveFailureDoesNotFailLaterSaves() throws A2AServerException {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        AsyncInMemoryTaskStore asyncStore = new AsyncInMemoryTaskStore(writes);
+        asyncStore.save(minimalTask);
+        TaskManager manager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), asyncStore, null);
+
+        TaskStatus completed = new TaskStatus(TaskState.COMPLETED);
+        manager.process(new TaskStatusUpdateEvent(minimalTask.getId(), new TaskStatus(TaskState.WORKING),
+                minimalTask.getContextId(), false, null));
+        manager.process(new TaskStatusUpdateEvent(minimalTask.getId(), completed, minimalTask.getContextId(), true, null));
+
+        writes.get(0).completeExceptionally(new TaskStoreException("Failed"));
+        assertEquals(2, writes.size());
+        writes.get(1).complete(null);
+        assertTrue(manager.savesCompleted().toCompletableFuture().isDone());
+        assertFalse(manager.savesCompleted().toCompletableFuture().isCompletedExceptionally());
+        assertSame(completed, asyncStore.get(minimalTask.getId()).getStatus());
+    }
+
+    @Test
+    public void testProcessAllSavesOnce() throws A2AServerException {
+        AtomicInteger saves = new AtomicInteger();
+        TaskStore countingStore = new InMemoryTaskStore() {
+            @Override
+            public void save(Task task) {
+                saves.incrementAndGet();
+                super.save(task);
+            }
+
+            @Override
+            public long save(Task task, long expectedVersion) {
+                saves.incrementAndGet();
+                return super.save(task, expectedVersion);
+            }
+        };
+        countingStore.save(minimalTask);
+        saves.set(0);
+        TaskManager manager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), countingStore, null);
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        Artifact artifact = new Artifact.Builder()
+                .artifactId("artifact-id")
+                .parts(Collections.singletonList(new TextPart("content")))
+                .build();
+        List<Event> events = List.of(
+                new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null),
+                new TaskArtifactUpdateEvent.Builder()
+                        .taskId(minimalTask.getId())
+                        .contextId(minimalTask.getContextId())
+                        .artifact(artifact)
+                        .build());
+        manager.processAll(events);
+
+        assertEquals(1, saves.get());
+        Task saved = countingStore.get(minimalTask.getId());
+        assertSame(saved, manager.getTask());
+        assertSame(working, saved.getStatus());
+        assertEquals(List.of(artifact), saved.getArtifacts());
+    }
+
+    @Test
+    public void testArtifactChunksUpdateTheMatchingArtifact() throws A2AServerException {
+        taskStore.save(minimalTask);
+        for (String id : List.of("a", "b", "c")) {
+            taskManager.saveTaskEvent(artifactChunk(id, id + "1", false));
+        }
+        taskManager.saveTaskEvent(artifactChunk("b", "b2", true));
+        // Replacing the task replaces the artifacts the chunks are matched against
+        Task replaced = new Task.Builder(taskManager.getTask())
+                .artifacts(List.of(taskManager.getTask().getArtifacts().get(2)))
+                .build();
+        taskManager.process(replaced);
+        taskManager.saveTaskEvent(artifactChunk("c", "c2", true));
+        taskManager.saveTaskEvent(artifactChunk("a", "a2", true));
+        taskManager.saveTaskEvent(artifactChunk("d", "d1", false));
+
+        List<Artifact> artifacts = taskManager.getTask().getArtifacts();
+        assertEquals(2, artifacts.size());
+        assertEquals("c", artifacts.get(0).artifactId());
+        assertEquals(2, artifacts.get(0).parts().size());
+        assertEquals("c2", ((TextPart) artifacts.get(0).parts().get(1)).getText());
+        assertEquals("d", artifacts.get(1).artifactId());
+    }
+
+    private TaskArtifactUpdateEvent artifactChunk(String artifactId, String text, boolean append) {
+        return new TaskArtifactUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .artifact(new Artifact.Builder()
+                        .artifactId(artifactId)
+                        .parts(new TextPart(text))
+                        .build())
+                .append(append)
+                .build();
+    }
+
+    // Writes each task once the write it started is completed by the test
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws A2AServerException {
+        taskStore.save(minimalTask);
+        TaskManager first = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), taskStore, null);
+        TaskManager second = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), taskStore, null);
+        assertSame(minimalTask, first.getTask());
+        assertSame(minimalTask, second.getTask());
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        second.process(new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null));
+        // Applied to the task the second manager saved, rather than to the one the first manager read
+        Artifact artifact = new Artifact.Builder()
+                .artifactId("artifact-id")
+                .parts(Collections.singletonList(new TextPart("content")))
+                .build();
+        first.process(new TaskArtifactUpdateEvent.Builder()
+                .taskId(minimalTask.getId())
+                .contextId(minimalTask.getContextId())
+                .artifact(artifact)
+                .build());
+
+        Task saved = taskStore.get(minimalTask.getId());
+        assertSame(saved, first.getTask());
+        assertSame(working, saved.getStatus());
+        assertEquals(List.of(artifact), saved.getArtifacts());
+        assertEquals(3, ((InMemoryTaskStore) taskStore).getVersioned(minimalTask.getId()).version());
+    }
+
+    // A subscriber applies the events the primary task manager saved to its own copy of the task only
+    @Test
+    public void testTaskManagerWithoutSavingDoesNotApplyEventsTwice() throws A2AServerException {
+        taskStore.save(minimalTask);
+        TaskManager subscriber = TaskManager.withoutSaving(minimalTask, taskStore);
+        AtomicInteger snapshots = new AtomicInteger();
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        List<Event> events = List.of(
+                new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null),
+                artifactChunk("a", "a1", false),
+                artifactChunk("a", "a2", true));
+        taskManager.processAll(events);
+        Task saved = taskStore.get(minimalTask.getId());
+        subscriber.processAll(events, task -> snapshots.incrementAndGet());
+
+        assertSame(saved, taskStore.get(minimalTask.getId()));
+        assertEquals(2, ((InMemoryTaskStore) taskStore).getVersioned(minimalTask.getId()).version());
+        assertEquals(0, snapshots.get());
+        Task applied = subscriber.getTask();
+        assertSame(working, applied.getStatus());
+        assertEquals(saved.getArtifacts(), applied.getArtifacts());
+        assertEquals(2, applied.getArtifacts().get(0).parts().size());
+    }
+
+    @Test
+    public void testTaskCreatedConcurrentlyIsNotReplaced() throws A2AServerException {
+        InMemoryTaskStore racingStore = new InMemoryTaskStore() {
+            private boolean raced;
+
+            @Override
+            public VersionedTask getVersioned(String taskId) {
+                VersionedTask stored = super.getVersioned(taskId);
+                if (!raced) {
+                    // Created by another writer right after it was found not to exist
+                    raced = true;
+                    save(minimalTask);
+                }
+                return stored;
+            }
+        };
+        TaskManager manager = new TaskManager(minimalTask.getId(), minimalTask.getContextId(), racingStore,
+                new Message.Builder().role(Message.Role.USER).parts(new TextPart("ignored")).build());
+
+        TaskStatus working = new TaskStatus(TaskState.WORKING);
+        manager.process(new TaskStatusUpdateEvent(minimalTask.getId(), working, minimalTask.getContextId(), false, null));
+
+        Task saved = racingStore.get(minimalTask.getId());
+        assertSame(working, saved.getStatus());
+        assertEquals(minimalTask.getHistory(), saved.getHistory());
+        assertEquals(2, racingStore.getVersioned(minimalTask.getId()).version());
+    }
+
+    private static class AsyncInMemoryTaskStore extends InMemoryTaskStore implements AsyncTaskStore {
+        private final List<CompletableFuture<Void>> writes;
+
+        AsyncInMemoryTaskStore(List<CompletableFuture<Void>> writes) {
+            this.writes = writes;
+        }
+
+        @Override
+        public CompletionStage<Void> saveAsync(Task task) {
+            CompletableFuture<Void> write = new CompletableFuture<>();
+            writes.add(write);
+            return write.thenRun(() -> save(task));
+        }
+
+        @Override
+        public CompletionStage<Task> getAsync(String taskId) {
+            return CompletableFuture.completedFuture(get(taskId));
+        }
+
+        @Override
+        public CompletionStage<Void> deleteAsync(String taskId) {
+            delete(taskId);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 }
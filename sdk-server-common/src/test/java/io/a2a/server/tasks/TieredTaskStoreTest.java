@@ -0,0 +1,243 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TieredTaskStoreTest {
+
+    private final AtomicInteger delegateGets = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+    private InMemoryTaskStore delegate;
+
+    @BeforeEach
+    public void init() {
+        delegateGets.set(0);
+        delegate = new InMemoryTaskStore() {
+            @Override
+            public Task get(String taskId) {
+                delegateGets.incrementAndGet();
+                return super.get(taskId);
+            }
+        };
+    }
+
+    @Test
+    public void testReadsAreServedFromTheCache() {
+        Task stored = task("a", TaskState.WORKING);
+        delegate.save(stored);
+        TieredTaskStore store = new TieredTaskStore(delegate, TieredTaskStoreOptions.DEFAULT, now::get);
+
+        assertSame(stored, store.get("a"));
+        assertSame(stored, store.get("a"));
+        Task saved = task("a", TaskState.COMPLETED);
+        store.save(saved);
+        assertSame(saved, store.get("a"));
+        assertSame(saved, delegate.get("a"));
+
+        assertEquals(2, delegateGets.get());
+        assertEquals(2, store.getMetrics().getHitCount());
+        assertEquals(1, store.getMetrics().getMissCount());
+    }
+
+    @Test
+    public void testMissesAreCachedForTheirTtl() {
+        TieredTaskStore store = new TieredTaskStore(delegate, new TieredTaskStoreOptions.Builder()
+                .negativeCacheTtl(Duration.ofSeconds(1))
+                .build(), now::get);
+        assertNull(store.get("a"));
+        assertNull(store.get("a"));
+        assertEquals(1, delegateGets.get());
+        assertEquals(1, store.getMetrics().getNegativeHitCount());
+
+        // Saved elsewhere meanwhile, which is seen once the miss expires
+        delegate.save(task("a", TaskState.SUBMITTED));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("a", store.get("a").getId());
+
+        store.delete("a");
+        assertNull(store.get("a"));
+        assertEquals(2, delegateGets.get());
+    }
+
+    @Test
+    public void testTasksNotReadAreEvictedFirst() {
+        TieredTaskStore store = new TieredTaskStore(delegate, new TieredTaskStoreOptions.Builder()
+                .maxCachedTasks(2)
+                .build(), now::get);
+        store.save(task("a", TaskState.WORKING));
+        store.save(task("b", TaskState.WORKING));
+        store.get("a");
+        store.save(task("c", TaskState.WORKING));
+        assertEquals(1, store.getMetrics().getEvictionCount());
+
+        store.get("a");
+        store.get("c");
+        assertEquals(0, delegateGets.get());
+        store.get("b");
+        assertEquals(1, delegateGets.get());
+    }
+
+    @Test
+    public void testGetAllReadsMissesAtOnce() {
+        AtomicInteger delegateGetAlls = new AtomicInteger();
+        InMemoryTaskStore delegate = new InMemoryTaskStore() {
+            @Override
+            public Map<String, Task> getAll(Collection<String> taskIds) {
+                delegateGetAlls.incrementAndGet();
+                return super.getAll(taskIds);
+            }
+        };
+        Task a = task("a", TaskState.WORKING);
+        Task b = task("b", TaskState.WORKING);
+        delegate.save(a);
+        delegate.save(b);
+        TieredTaskStore store = new TieredTaskStore(delegate, TieredTaskStoreOptions.DEFAULT, now::get);
+        store.get("a");
+
+        assertEquals(List.of("b", "a"), List.copyOf(store.getAll(List.of("b", "missing", "a")).keySet()));
+        assertEquals(1, delegateGetAlls.get());
+        assertEquals(3, store.getMetrics().getMissCount());
+
+        // All served from the cache now, the missing task included
+        assertEquals(Map.of("a", a, "b", b), store.getAll(List.of("a", "b", "missing")));
+        assertEquals(1, delegateGetAlls.get());
+        assertEquals(1, store.getMetrics().getNegativeHitCount());
+    }
+
+    @Test
+    public void testHistoryLengthReadsAreNotCached() {
+        Message message = new Message.Builder()
+                .messageId("message-1")
+                .role(Message.Role.USER)
+                .parts(new TextPart("text"))
+                .build();
+        Task stored = new Task.Builder(task("a", TaskState.WORKING)).history(message, message).build();
+        delegate.save(stored);
+        TieredTaskStore store = new TieredTaskStore(delegate, TieredTaskStoreOptions.DEFAULT, now::get);
+
+        assertEquals(List.of(message), store.get("a", 1).getHistory());
+        assertEquals(1, store.getMetrics().getMissCount());
+        // Read whole, and cached, since the read of only part of the history was not
+        assertSame(stored, store.get("a"));
+        assertEquals(List.of(), store.get("a", 0).getHistory());
+        assertEquals(2, store.getMetrics().getMissCount());
+        assertEquals(1, store.getMetrics().getHitCount());
+    }
+
+    @Test
+    public void testWriteBehind() {
+        TieredTaskStore store = new TieredTaskStore(delegate, new TieredTaskStoreOptions.Builder()
+                .writeMode(TieredTaskStoreOptions.WriteMode.WRITE_BEHIND)
+                .writeBehindOptions(new WriteBehindOptions.Builder().maxDelay(Duration.ofHours(1)).build())
+                .build(), now::get);
+        Task task = task("a", TaskState.WORKING);
+        store.save(task);
+        assertSame(task, store.get("a"));
+        assertNull(delegate.get("a"));
+
+        store.close();
+        assertSame(task, delegate.get("a"));
+    }
+
+    @Test
+    public void testConcurrentSavesLeaveTheLastWrittenTaskCached() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Task first = task("a", TaskState.WORKING);
+        InMemoryTaskStore slow = new InMemoryTaskStore() {
+            @Override
+            public void save(Task task) {
+                super.save(task);
+                if (task == first) {
+                    written.countDown();
+                    try {
+                        // Holds the first save up after it is written, as long as the second can be made
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        TieredTaskStore store = new TieredTaskStore(slow, TieredTaskStoreOptions.DEFAULT, now::get);
+        Task second = task("a", TaskState.COMPLETED);
+
+        Thread firstSave = new Thread(() -> store.save(first));
+        firstSave.start();
+        written.await(5, TimeUnit.SECONDS);
+        Thread secondSave = new Thread(() -> store.save(second));
+        secondSave.start();
+        Thread.sleep(50);
+        release.countDown();
+        firstSave.join(5000);
+        secondSave.join(5000);
+
+        assertSame(second, slow.get("a"));
+        assertSame(second, store.get("a"));
+    }
+
+    @Test
+    public void testSaveAllHasTheTasksReadAgain() {
+        TieredTaskStore store = new TieredTaskStore(delegate, TieredTaskStoreOptions.DEFAULT, now::get);
+        store.save(task("a", TaskState.WORKING));
+        Task saved = task("a", TaskState.COMPLETED);
+        store.saveAll(List.of(saved));
+
+        assertSame(saved, store.get("a"));
+        assertEquals(1, delegateGets.get());
+        assertSame(saved, store.get("a"));
+        assertEquals(1, delegateGets.get());
+    }
+
+    @Test
+    public void testForwardsVersionedSaves() {
+        assertFalse(TieredTaskStore.of(delegate, new TieredTaskStoreOptions.Builder()
+                .writeMode(TieredTaskStoreOptions.WriteMode.WRITE_BEHIND)
+                .build()) instanceof VersionedTaskStore);
+        TieredTaskStore tiered = TieredTaskStore.of(delegate, TieredTaskStoreOptions.DEFAULT, now::get);
+        VersionedTaskStore store = assertInstanceOf(VersionedTaskStore.class, tiered);
+
+        Task created = task("a", TaskState.SUBMITTED);
+        long version = store.save(created, VersionedTaskStore.NO_VERSION);
+        assertEquals(version, delegate.getVersioned("a").version());
+        VersionedTask read = store.getVersioned("a");
+        assertSame(created, read.task());
+        assertEquals(version, read.version());
+        assertEquals(1, tiered.getMetrics().getHitCount());
+
+        assertThrows(TaskVersionConflictException.class,
+                () -> store.save(task("a", TaskState.WORKING), VersionedTaskStore.NO_VERSION));
+        assertSame(created, store.get("a"));
+        Task updated = task("a", TaskState.COMPLETED);
+        long next = store.save(updated, version);
+        assertEquals(next, store.getVersioned("a").version());
+        assertSame(updated, delegate.get("a"));
+
+        // Saved without a version, so the version is read from the decorated store
+        Task overwritten = task("a", TaskState.FAILED);
+        store.save(overwritten);
+        assertEquals(delegate.getVersioned("a").version(), store.getVersioned("a").version());
+        assertSame(overwritten, store.getVersioned("a").task());
+    }
+}
@@ -0,0 +1,183 @@
+package io.a2a.server.tasks;
+
+import static io.a2a.server.tasks.TaskFixtures.task;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TextPart;
+import io.a2a.util.AppendOnlyList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WriteBehindTaskStoreTest {
+
+    private final List<List<Task>> batches = new ArrayList<>();
+    private InMemoryTaskStore delegate;
+
+    @BeforeEach
+    public void init() {
+        batches.clear();
+        delegate = new InMemoryTaskStore() {
+            @Override
+            public void saveAll(List<Task> tasks) {
+                batches.add(List.copyOf(tasks));
+                super.saveAll(tasks);
+            }
+        };
+    }
+
+    @Test
+    public void testSavesOfATaskAreCoalesced() {
+        WriteBehindTaskStore store = new WriteBehindTaskStore(delegate, new WriteBehindOptions.Builder()
+                .maxDelay(Duration.ofHours(1))
+                .build());
+        store.save(task("a", TaskState.SUBMITTED));
+        store.save(task("a", TaskState.WORKING));
+        Task latest = task("a", TaskState.INPUT_REQUIRED);
+        store.save(latest);
+        assertNull(delegate.get("a"));
+
+        // Reads see the latest save, without writing it
+        assertSame(latest, store.get("a"));
+        assertEquals(List.of(), batches);
+        // Listing writes it
+        assertEquals(List.of(latest), store.list(null, null, null, 10).tasks());
+        assertEquals(List.of(List.of(latest)), batches);
+        assertEquals(3, store.getMetrics().getSaveCount());
+        assertEquals(2, store.getMetrics().getCoalescedSaveCount());
+        assertEquals(1, store.getMetrics().getFlushCount());
+        store.close();
+    }
+
+    @Test
+    public void testReadsServeBufferedTasksFirst() {
+        WriteBehindTaskStore store = new WriteBehindTaskStore(delegate, new WriteBehindOptions.Builder()
+                .maxDelay(Duration.ofHours(1))
+                .build());
+        Message last = message("3");
+        Task stored = new Task.Builder(task("a", TaskState.WORKING))
+                .history(List.of(message("1"), message("2")))
+                .build();
+        delegate.save(stored);
+        Task buffered = new Task.Builder(stored)
+                .history(AppendOnlyList.append(stored.getHistory(), last))
+                .build();
+        store.save(buffered);
+        Task other = task("b", TaskState.WORKING);
+        delegate.save(other);
+
+        assertSame(buffered, store.get("a"));
+        assertEquals(List.of(last), store.get("a", 1).getHistory());
+        assertEquals(List.of("b", "a"), List.copyOf(store.getAll(List.of("b", "a", "c")).keySet()));
+        assertSame(buffered, store.getAll(List.of("a", "b")).get("a"));
+        assertEquals(0, store.getMetrics().getFlushCount());
+        assertSame(stored, delegate.get("a"));
+        store.close();
+    }
+
+    @Test
+    public void testTaskBeingWrittenIsReadFromTheBuffer() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        InMemoryTaskStore slow = new InMemoryTaskStore() {
+            @Override
+            public void saveAll(List<Task> tasks) {
+                writing.countDown();
+                try {
+                    written.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.saveAll(tasks);
+            }
+        };
+        WriteBehindTaskStore store = new WriteBehindTaskStore(slow, new WriteBehindOptions.Builder()
+                .maxDelay(Duration.ofHours(1))
+                .build());
+        Task task = task("a", TaskState.WORKING);
+        store.save(task);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(store::flush);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        assertNull(slow.get("a"));
+        assertSame(task, store.get("a"));
+        written.countDown();
+        flush.get(10, TimeUnit.SECONDS);
+        assertSame(task, store.get("a"));
+        assertSame(task, slow.get("a"));
+        store.close();
+    }
+
+    @Test
+    public void testFlushesOnFinalStateAndBatchSize() {
+        WriteBehindTaskStore store = new WriteBehindTaskStore(delegate, new WriteBehindOptions.Builder()
+                .maxBatchSize(2)
+                .maxDelay(Duration.ofHours(1))
+                .build());
+        store.save(task("a", TaskState.WORKING));
+        Task completed = task("b", TaskState.COMPLETED);
+        store.save(completed);
+        assertSame(completed, delegate.get("b"));
+        assertEquals(1, batches.size());
+
+        store.save(task("c", TaskState.WORKING));
+        store.save(task("d", TaskState.WORKING));
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(1).size());
+        assertEquals(2, store.getMetrics().getMaxBatchSize());
+        store.close();
+    }
+
+    @Test
+    public void testFlushesAfterMaxDelay() throws Exception {
+        WriteBehindTaskStore store = new WriteBehindTaskStore(delegate, new WriteBehindOptions.Builder()
+                .maxDelay(Duration.ofMillis(10))
+                .build());
+        Task task = task("a", TaskState.WORKING);
+        store.save(task);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delegate.get("a") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertSame(task, delegate.get("a"));
+        store.close();
+    }
+
+    @Test
+    public void testDeleteDropsBufferedTaskAndCloseFlushes() {
+        WriteBehindTaskStore store = new WriteBehindTaskStore(delegate, new WriteBehindOptions.Builder()
+                .maxDelay(Duration.ofHours(1))
+                .build());
+        store.save(task("a", TaskState.WORKING));
+        store.delete("a");
+        Task kept = task("b", TaskState.WORKING);
+        store.save(kept);
+        store.close();
+
+        assertNull(delegate.get("a"));
+        assertSame(kept, delegate.get("b"));
+        assertEquals(1, store.getMetrics().getFlushCount());
+        assertThrows(IllegalStateException.class, () -> store.save(kept));
+    }
+
+    private static Message message(String id) {
+        return new Message.Builder()
+                .messageId(id)
+                .role(Message.Role.USER)
+                .parts(new TextPart("text " + id))
+                .build();
+    }
+}
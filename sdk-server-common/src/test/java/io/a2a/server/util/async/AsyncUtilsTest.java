@@ -3,6 +3,7 @@ package io.a2a.server.util.async;
 import static io.a2a.server.util.async.AsyncUtils.consumer;
 import static io.a2a.server.util.async.AsyncUtils.convertingProcessor;
 import static io.a2a.server.util.async.AsyncUtils.createTubeConfig;
+import static io.a2a.server.util.async.AsyncUtils.onTermination;
 import static io.a2a.server.util.async.AsyncUtils.processor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -690,5 +692,39 @@ public class AsyncUtilsTest {
         latch.await(2, TimeUnit.SECONDS);
         assertEquals(6, results.size());
     }
-    
+
+    @Test
+    public void testOnTerminationRunsOnceWhenCancelled() throws Exception {
+        Flow.Publisher<String> source = ZeroPublisher.fromItems("a", "b", "c");
+        AtomicInteger terminations = new AtomicInteger();
+        List<String> received = new ArrayList<>();
+
+        onTermination(source, terminations::incrementAndGet).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(String item) {
+                received.add(item);
+                subscription.cancel();
+                subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEquals(List.of("a"), received);
+        assertEquals(1, terminations.get());
+    }
 }
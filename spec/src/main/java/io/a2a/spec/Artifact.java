@@ -5,6 +5,7 @@ import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import io.a2a.util.AppendOnlyList;
 import io.a2a.util.Assert;
 
 /**
@@ -67,6 +68,14 @@ public record Artifact(String artifactId, String name, String description, List<
             return this;
         }
 
+        /**
+         * Adds parts to the end of the parts, sharing the existing ones rather than copying them.
+         */
+        public Builder appendParts(List<Part<?>> parts) {
+            this.parts = AppendOnlyList.appendAll(this.parts, parts);
+            return this;
+        }
+
         public Builder metadata(Map<String, Object> metadata) {
             this.metadata = metadata;
             return this;
@@ -4,8 +4,8 @@ import java.io.IOException;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 public class FileContentDeserializer extends StdDeserializer<FileContent> {
@@ -18,21 +18,59 @@ public class FileContentDeserializer extends StdDeserializer<FileContent> {
         super(vc);
     }
 
+    /**
+     * Reads the fields of the file one token at a time rather than as a tree, so that the content of a file
+     * with bytes is read once, as the string it is held as.
+     */
     @Override
     public FileContent deserialize(JsonParser jsonParser, DeserializationContext context)
             throws IOException, JsonProcessingException {
-        JsonNode node = jsonParser.getCodec().readTree(jsonParser);
-        JsonNode mimeType = node.get("mimeType");
-        JsonNode name = node.get("name");
-        JsonNode bytes = node.get("bytes");
-        if (bytes != null) {
-            return new FileWithBytes(mimeType != null ? mimeType.asText() : null,
-                    name != null ? name.asText() : null, bytes.asText());
-        } else if (node.has("uri")) {
-            return new FileWithUri(mimeType != null ? mimeType.asText() : null,
-                    name != null ? name.asText() : null, node.get("uri").asText());
+        if (jsonParser.currentToken() == JsonToken.START_OBJECT) {
+            jsonParser.nextToken();
+        }
+        String mimeType = null;
+        String name = null;
+        String bytes = null;
+        String uri = null;
+        boolean hasBytes = false;
+        boolean hasUri = false;
+        for (; jsonParser.currentToken() == JsonToken.FIELD_NAME; jsonParser.nextToken()) {
+            String field = jsonParser.currentName();
+            JsonToken value = jsonParser.nextToken();
+            switch (field) {
+                case "mimeType" -> mimeType = text(jsonParser, value);
+                case "name" -> name = text(jsonParser, value);
+                case "bytes" -> {
+                    bytes = text(jsonParser, value);
+                    hasBytes = true;
+                }
+                case "uri" -> {
+                    uri = text(jsonParser, value);
+                    hasUri = true;
+                }
+                default -> jsonParser.skipChildren();
+            }
+        }
+        if (jsonParser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Invalid file format: expected an object");
+        }
+        if (hasBytes) {
+            return new FileWithBytes(mimeType, name, bytes);
+        } else if (hasUri) {
+            return new FileWithUri(mimeType, name, uri);
         } else {
             throw new IOException("Invalid file format: missing 'bytes' or 'uri'");
         }
     }
+
+    private static String text(JsonParser jsonParser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isStructStart()) {
+            jsonParser.skipChildren();
+            return "";
+        }
+        return jsonParser.getText();
+    }
 }
@@ -1,9 +1,228 @@
 package io.a2a.spec;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.a2a.util.Assert;
 
-@JsonInclude(JsonInclude.Include.NON_ABSENT)
+/**
+ * A file whose content is carried inline, base64 encoded.
+ * <p>
+ * The content is either held as a string, or read from a source of its base64 text each time it is used,
+ * such as a file, so that large content can be passed on without being held in memory. Either way,
+ * {@link #openStream()} and {@link #openChannel()} decode the content as it is read, and it is serialized
+ * by streaming its text, whereas {@link #bytes()} reads content from a source into a string.
+ * <p>
+ * Files whose content is held are equal if their content is. Files whose content is read from a source
+ * are only equal to files reading it from the same source, so that comparing them never reads it.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record FileWithBytes(String mimeType, String name, String bytes) implements FileContent {
+@JsonSerialize(using = FileWithBytesSerializer.class)
+public final class FileWithBytes implements FileContent {
+
+    /**
+     * Opens the base64 text of the content of a file, as ASCII bytes.
+     */
+    @FunctionalInterface
+    public interface EncodedSource {
+        InputStream open() throws IOException;
+    }
+
+    // The number of content bytes encoded at once, a multiple of 3 so that no padding is written midway
+    private static final int ENCODE_CHUNK_SIZE = 3 * 1024;
+
+    private final String mimeType;
+    private final String name;
+    private final String bytes;
+    private final EncodedSource source;
+
+    @JsonCreator
+    public FileWithBytes(@JsonProperty("mimeType") String mimeType, @JsonProperty("name") String name,
+                         @JsonProperty("bytes") String bytes) {
+        this.mimeType = mimeType;
+        this.name = name;
+        this.bytes = bytes;
+        this.source = null;
+    }
+
+    /**
+     * Creates a file whose base64 content is read from the source each time it is used.
+     */
+    public FileWithBytes(String mimeType, String name, EncodedSource source) {
+        Assert.checkNotNullParam("source", source);
+        this.mimeType = mimeType;
+        this.name = name;
+        this.bytes = null;
+        this.source = source;
+    }
+
+    /**
+     * Reads the content whole and holds its base64 encoding. The content is encoded in chunks as it is read,
+     * so that only its encoding is held whole, rather than its bytes as well.
+     */
+    public static FileWithBytes encode(String mimeType, String name, InputStream content) throws IOException {
+        Assert.checkNotNullParam("content", content);
+        Base64.Encoder encoder = Base64.getEncoder();
+        StringBuilder encoded = new StringBuilder();
+        byte[] chunk = new byte[ENCODE_CHUNK_SIZE];
+        int length;
+        while ((length = content.readNBytes(chunk, 0, chunk.length)) > 0) {
+            encoded.append(encoder.encodeToString(length == chunk.length ? chunk : Arrays.copyOf(chunk, length)));
+        }
+        return new FileWithBytes(mimeType, name, encoded.toString());
+    }
+
+    @Override
+    public String mimeType() {
+        return mimeType;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * The base64 content, read whole from its source if it has one.
+     *
+     * @throws UncheckedIOException if the source failed to be read
+     */
+    public String bytes() {
+        if (source == null) {
+            return bytes;
+        }
+        try (InputStream in = source.open()) {
+            return new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the content of file " + name, e);
+        }
+    }
+
+    /**
+     * Whether the content is read from a source each time it is used, rather than held.
+     */
+    public boolean isStreamed() {
+        return source != null;
+    }
+
+    /**
+     * Opens the base64 text of the content, as ASCII bytes, or returns {@code null} if there is none.
+     */
+    public InputStream openEncodedStream() throws IOException {
+        if (source != null) {
+            return source.open();
+        }
+        return bytes == null ? null : new AsciiInputStream(bytes);
+    }
+
+    /**
+     * Opens the content, decoded as it is read, or returns {@code null} if there is none.
+     */
+    public InputStream openStream() throws IOException {
+        InputStream encoded = openEncodedStream();
+        return encoded == null ? null : Base64.getDecoder().wrap(encoded);
+    }
+
+    /**
+     * Opens the content as a channel, decoded as it is read, or returns {@code null} if there is none.
+     */
+    public ReadableByteChannel openChannel() throws IOException {
+        InputStream decoded = openStream();
+        return decoded == null ? null : Channels.newChannel(decoded);
+    }
+
+    /**
+     * Writes the decoded content to the stream, returning the number of bytes written.
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        try (InputStream decoded = openStream()) {
+            return decoded == null ? 0 : decoded.transferTo(out);
+        }
+    }
+
+    /**
+     * Compares the content held, or else the identity of the source, which is not read.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileWithBytes that)) {
+            return false;
+        }
+        return Objects.equals(mimeType, that.mimeType) && Objects.equals(name, that.name)
+                && source == that.source && Objects.equals(bytes, that.bytes);
+    }
+
+    /**
+     * Leaves the content out, so that hashing a file takes constant time.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(mimeType, name, source);
+    }
+
+    @Override
+    public String toString() {
+        return "FileWithBytes[mimeType=" + mimeType + ", name=" + name + ", bytes="
+                + (source != null ? "<streamed>" : bytes) + "]";
+    }
+
+    // The chars of base64 text, which are all ASCII, as bytes
+    private static final class AsciiInputStream extends InputStream {
+        private final String text;
+        private int position;
+
+        private AsciiInputStream(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= text.length()) {
+                return -1;
+            }
+            int end = Math.min(text.length(), position + len);
+            for (int i = position; i < end; i++) {
+                b[off++] = (byte) text.charAt(i);
+            }
+            int read = end - position;
+            position = end;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, text.length() - position));
+            position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return text.length() - position;
+        }
+    }
 }
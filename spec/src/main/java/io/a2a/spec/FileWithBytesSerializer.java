@@ -0,0 +1,49 @@
+package io.a2a.spec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializes a {@link FileWithBytes} by streaming its base64 content to the generator, so that content read
+ * from a source is written without being held in memory whole.
+ */
+public class FileWithBytesSerializer extends StdSerializer<FileWithBytes> {
+
+    public FileWithBytesSerializer() {
+        this(null);
+    }
+
+    public FileWithBytesSerializer(Class<FileWithBytes> vc) {
+        super(vc);
+    }
+
+    @Override
+    public void serialize(FileWithBytes value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        if (value.mimeType() != null) {
+            gen.writeStringField("mimeType", value.mimeType());
+        }
+        if (value.name() != null) {
+            gen.writeStringField("name", value.name());
+        }
+        if (!value.isStreamed()) {
+            if (value.bytes() != null) {
+                gen.writeStringField("bytes", value.bytes());
+            }
+        } else {
+            gen.writeFieldName("bytes");
+            try (InputStream encoded = value.openEncodedStream();
+                 Reader reader = new InputStreamReader(encoded, StandardCharsets.ISO_8859_1)) {
+                gen.writeString(reader, -1);
+            }
+        }
+        gen.writeEndObject();
+    }
+}
@@ -41,6 +41,8 @@ public abstract class JSONRPCRequestDeserializerBase<T> extends StdDeserializer<
                 return new GetTaskPushNotificationConfigRequest(jsonrpc, id, method, getAndValidateParams(paramsNode, jsonParser, treeNode, TaskIdParams.class));
             case SendMessageRequest.METHOD:
                 return new SendMessageRequest(jsonrpc, id, method, getAndValidateParams(paramsNode, jsonParser, treeNode, MessageSendParams.class));
+            case ListTasksRequest.METHOD:
+                return new ListTasksRequest(jsonrpc, id, method, getAndValidateParams(paramsNode, jsonParser, treeNode, ListTasksParams.class));
             case TaskResubscriptionRequest.METHOD:
                 return new TaskResubscriptionRequest(jsonrpc, id, method, getAndValidateParams(paramsNode, jsonParser, treeNode, TaskIdParams.class));
             case SendStreamingMessageRequest.METHOD:
@@ -112,7 +114,8 @@ public abstract class JSONRPCRequestDeserializerBase<T> extends StdDeserializer<
                 || methodName.equals(SetTaskPushNotificationConfigRequest.METHOD)
                 || methodName.equals(TaskResubscriptionRequest.METHOD)
                 || methodName.equals(SendMessageRequest.METHOD)
-                || methodName.equals(SendStreamingMessageRequest.METHOD));
+                || methodName.equals(SendStreamingMessageRequest.METHOD)
+                || methodName.equals(ListTasksRequest.METHOD));
 
     }
 }
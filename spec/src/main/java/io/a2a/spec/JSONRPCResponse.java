@@ -14,7 +14,7 @@ import io.a2a.util.Assert;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public abstract sealed class JSONRPCResponse<T> implements JSONRPCMessage permits SendStreamingMessageResponse,
         GetTaskResponse, CancelTaskResponse, SetTaskPushNotificationConfigResponse, GetTaskPushNotificationConfigResponse,
-        SendMessageResponse, JSONRPCErrorResponse {
+        SendMessageResponse, ListTasksResponse, JSONRPCErrorResponse {
 
     protected String jsonrpc;
     protected Object id;
@@ -0,0 +1,35 @@
+package io.a2a.spec;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Parameters listing tasks, a page at a time.
+ *
+ * @param contextId the ID of the context of the tasks to list, or {@code null} for tasks of any context
+ * @param state the state of the tasks to list, or {@code null} for tasks in any state
+ * @param cursor the {@link ListTasksResult#nextCursor()} of the previous page, or {@code null} for the first page
+ * @param pageSize the maximum number of tasks to list, or {@code null} for the server's default
+ * @param metadata additional properties
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ListTasksParams(String contextId, TaskState state, String cursor, Integer pageSize,
+                              Map<String, Object> metadata) {
+
+    public ListTasksParams {
+        if (pageSize != null && pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page size");
+        }
+    }
+
+    public ListTasksParams(String contextId, TaskState state) {
+        this(contextId, state, null, null, null);
+    }
+
+    public ListTasksParams(String contextId, TaskState state, String cursor, Integer pageSize) {
+        this(contextId, state, cursor, pageSize, null);
+    }
+}
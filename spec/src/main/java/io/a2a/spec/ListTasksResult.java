@@ -0,0 +1,22 @@
+package io.a2a.spec;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.a2a.util.Assert;
+
+/**
+ * A page of the tasks listed by a {@link ListTasksRequest}.
+ *
+ * @param tasks the tasks of the page, in the order the server lists them
+ * @param nextCursor the cursor to list the next page with, or {@code null} if this is the last page
+ */
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ListTasksResult(List<Task> tasks, String nextCursor) {
+
+    public ListTasksResult {
+        Assert.checkNotNullParam("tasks", tasks);
+    }
+}
@@ -12,5 +12,5 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 @JsonDeserialize(using = NonStreamingJSONRPCRequestDeserializer.class)
 public abstract sealed class NonStreamingJSONRPCRequest<T> extends JSONRPCRequest<T> permits GetTaskRequest,
         CancelTaskRequest, SetTaskPushNotificationConfigRequest, GetTaskPushNotificationConfigRequest,
-        SendMessageRequest {
+        SendMessageRequest, ListTasksRequest {
 }
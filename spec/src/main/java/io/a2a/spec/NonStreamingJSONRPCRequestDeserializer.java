@@ -42,6 +42,9 @@ public class NonStreamingJSONRPCRequestDeserializer extends JSONRPCRequestDeseri
             case SendMessageRequest.METHOD:
                 return new SendMessageRequest(jsonrpc, id, method,
                         getAndValidateParams(paramsNode, jsonParser, treeNode, MessageSendParams.class));
+            case ListTasksRequest.METHOD:
+                return new ListTasksRequest(jsonrpc, id, method,
+                        getAndValidateParams(paramsNode, jsonParser, treeNode, ListTasksParams.class));
             default:
                 throw new MethodNotFoundJsonMappingException("Invalid method", getIdIfPossible(treeNode, jsonParser));
         }
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.a2a.util.AppendOnlyList;
 import io.a2a.util.Assert;
 
 /**
@@ -133,6 +134,22 @@ public final class Task implements EventKind, StreamingEventKind {
             return this;
         }
 
+        /**
+         * Adds a message to the end of the history, sharing the existing messages rather than copying them.
+         */
+        public Builder appendHistory(Message message) {
+            this.history = AppendOnlyList.append(history, message);
+            return this;
+        }
+
+        /**
+         * Adds an artifact to the end of the artifacts, sharing the existing ones rather than copying them.
+         */
+        public Builder appendArtifact(Artifact artifact) {
+            this.artifacts = AppendOnlyList.append(artifacts, artifact);
+            return this;
+        }
+
         public Builder metadata(Map<String, Object> metadata) {
             this.metadata = metadata;
             return this;
@@ -0,0 +1,346 @@
+package io.a2a.util;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An immutable list which shares its elements with the list it was appended to, so that appending to
+ * it takes amortized constant time rather than copying it.
+ * <p>
+ * The elements are held in an array shared by all the lists appended from one another. Appending to the
+ * longest of those lists writes to the free end of the array, whereas appending to any other list, or
+ * to a full array, copies the elements to a new array. Null elements are not permitted.
+ * <p>
+ * Replacing an element does not copy the list either: the elements replaced are held apart from the array,
+ * in a persistent trie which shares all but the path to the element replaced with the list it was replaced
+ * in, so that replacing takes near constant time, and the lists keep sharing their other elements.
+ */
+public final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final AppendOnlyList<?> EMPTY = new AppendOnlyList<>(new Storage(0), 0, null);
+
+    private final Storage storage;
+    private final int size;
+    // The elements replaced, which take precedence over those of the storage, or null if there are none
+    private final Overrides overrides;
+
+    private AppendOnlyList(Storage storage, int size, Overrides overrides) {
+        this.storage = storage;
+        this.size = size;
+        this.overrides = overrides;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> AppendOnlyList<E> of() {
+        return (AppendOnlyList<E>) EMPTY;
+    }
+
+    public static <E> AppendOnlyList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof AppendOnlyList<?> list) {
+            @SuppressWarnings("unchecked")
+            AppendOnlyList<E> result = (AppendOnlyList<E>) list;
+            return result;
+        }
+        return AppendOnlyList.<E>of().appendAll(elements);
+    }
+
+    /**
+     * Appends the element to the list, which may be {@code null} for an empty list. Only a list which
+     * is not an {@code AppendOnlyList} already is copied.
+     */
+    public static <E> AppendOnlyList<E> append(List<E> list, E element) {
+        return (list == null ? AppendOnlyList.<E>of() : copyOf(list)).append(element);
+    }
+
+    /**
+     * Appends the elements to the list, which may be {@code null} for an empty list. Only a list which
+     * is not an {@code AppendOnlyList} already is copied.
+     */
+    public static <E> AppendOnlyList<E> appendAll(List<E> list, Collection<? extends E> elements) {
+        return (list == null ? AppendOnlyList.<E>of() : copyOf(list)).appendAll(elements);
+    }
+
+    /**
+     * Returns the list, which may be any list, with the element at the index replaced. Only a list which is
+     * not an {@code AppendOnlyList} already is copied.
+     */
+    public static <E> AppendOnlyList<E> replace(List<E> list, int index, E element) {
+        Assert.checkNotNullParam("list", list);
+        return copyOf(list).replace(index, element);
+    }
+
+    /**
+     * Returns the list with the element at the index replaced, which shares the other elements with this
+     * list rather than copying them.
+     */
+    public AppendOnlyList<E> replace(int index, E element) {
+        Assert.checkNotNullParam("element", element);
+        Objects.checkIndex(index, size);
+        return new AppendOnlyList<>(storage, size, Overrides.with(overrides, index, element));
+    }
+
+    public AppendOnlyList<E> append(E element) {
+        Assert.checkNotNullParam("element", element);
+        Storage target = claim(1);
+        target.elements[size] = element;
+        return new AppendOnlyList<>(target, size + 1, target == storage ? overrides : null);
+    }
+
+    public AppendOnlyList<E> appendAll(Collection<? extends E> elements) {
+        Assert.checkNotNullParam("elements", elements);
+        Object[] added = elements.toArray();
+        if (added.length == 0) {
+            return this;
+        }
+        for (Object element : added) {
+            Assert.checkNotNullParam("element", element);
+        }
+        Storage target = claim(added.length);
+        System.arraycopy(added, 0, target.elements, size, added.length);
+        return new AppendOnlyList<>(target, size + added.length, target == storage ? overrides : null);
+    }
+
+    /**
+     * Whether the list starts with the same elements, rather than equal ones, as the other list. This takes
+     * constant time when the other list is an {@code AppendOnlyList} which this list was appended from
+     * without copying their elements, and otherwise compares the elements.
+     */
+    public boolean startsWith(List<?> prefix) {
+        Assert.checkNotNullParam("prefix", prefix);
+        return prefix.size() <= size && sharedPrefixLength(prefix) == prefix.size();
+    }
+
+    /**
+     * The number of leading elements which the list shares, by identity, with the other list. When the
+     * other list is an {@code AppendOnlyList} which this list was appended from or replaced elements of
+     * without copying their elements, this takes time proportional to the number of elements replaced
+     * since, and otherwise compares the elements.
+     */
+    public int sharedPrefixLength(List<?> other) {
+        Assert.checkNotNullParam("other", other);
+        int limit = Math.min(size, other.size());
+        // The elements of a storage are never overwritten, so the lists sharing it only differ in the
+        // elements they replaced
+        if (other instanceof AppendOnlyList<?> list && list.storage == storage) {
+            return Overrides.firstDifference(overrides, list.overrides, storage.elements, limit);
+        }
+        for (int i = 0; i < limit; i++) {
+            if (get(i) != other.get(i)) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * As {@link #startsWith(List)}, for a list which may be any list, or {@code null} for an empty list, as
+     * may the prefix.
+     */
+    public static boolean startsWith(List<?> list, List<?> prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return true;
+        }
+        if (list instanceof AppendOnlyList<?> appendOnly) {
+            return appendOnly.startsWith(prefix);
+        }
+        if (list == null || prefix.size() > list.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (list.get(i) != prefix.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * As {@link #sharedPrefixLength(List)}, for a list which may be any list, or {@code null} for an empty
+     * list, as may the other list.
+     */
+    public static int sharedPrefixLength(List<?> list, List<?> other) {
+        if (list == null || other == null) {
+            return 0;
+        }
+        if (list instanceof AppendOnlyList<?> appendOnly) {
+            return appendOnly.sharedPrefixLength(other);
+        }
+        if (other instanceof AppendOnlyList<?> appendOnly) {
+            return appendOnly.sharedPrefixLength(list);
+        }
+        int limit = Math.min(list.size(), other.size());
+        for (int i = 0; i < limit; i++) {
+            if (list.get(i) != other.get(i)) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        Object replaced = overrides == null ? null : overrides.get(index);
+        return (E) (replaced != null ? replaced : storage.elements[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Returns the storage to write the appended elements to, from index size onwards. A copy holds the
+    // elements replaced in place of those they replaced.
+    private Storage claim(int count) {
+        int required = size + count;
+        if (required <= storage.elements.length && storage.used.compareAndSet(size, required)) {
+            return storage;
+        }
+        Storage copy = new Storage(Math.max(MIN_CAPACITY, Math.max(required, size + (size >> 1))));
+        System.arraycopy(storage.elements, 0, copy.elements, 0, size);
+        if (overrides != null) {
+            overrides.copyTo(copy.elements, size);
+        }
+        copy.used.set(required);
+        return copy;
+    }
+
+    private static final class Storage {
+        private final Object[] elements;
+        // The number of elements written, which only the longest list sharing the storage may append to
+        private final AtomicInteger used = new AtomicInteger();
+
+        Storage(int capacity) {
+            this.elements = new Object[capacity];
+        }
+    }
+
+    // An immutable trie of the elements replaced, by their index. Replacing an element copies the nodes on
+    // its path only, so that the lists replaced from one another share their other nodes.
+    private static final class Overrides {
+        private static final int BITS = 5;
+        private static final int BRANCHING = 1 << BITS;
+        private static final int MASK = BRANCHING - 1;
+
+        private final Object[] root;
+        // The bits of the index above those selecting a slot of the leaves
+        private final int shift;
+
+        private Overrides(Object[] root, int shift) {
+            this.root = root;
+            this.shift = shift;
+        }
+
+        static Overrides with(Overrides overrides, int index, Object element) {
+            Object[] root = overrides == null ? new Object[BRANCHING] : overrides.root;
+            int shift = overrides == null ? 0 : overrides.shift;
+            while (shift + BITS < Integer.SIZE && index >>> (shift + BITS) != 0) {
+                Object[] parent = new Object[BRANCHING];
+                parent[0] = root;
+                root = parent;
+                shift += BITS;
+            }
+            return new Overrides(with(root, shift, index, element), shift);
+        }
+
+        private static Object[] with(Object[] node, int shift, int index, Object element) {
+            Object[] copy = node == null ? new Object[BRANCHING] : node.clone();
+            int slot = (index >>> shift) & MASK;
+            copy[slot] = shift == 0 ? element : with((Object[]) copy[slot], shift - BITS, index, element);
+            return copy;
+        }
+
+        Object get(int index) {
+            if (shift + BITS < Integer.SIZE && index >>> (shift + BITS) != 0) {
+                return null;
+            }
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(index >>> level) & MASK];
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node[index & MASK];
+        }
+
+        void copyTo(Object[] elements, int size) {
+            copyTo(root, shift, 0, elements, size);
+        }
+
+        private static void copyTo(Object[] node, int shift, int base, Object[] elements, int size) {
+            for (int slot = 0; slot < BRANCHING; slot++) {
+                long index = base + ((long) slot << shift);
+                if (index >= size) {
+                    break;
+                }
+                if (node[slot] == null) {
+                    continue;
+                }
+                if (shift == 0) {
+                    elements[(int) index] = node[slot];
+                } else {
+                    copyTo((Object[]) node[slot], shift - BITS, (int) index, elements, size);
+                }
+            }
+        }
+
+        // Returns the lowest index below the limit at which the elements of two lists sharing the elements
+        // differ, or the limit if there is none. Only the nodes which are not shared are visited.
+        static int firstDifference(Overrides a, Overrides b, Object[] elements, int limit) {
+            if (a == b) {
+                return limit;
+            }
+            int shift = Math.max(a == null ? 0 : a.shift, b == null ? 0 : b.shift);
+            return firstDifference(rooted(a, shift), rooted(b, shift), shift, 0, elements, limit);
+        }
+
+        // Returns the root of the trie raised to the shift, as the trie would have grown
+        private static Object[] rooted(Overrides overrides, int shift) {
+            if (overrides == null) {
+                return null;
+            }
+            Object[] root = overrides.root;
+            for (int level = overrides.shift; level < shift; level += BITS) {
+                Object[] parent = new Object[BRANCHING];
+                parent[0] = root;
+                root = parent;
+            }
+            return root;
+        }
+
+        private static int firstDifference(Object[] a, Object[] b, int shift, int base, Object[] elements,
+                                           int limit) {
+            for (int slot = 0; slot < BRANCHING; slot++) {
+                long index = base + ((long) slot << shift);
+                if (index >= limit) {
+                    break;
+                }
+                Object left = a == null ? null : a[slot];
+                Object right = b == null ? null : b[slot];
+                if (left == right) {
+                    continue;
+                }
+                if (shift > 0) {
+                    int difference = firstDifference((Object[]) left, (Object[]) right, shift - BITS, (int) index,
+                            elements, limit);
+                    if (difference < limit) {
+                        return difference;
+                    }
+                } else {
+                    Object shared = elements[(int) index];
+                    if ((left != null ? left : shared) != (right != null ? right : shared)) {
+                        return (int) index;
+                    }
+                }
+            }
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.a2a.spec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.a2a.util.Utils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileWithBytesTest {
+
+    private static final byte[] CONTENT = new byte[10_000];
+
+    static {
+        new Random(42).nextBytes(CONTENT);
+    }
+
+    @Test
+    public void testContentIsDecodedAsItIsRead() throws Exception {
+        FileWithBytes file = new FileWithBytes("application/octet-stream", "data.bin",
+                Base64.getEncoder().encodeToString(CONTENT));
+        try (InputStream in = file.openStream()) {
+            assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReadableByteChannel channel = file.openChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(1000);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                out.write(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            }
+        }
+        assertArrayEquals(CONTENT, out.toByteArray());
+    }
+
+    @Test
+    public void testContentIsEncodedInChunks() throws Exception {
+        FileWithBytes file = FileWithBytes.encode("application/octet-stream", "data.bin",
+                new ByteArrayInputStream(CONTENT));
+        assertEquals(Base64.getEncoder().encodeToString(CONTENT), file.bytes());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(CONTENT.length, file.transferTo(out));
+        assertArrayEquals(CONTENT, out.toByteArray());
+    }
+
+    @Test
+    public void testStreamedContentIsReadWhenSerialized() throws Exception {
+        byte[] encoded = Base64.getEncoder().encode(CONTENT);
+        AtomicInteger opened = new AtomicInteger();
+        FileWithBytes file = new FileWithBytes("application/octet-stream", "data.bin", () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(encoded);
+        });
+        assertTrue(file.isStreamed());
+        assertEquals(0, opened.get());
+
+        String json = Utils.OBJECT_MAPPER.writeValueAsString(new FilePart(file));
+        assertEquals(1, opened.get());
+        FilePart part = Utils.OBJECT_MAPPER.readValue(json, FilePart.class);
+        FileWithBytes read = assertInstanceOf(FileWithBytes.class, part.getFile());
+        assertFalse(read.isStreamed());
+        assertEquals(new String(encoded, StandardCharsets.ISO_8859_1), read.bytes());
+        assertEquals("data.bin", read.name());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testStreamedContentIsNotReadToCompare() {
+        AtomicInteger opened = new AtomicInteger();
+        FileWithBytes.EncodedSource source = () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(Base64.getEncoder().encode(CONTENT));
+        };
+        FileWithBytes file = new FileWithBytes("application/octet-stream", "data.bin", source);
+        FileWithBytes sameSource = new FileWithBytes("application/octet-stream", "data.bin", source);
+        FileWithBytes held = new FileWithBytes("application/octet-stream", "data.bin",
+                Base64.getEncoder().encodeToString(CONTENT));
+
+        assertEquals(file, sameSource);
+        assertEquals(file.hashCode(), sameSource.hashCode());
+        assertNotEquals(file, held);
+        assertNotEquals(held, file);
+        assertNotEquals(file, new FileWithBytes("application/octet-stream", "data.bin", source::open));
+        assertEquals(held, new FileWithBytes("application/octet-stream", "data.bin", held.bytes()));
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    public void testDeserializeFileContent() throws Exception {
+        FileContent file = Utils.OBJECT_MAPPER.readValue("""
+                {"name": "a.png", "extra": {"nested": [1, 2]}, "bytes": "aGVsbG8=", "mimeType": "image/png"}
+                """, FileContent.class);
+        assertEquals(new FileWithBytes("image/png", "a.png", "aGVsbG8="), file);
+        assertEquals("{\"mimeType\":\"image/png\",\"name\":\"a.png\",\"bytes\":\"aGVsbG8=\"}",
+                Utils.OBJECT_MAPPER.writeValueAsString(file));
+
+        file = Utils.OBJECT_MAPPER.readValue("""
+                {"uri": "https://example.com/a.png", "name": null}
+                """, FileContent.class);
+        assertEquals(new FileWithUri(null, null, "https://example.com/a.png"), file);
+    }
+}
@@ -0,0 +1,124 @@
+package io.a2a.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AppendOnlyListTest {
+
+    @Test
+    public void testAppendKeepsEarlierListsUnchanged() {
+        AppendOnlyList<String> empty = AppendOnlyList.of();
+        AppendOnlyList<String> one = empty.append("a");
+        AppendOnlyList<String> two = one.append("b");
+        // Appending to a list which is no longer the longest must not affect the longer one
+        AppendOnlyList<String> branch = one.append("c");
+
+        assertEquals(List.of(), empty);
+        assertEquals(List.of("a"), one);
+        assertEquals(List.of("a", "b"), two);
+        assertEquals(List.of("a", "c"), branch);
+        assertEquals(List.of("a", "b", "d"), two.append("d"));
+    }
+
+    @Test
+    public void testAppendManyElements() {
+        List<Integer> expected = new ArrayList<>();
+        AppendOnlyList<Integer> list = AppendOnlyList.of();
+        for (int i = 0; i < 1000; i++) {
+            list = list.append(i);
+            expected.add(i);
+        }
+        list = list.appendAll(List.of(1000, 1001));
+        expected.addAll(List.of(1000, 1001));
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void testStaticHelpersCopyOtherListsOnce() {
+        List<String> source = new ArrayList<>(List.of("a", "b"));
+        AppendOnlyList<String> appended = AppendOnlyList.append(source, "c");
+        source.add("x");
+        assertEquals(List.of("a", "b", "c"), appended);
+        assertSame(appended, AppendOnlyList.copyOf(appended));
+        assertEquals(List.of("d"), AppendOnlyList.append(null, "d"));
+        assertEquals(List.of("a", "z", "c"), AppendOnlyList.replace(appended, 1, "z"));
+        assertEquals(List.of("a", "b", "c"), appended);
+    }
+
+    @Test
+    public void testStartsWith() {
+        AppendOnlyList<String> base = AppendOnlyList.<String>of().append("a").append("b");
+        AppendOnlyList<String> appended = base.append("c");
+        assertTrue(appended.startsWith(base));
+        assertTrue(appended.startsWith(List.of()));
+        assertFalse(base.startsWith(appended));
+        // The same elements in another list, but not equal ones
+        assertTrue(appended.startsWith(new ArrayList<>(base)));
+        assertFalse(appended.startsWith(List.of(new String("a"), "b")));
+        assertFalse(AppendOnlyList.replace(appended, 0, "z").startsWith(base));
+        assertTrue(AppendOnlyList.replace(appended, 2, "z").startsWith(base));
+
+        assertTrue(AppendOnlyList.startsWith(new ArrayList<>(appended), base));
+        assertTrue(AppendOnlyList.startsWith(null, List.of()));
+        assertFalse(AppendOnlyList.startsWith(null, base));
+        assertFalse(AppendOnlyList.startsWith(List.of("a"), base));
+    }
+
+    @Test
+    public void testReplaceSharesTheOtherElements() {
+        List<Integer> expected = new ArrayList<>();
+        AppendOnlyList<Integer> list = AppendOnlyList.of();
+        for (int i = 0; i < 2000; i++) {
+            list = list.append(i);
+            expected.add(i);
+        }
+        AppendOnlyList<Integer> original = list;
+        AppendOnlyList<Integer> prefix = AppendOnlyList.copyOf(list.subList(0, 1500));
+        for (int i = 0; i < 100; i++) {
+            list = list.replace(1999, -i);
+        }
+        list = list.replace(1500, -1500).replace(40, -40);
+        expected.set(1999, -99);
+        expected.set(1500, -1500);
+        expected.set(40, -40);
+
+        assertEquals(expected, list);
+        assertEquals(1999, original.get(1999));
+        assertEquals(40, list.sharedPrefixLength(original));
+        assertEquals(40, original.sharedPrefixLength(list));
+        assertFalse(list.startsWith(prefix));
+        assertTrue(list.replace(40, 40).startsWith(original.subList(0, 1500)));
+
+        // Appending keeps the elements replaced, whether the storage is shared or copied
+        AppendOnlyList<Integer> appended = list.append(2000);
+        assertTrue(appended.startsWith(list));
+        for (int i = 2001; i < 3000; i++) {
+            appended = appended.append(i);
+        }
+        expected.add(2000);
+        for (int i = 2001; i < 3000; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, appended);
+        assertEquals(40, appended.sharedPrefixLength(original));
+        // Appending to a list which is no longer the longest copies the elements replaced
+        assertEquals(-40, list.append(-2000).get(40));
+    }
+
+    @Test
+    public void testIsImmutable() {
+        AppendOnlyList<String> list = AppendOnlyList.<String>of().append("a");
+        assertThrows(UnsupportedOperationException.class, () -> list.add("b"));
+        assertThrows(UnsupportedOperationException.class, () -> list.set(0, "b"));
+        assertThrows(IllegalArgumentException.class, () -> list.append(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+    }
+}
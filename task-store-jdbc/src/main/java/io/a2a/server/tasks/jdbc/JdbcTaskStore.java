@@ -0,0 +1,627 @@
+package io.a2a.server.tasks.jdbc;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import io.a2a.server.tasks.TaskCodec;
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.server.tasks.TaskStoreException;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.util.AppendOnlyList;
+import io.a2a.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TaskStore} keeping the tasks in a relational database, so that they survive restarts and can
+ * be shared by several servers.
+ * <p>
+ * Each task is a row keyed by its id, holding the task encoded by {@link TaskCodec} along with its
+ * context id and state, which are indexed so that tasks can be looked up by them. The history of the task
+ * is kept apart, in a second table suffixed with {@code _history}, in segments of up to
+ * {@value #HISTORY_SEGMENT_SIZE} messages keyed by the id of the task and the number of the segment. Reading
+ * a task with a history length thereby reads only the last segments, and saving a task only writes the
+ * segments which changed, as told by a digest kept with each. The store remembers the segments it last
+ * encoded for the recently saved tasks, so that saving a task whose history was appended to only encodes
+ * the segments from the last one saved onwards. A task and its history are read in one transaction, at
+ * the repeatable read isolation level where the database supports it, so that a task is never read with
+ * the history of another version of it. The tables are created by
+ * {@link #createSchema()}, unless they are managed separately. Tasks saved before the history table was
+ * used keep their history inline until they are saved again.
+ * <p>
+ * Saves use portable SQL: the rows of a batch are updated with a single batched statement, and those
+ * which did not exist yet are then inserted with another, all in one transaction. Combined with
+ * {@link io.a2a.server.tasks.WriteBehindTaskStore}, this writes many task updates per round trip.
+ */
+public class JdbcTaskStore implements TaskStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcTaskStore.class);
+
+    public static final String DEFAULT_TABLE_NAME = "a2a_tasks";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    // A concurrent save may insert a task between our update and insert of it
+    private static final int MAX_ATTEMPTS = 3;
+    // The number of ids read by a single statement, below the limits of the number of parameters of databases
+    private static final int MAX_IDS_PER_READ = 100;
+    // The number of messages of the history of a task held by each row of the history table
+    static final int HISTORY_SEGMENT_SIZE = 32;
+    // The number of tasks whose encoded history is remembered
+    private static final int MAX_ENCODED_HISTORIES = 1024;
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final String historyTableName;
+    private final String updateSql;
+    private final String insertSql;
+    private final String selectSql;
+    private final String deleteSql;
+    private final String selectSegmentsSql;
+    private final String updateSegmentSql;
+    private final String insertSegmentSql;
+    private final String deleteSegmentsSql;
+    // The history of each task as last encoded, with its segments, least recently saved first
+    private final Map<String, EncodedHistory> encodedHistories = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EncodedHistory> eldest) {
+            return size() > MAX_ENCODED_HISTORIES;
+        }
+    };
+
+    public JdbcTaskStore(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE_NAME);
+    }
+
+    public JdbcTaskStore(DataSource dataSource, String tableName) {
+        Assert.checkNotNullParam("dataSource", dataSource);
+        Assert.checkNotNullParam("tableName", tableName);
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + tableName);
+        }
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.historyTableName = tableName + "_history";
+        this.updateSql = "UPDATE " + tableName + " SET context_id = ?, state = ?, task_data = ? WHERE task_id = ?";
+        this.insertSql = "INSERT INTO " + tableName + " (task_id, context_id, state, task_data) VALUES (?, ?, ?, ?)";
+        this.selectSql = "SELECT task_data FROM " + tableName + " WHERE task_id = ?";
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE task_id = ?";
+        this.selectSegmentsSql = "SELECT segment_data FROM " + historyTableName
+                + " WHERE task_id = ? ORDER BY segment_no DESC";
+        this.updateSegmentSql = "UPDATE " + historyTableName + " SET digest = ?, segment_data = ?"
+                + " WHERE task_id = ? AND segment_no = ?";
+        this.insertSegmentSql = "INSERT INTO " + historyTableName + " (task_id, segment_no, digest, segment_data)"
+                + " VALUES (?, ?, ?, ?)";
+        this.deleteSegmentsSql = "DELETE FROM " + historyTableName + " WHERE task_id = ? AND segment_no >= ?";
+    }
+
+    /**
+     * Creates the tables of the tasks and of their history, and their indexes, unless they exist already.
+     */
+    public void createSchema() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                    + "task_id VARCHAR(255) NOT NULL PRIMARY KEY, "
+                    + "context_id VARCHAR(255) NOT NULL, "
+                    + "state VARCHAR(32) NOT NULL, "
+                    + "task_data BLOB NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_context_id ON " + tableName + " (context_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_context_id_state ON " + tableName
+                    + " (context_id, state, task_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS " + tableName + "_state ON " + tableName + " (state, task_id)");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + historyTableName + " ("
+                    + "task_id VARCHAR(255) NOT NULL, "
+                    + "segment_no INT NOT NULL, "
+                    + "digest VARCHAR(44) NOT NULL, "
+                    + "segment_data BLOB NOT NULL, "
+                    + "PRIMARY KEY (task_id, segment_no))");
+        } catch (SQLException e) {
+            throw new TaskStoreException("Failed to create the schema of table " + tableName, e);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        saveAll(List.of(task));
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<EncodedTask> encoded = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            encoded.add(encode(task));
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                upsert(encoded);
+                return;
+            } catch (SQLException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new TaskStoreException("Failed to save " + tasks.size() + " tasks", e);
+                }
+                LOGGER.debug("Retrying to save {} tasks after a failed attempt", tasks.size(), e);
+            }
+        }
+    }
+
+    @Override
+    public Task get(String taskId) {
+        return read(taskId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads only the last segments of the history of the task, those holding the messages returned.
+     */
+    @Override
+    public Task get(String taskId, int historyLength) {
+        if (historyLength < 0) {
+            throw new IllegalArgumentException("History length must not be negative");
+        }
+        return read(taskId, historyLength);
+    }
+
+    /**
+     * Reads the tasks with as few statements as possible, each selecting up to a hundred tasks, or the
+     * history of up to a hundred tasks, by their ids.
+     */
+    @Override
+    public Map<String, Task> getAll(Collection<String> taskIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(taskIds));
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return tasks;
+        }
+        Map<String, Task> found = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            inReadTransaction(connection, () -> {
+                for (int from = 0; from < ids.size(); from += MAX_IDS_PER_READ) {
+                    List<String> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_READ, ids.size()));
+                    String sql = "SELECT task_id, task_data FROM " + tableName + " WHERE task_id IN "
+                            + parameters(chunk.size());
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        setStrings(statement, chunk);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                found.put(resultSet.getString(1), TaskCodec.decode(resultSet.getBytes(2)));
+                            }
+                        }
+                    }
+                }
+                attachHistories(connection, found);
+                return found;
+            });
+        } catch (SQLException e) {
+            throw new TaskStoreException("Failed to get " + ids.size() + " tasks", e);
+        }
+        for (String taskId : ids) {
+            Task task = found.get(taskId);
+            if (task != null) {
+                tasks.put(taskId, task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        synchronized (encodedHistories) {
+            encodedHistories.remove(taskId);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (PreparedStatement statement = connection.prepareStatement(deleteSegmentsSql)) {
+                    statement.setString(1, taskId);
+                    statement.setInt(2, 0);
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                    statement.setString(1, taskId);
+                    statement.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new TaskStoreException("Failed to delete task " + taskId, e);
+        }
+    }
+
+    /**
+     * Lists the tasks in the order of their ids, so that a cursor is the id of the last task listed and
+     * each page is read from the indexes by a range scan.
+     */
+    @Override
+    public ListTasksResult list(String contextId, TaskState state, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        StringBuilder sql = new StringBuilder("SELECT task_data FROM ").append(tableName).append(" WHERE 1 = 1");
+        if (contextId != null) {
+            sql.append(" AND context_id = ?");
+        }
+        if (state != null) {
+            sql.append(" AND state = ?");
+        }
+        if (cursor != null) {
+            sql.append(" AND task_id > ?");
+        }
+        sql.append(" ORDER BY task_id");
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int parameter = 1;
+            if (contextId != null) {
+                statement.setString(parameter++, contextId);
+            }
+            if (state != null) {
+                statement.setString(parameter++, state.asString());
+            }
+            if (cursor != null) {
+                statement.setString(parameter, cursor);
+            }
+            // One more than the page, to tell whether there is a next page
+            statement.setMaxRows(pageSize + 1);
+            return inReadTransaction(connection, () -> {
+                Map<String, Task> tasks = new LinkedHashMap<>();
+                boolean hasNext = false;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (tasks.size() == pageSize) {
+                            hasNext = true;
+                            break;
+                        }
+                        Task task = TaskCodec.decode(resultSet.getBytes(1));
+                        tasks.put(task.getId(), task);
+                    }
+                }
+                attachHistories(connection, tasks);
+                List<Task> page = List.copyOf(tasks.values());
+                return new ListTasksResult(page, hasNext ? page.get(page.size() - 1).getId() : null);
+            });
+        } catch (SQLException e) {
+            throw new TaskStoreException("Failed to list tasks", e);
+        }
+    }
+
+    private void upsert(List<EncodedTask> tasks) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                List<EncodedTask> missing = update(connection, tasks);
+                if (!missing.isEmpty()) {
+                    insert(connection, missing);
+                }
+                writeHistories(connection, tasks);
+            });
+        }
+    }
+
+    // Returns the tasks which have no row yet
+    private List<EncodedTask> update(Connection connection, List<EncodedTask> tasks) throws SQLException {
+        List<EncodedTask> missing = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+            for (EncodedTask task : tasks) {
+                statement.setString(1, task.task().getContextId());
+                statement.setString(2, task.task().getStatus().state().asString());
+                statement.setBytes(3, task.data());
+                statement.setString(4, task.task().getId());
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                int count = counts[i];
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    // The driver does not tell, so find out by updating the row on its own
+                    EncodedTask task = tasks.get(i);
+                    statement.setString(1, task.task().getContextId());
+                    statement.setString(2, task.task().getStatus().state().asString());
+                    statement.setBytes(3, task.data());
+                    statement.setString(4, task.task().getId());
+                    count = statement.executeUpdate();
+                }
+                if (count == 0) {
+                    missing.add(tasks.get(i));
+                }
+            }
+        }
+        return missing;
+    }
+
+    private void insert(Connection connection, List<EncodedTask> tasks) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            for (EncodedTask task : tasks) {
+                statement.setString(1, task.task().getId());
+                statement.setString(2, task.task().getContextId());
+                statement.setString(3, task.task().getStatus().state().asString());
+                statement.setBytes(4, task.data());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // Reads the task with the last messages of its history, up to the history length
+    private Task read(String taskId, int historyLength) {
+        try (Connection connection = dataSource.getConnection()) {
+            return inReadTransaction(connection, () -> {
+                Task task;
+                try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                    statement.setString(1, taskId);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (!resultSet.next()) {
+                            return null;
+                        }
+                        task = TaskCodec.decode(resultSet.getBytes(1));
+                    }
+                }
+                if (hasInlineHistory(task)) {
+                    return TaskStore.withHistoryLength(task, historyLength);
+                }
+                if (historyLength == 0) {
+                    return task;
+                }
+                List<List<Message>> segments = new ArrayList<>();
+                int messages = 0;
+                try (PreparedStatement statement = connection.prepareStatement(selectSegmentsSql)) {
+                    statement.setString(1, taskId);
+                    // The last segment may hold a single message, so the messages may span one more segment
+                    long spanned = ((long) historyLength - 1 + HISTORY_SEGMENT_SIZE - 1) / HISTORY_SEGMENT_SIZE;
+                    statement.setMaxRows(1 + (int) spanned);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (messages < historyLength && resultSet.next()) {
+                            List<Message> segment = TaskCodec.decodeMessages(resultSet.getBytes(1));
+                            segments.add(segment);
+                            messages += segment.size();
+                        }
+                    }
+                }
+                List<Message> history = new ArrayList<>(messages);
+                for (int i = segments.size() - 1; i >= 0; i--) {
+                    history.addAll(segments.get(i));
+                }
+                return TaskStore.withHistoryLength(withHistory(task, history), historyLength);
+            });
+        } catch (SQLException e) {
+            throw new TaskStoreException("Failed to get task " + taskId, e);
+        }
+    }
+
+    // Reads the whole history of the tasks which do not hold theirs inline, replacing them with tasks holding it
+    private void attachHistories(Connection connection, Map<String, Task> tasks) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (!hasInlineHistory(task)) {
+                ids.add(task.getId());
+            }
+        }
+        Map<String, List<Message>> histories = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_READ) {
+            List<String> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_READ, ids.size()));
+            String sql = "SELECT task_id, segment_data FROM " + historyTableName + " WHERE task_id IN "
+                    + parameters(chunk.size()) + " ORDER BY task_id, segment_no";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                setStrings(statement, chunk);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        histories.computeIfAbsent(resultSet.getString(1), id -> new ArrayList<>())
+                                .addAll(TaskCodec.decodeMessages(resultSet.getBytes(2)));
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, List<Message>> history : histories.entrySet()) {
+            tasks.computeIfPresent(history.getKey(), (id, task) -> withHistory(task, history.getValue()));
+        }
+    }
+
+    // Writes the segments of the histories which changed, and deletes those past the end of the histories
+    private void writeHistories(Connection connection, List<EncodedTask> tasks) throws SQLException {
+        Map<String, Map<Integer, String>> stored = readDigests(connection, tasks);
+        try (PreparedStatement update = connection.prepareStatement(updateSegmentSql);
+             PreparedStatement insert = connection.prepareStatement(insertSegmentSql);
+             PreparedStatement delete = connection.prepareStatement(deleteSegmentsSql)) {
+            boolean updates = false;
+            boolean inserts = false;
+            boolean deletes = false;
+            for (EncodedTask task : tasks) {
+                String taskId = task.task().getId();
+                Map<Integer, String> digests = stored.getOrDefault(taskId, Map.of());
+                for (int i = 0; i < task.segments().size(); i++) {
+                    EncodedSegment segment = task.segments().get(i);
+                    String digest = digests.get(i);
+                    if (digest == null) {
+                        insert.setString(1, taskId);
+                        insert.setInt(2, i);
+                        insert.setString(3, segment.digest());
+                        insert.setBytes(4, segment.encoded());
+                        insert.addBatch();
+                        inserts = true;
+                    } else if (!digest.equals(segment.digest())) {
+                        update.setString(1, segment.digest());
+                        update.setBytes(2, segment.encoded());
+                        update.setString(3, taskId);
+                        update.setInt(4, i);
+                        update.addBatch();
+                        updates = true;
+                    }
+                }
+                if (digests.size() > task.segments().size()) {
+                    delete.setString(1, taskId);
+                    delete.setInt(2, task.segments().size());
+                    delete.addBatch();
+                    deletes = true;
+                }
+            }
+            if (deletes) {
+                delete.executeBatch();
+            }
+            if (updates) {
+                update.executeBatch();
+            }
+            if (inserts) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    // The digests of the segments of the histories of the tasks, by task id and segment number
+    private Map<String, Map<Integer, String>> readDigests(Connection connection, List<EncodedTask> tasks)
+            throws SQLException {
+        Map<String, Map<Integer, String>> digests = new HashMap<>();
+        for (int from = 0; from < tasks.size(); from += MAX_IDS_PER_READ) {
+            List<EncodedTask> chunk = tasks.subList(from, Math.min(from + MAX_IDS_PER_READ, tasks.size()));
+            String sql = "SELECT task_id, segment_no, digest FROM " + historyTableName + " WHERE task_id IN "
+                    + parameters(chunk.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i).task().getId());
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        digests.computeIfAbsent(resultSet.getString(1), id -> new HashMap<>())
+                                .put(resultSet.getInt(2), resultSet.getString(3));
+                    }
+                }
+            }
+        }
+        return digests;
+    }
+
+    private static void inTransaction(Connection connection, SqlWork work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Reads in a transaction which sees the rows as they were when they were first read, where the database
+    // supports it, so that rows read by separate statements belong to the same versions of the tasks
+    private static <T> T inReadTransaction(Connection connection, SqlRead<T> read) throws SQLException {
+        int isolation = connection.getTransactionIsolation();
+        boolean raised = isolation < Connection.TRANSACTION_REPEATABLE_READ
+                && connection.getMetaData().supportsTransactionIsolationLevel(Connection.TRANSACTION_REPEATABLE_READ);
+        if (raised) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            T result = read.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            if (raised) {
+                connection.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    // Encodes the task without its history, which is encoded in segments. The complete segments of the
+    // history last encoded for the task are reused when the history starts with the same messages.
+    private EncodedTask encode(Task task) {
+        List<Message> history = task.getHistory();
+        if (history == null || history.isEmpty()) {
+            return new EncodedTask(task, TaskCodec.encode(task), List.of());
+        }
+        EncodedHistory previous;
+        synchronized (encodedHistories) {
+            previous = encodedHistories.get(task.getId());
+        }
+        List<EncodedSegment> segments = new ArrayList<>();
+        if (previous != null && AppendOnlyList.startsWith(history, previous.history())) {
+            segments.addAll(previous.segments().subList(0, previous.history().size() / HISTORY_SEGMENT_SIZE));
+        }
+        List<EncodedSegment> remembered = new ArrayList<>(segments);
+        for (int from = segments.size() * HISTORY_SEGMENT_SIZE; from < history.size(); from += HISTORY_SEGMENT_SIZE) {
+            List<Message> messages = history.subList(from, Math.min(from + HISTORY_SEGMENT_SIZE, history.size()));
+            byte[] data = TaskCodec.encodeMessages(messages);
+            String digest = digest(data);
+            segments.add(new EncodedSegment(messages, digest, data));
+            // Remembered without their data, which is encoded again in the rare case it is written again
+            remembered.add(new EncodedSegment(messages, digest, null));
+        }
+        synchronized (encodedHistories) {
+            encodedHistories.put(task.getId(), new EncodedHistory(history, remembered));
+        }
+        // An empty history rather than none, which tells that the history is kept apart
+        Task withoutHistory = new Task.Builder(task).history(List.of()).build();
+        return new EncodedTask(task, TaskCodec.encode(withoutHistory), segments);
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    // Whether the task was saved with its history inline, before the history table was used
+    private static boolean hasInlineHistory(Task task) {
+        return task.getHistory() != null && !task.getHistory().isEmpty();
+    }
+
+    private static Task withHistory(Task task, List<Message> history) {
+        return history.isEmpty() ? task : new Task.Builder(task).history(history).build();
+    }
+
+    private static String parameters(int count) {
+        return "(?" + ", ?".repeat(count - 1) + ")";
+    }
+
+    private static void setStrings(PreparedStatement statement, List<String> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setString(i + 1, values.get(i));
+        }
+    }
+
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    private interface SqlRead<T> {
+        T run() throws SQLException;
+    }
+
+    private record EncodedTask(Task task, byte[] data, List<EncodedSegment> segments) {
+    }
+
+    // The data is null for a segment encoded by an earlier save, whose messages are encoded again if needed
+    private record EncodedSegment(List<Message> messages, String digest, byte[] data) {
+
+        byte[] encoded() {
+            return data != null ? data : TaskCodec.encodeMessages(messages);
+        }
+    }
+
+    private record EncodedHistory(List<Message> history, List<EncodedSegment> segments) {
+    }
+}
@@ -0,0 +1,135 @@
+package io.a2a.server.tasks.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.server.tasks.WriteBehindTaskStore;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Saves tasks from several threads, to the JDBC store on its own and behind a write-behind store, and
+ * checks that every task is read back as last saved.
+ */
+public class JdbcTaskStoreConcurrencyTest {
+
+    private static final AtomicInteger TABLES = new AtomicInteger();
+    private static final int THREADS = 4;
+    private static final int TASKS = 20;
+    private static final int UPDATES_PER_TASK = 5;
+
+    private String tableName;
+
+    @BeforeEach
+    public void init() {
+        tableName = "a2a_tasks_concurrency_" + TABLES.incrementAndGet();
+    }
+
+    @Test
+    public void testBatchesSavedConcurrentlyAreReadBack() throws Exception {
+        JdbcTaskStore store = new JdbcTaskStore(new DriverManagerDataSource(), tableName);
+        store.createSchema();
+
+        // The threads save the same tasks, so that they race to insert each of them
+        saveConcurrently(store);
+
+        assertAllCompleted(store);
+    }
+
+    @Test
+    public void testSavesBehindWriteBehindStoreAreReadBack() throws Exception {
+        JdbcTaskStore store = new JdbcTaskStore(new DriverManagerDataSource(), tableName);
+        store.createSchema();
+
+        try (WriteBehindTaskStore writeBehind = new WriteBehindTaskStore(store)) {
+            saveConcurrently(writeBehind);
+            assertAllCompleted(writeBehind);
+        }
+        assertAllCompleted(store);
+    }
+
+    @Test
+    public void testTaskInsertedConcurrentlyIsUpdatedOnRetry() {
+        JdbcTaskStore other = new JdbcTaskStore(new DriverManagerDataSource(), tableName);
+        other.createSchema();
+        AtomicInteger conflicts = new AtomicInteger();
+        // Inserts the task from another store right after this store found it missing, the first time
+        JdbcTaskStore store = new JdbcTaskStore(new DriverManagerDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().equals("prepareStatement")
+                                    && ((String) args[0]).startsWith("INSERT INTO " + tableName + " ")
+                                    && conflicts.getAndIncrement() == 0) {
+                                other.save(JdbcTaskStoreTest.task("task-abc", TaskState.SUBMITTED));
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        }, tableName);
+
+        store.save(JdbcTaskStoreTest.task("task-abc", TaskState.WORKING));
+
+        assertEquals(1, conflicts.get());
+        assertEquals(TaskState.WORKING, store.get("task-abc").getStatus().state());
+        assertEquals(TaskState.WORKING, other.get("task-abc").getStatus().state());
+    }
+
+    private static void saveConcurrently(TaskStore store) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int u = 0; u < UPDATES_PER_TASK; u++) {
+                        TaskState state = u == UPDATES_PER_TASK - 1 ? TaskState.COMPLETED : TaskState.WORKING;
+                        List<Task> batch = new ArrayList<>(TASKS);
+                        for (int i = 0; i < TASKS; i++) {
+                            batch.add(JdbcTaskStoreTest.task("task-" + i, state));
+                        }
+                        store.saveAll(batch);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertAllCompleted(TaskStore store) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            ids.add("task-" + i);
+        }
+        Map<String, Task> tasks = store.getAll(ids);
+        assertEquals(ids, List.copyOf(tasks.keySet()));
+        for (Task task : tasks.values()) {
+            assertEquals(TaskState.COMPLETED, task.getStatus().state());
+        }
+    }
+}
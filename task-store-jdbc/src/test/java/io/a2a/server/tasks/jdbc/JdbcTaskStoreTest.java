@@ -0,0 +1,229 @@
+package io.a2a.server.tasks.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.a2a.server.tasks.WriteBehindOptions;
+import io.a2a.server.tasks.WriteBehindTaskStore;
+import io.a2a.spec.Artifact;
+import io.a2a.spec.ListTasksResult;
+import io.a2a.spec.Message;
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import io.a2a.spec.TextPart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JdbcTaskStoreTest {
+
+    private static final AtomicInteger TABLES = new AtomicInteger();
+
+    private JdbcTaskStore store;
+
+    @BeforeEach
+    public void init() {
+        store = new JdbcTaskStore(new DriverManagerDataSource(), "a2a_tasks_" + TABLES.incrementAndGet());
+        store.createSchema();
+    }
+
+    @Test
+    public void testSaveGetAndDelete() {
+        assertNull(store.get("task-abc"));
+
+        Task task = task("task-abc", TaskState.SUBMITTED);
+        store.save(task);
+        assertTaskEquals(task, store.get("task-abc"));
+
+        Task updated = new Task.Builder(task)
+                .status(new TaskStatus(TaskState.COMPLETED))
+                .artifacts(List.of(new Artifact.Builder()
+                        .artifactId("artifact-1")
+                        .parts(new TextPart("x".repeat(10_000)))
+                        .build()))
+                .build();
+        store.save(updated);
+        assertTaskEquals(updated, store.get("task-abc"));
+
+        store.delete("task-abc");
+        assertNull(store.get("task-abc"));
+    }
+
+    @Test
+    public void testSaveAllUpdatesAndInsertsInOneBatch() {
+        store.save(task("task-1", TaskState.SUBMITTED));
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(task("task-" + i, TaskState.WORKING));
+        }
+        store.saveAll(batch);
+
+        for (Task task : batch) {
+            assertTaskEquals(task, store.get(task.getId()));
+        }
+    }
+
+    @Test
+    public void testBehindWriteBehindStore() {
+        try (WriteBehindTaskStore writeBehind = new WriteBehindTaskStore(store, new WriteBehindOptions.Builder()
+                .maxBatchSize(10)
+                .build())) {
+            for (int i = 0; i < 25; i++) {
+                writeBehind.save(task("task-" + (i % 12), TaskState.WORKING));
+            }
+            assertTaskEquals(task("task-11", TaskState.WORKING), writeBehind.get("task-11"));
+        }
+        assertTaskEquals(task("task-0", TaskState.WORKING), store.get("task-0"));
+    }
+
+    @Test
+    public void testGetAllReadsInChunks() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            store.save(task("task-" + i, TaskState.WORKING));
+            ids.add(0, "task-" + i);
+        }
+        ids.add(100, "missing");
+
+        Map<String, Task> tasks = store.getAll(ids);
+        assertEquals(250, tasks.size());
+        assertEquals("task-249", tasks.keySet().iterator().next());
+        assertTaskEquals(task("task-0", TaskState.WORKING), tasks.get("task-0"));
+        assertTrue(store.getAll(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testListByContextAndState() {
+        for (int i = 0; i < 5; i++) {
+            store.save(task("task-" + i, TaskState.WORKING));
+        }
+        store.save(task("task-1", TaskState.COMPLETED));
+        store.save(new Task.Builder(task("task-5", TaskState.WORKING)).contextId("session-abc").build());
+
+        ListTasksResult page = store.list("session-xyz", TaskState.WORKING, null, 2);
+        assertEquals(List.of("task-0", "task-2"), ids(page));
+        page = store.list("session-xyz", TaskState.WORKING, page.nextCursor(), 2);
+        assertEquals(List.of("task-3", "task-4"), ids(page));
+        assertNull(page.nextCursor());
+
+        assertEquals(List.of("task-1"), ids(store.list(null, TaskState.COMPLETED, null, 10)));
+        assertEquals(List.of("task-5"), ids(store.list("session-abc", null, null, 10)));
+        assertEquals(6, store.list(null, null, null, 10).tasks().size());
+    }
+
+    @Test
+    public void testHistoryIsReadBySegments() {
+        int length = JdbcTaskStore.HISTORY_SEGMENT_SIZE * 3 + 5;
+        Task task = withHistory(task("task-abc", TaskState.WORKING), length);
+        store.save(task);
+
+        assertEquals(messageIds(task.getHistory()), messageIds(store.get("task-abc").getHistory()));
+        assertEquals(List.of("message-" + (length - 1)), messageIds(store.get("task-abc", 1).getHistory()));
+        assertEquals(messageIds(task.getHistory().subList(5, length)),
+                messageIds(store.get("task-abc", length - 5).getHistory()));
+        assertEquals(List.of(), store.get("task-abc", 0).getHistory());
+        assertEquals(length, store.get("task-abc", length * 2).getHistory().size());
+        assertEquals(length, store.getAll(List.of("task-abc")).get("task-abc").getHistory().size());
+        assertEquals(length, store.list(null, null, null, 10).tasks().get(0).getHistory().size());
+
+        // Shortened, so that the segments past its end are deleted
+        Task shortened = withHistory(task("task-abc", TaskState.COMPLETED), 3);
+        store.save(shortened);
+        assertEquals(messageIds(shortened.getHistory()), messageIds(store.get("task-abc").getHistory()));
+        store.save(task("task-abc", TaskState.COMPLETED));
+        assertNull(store.get("task-abc").getHistory());
+
+        store.delete("task-abc");
+        assertNull(store.get("task-abc", 1));
+    }
+
+    @Test
+    public void testHistoryAppendedToOrReplacedIsSaved() {
+        int length = JdbcTaskStore.HISTORY_SEGMENT_SIZE * 2 + 5;
+        Task task = withHistory(task("task-abc", TaskState.WORKING), length);
+        store.save(task);
+
+        // Only the segments from the last one saved onwards are encoded again
+        Task appended = withHistory(task, JdbcTaskStore.HISTORY_SEGMENT_SIZE);
+        store.save(appended);
+        assertEquals(messageIds(appended.getHistory()), messageIds(store.get("task-abc").getHistory()));
+
+        // A history which does not start with the one saved is encoded whole
+        Task replaced = withHistory(task("task-abc", TaskState.WORKING), length);
+        store.save(replaced);
+        assertEquals(messageIds(replaced.getHistory()), messageIds(store.get("task-abc").getHistory()));
+
+        // As is the history of a task saved by another store meanwhile
+        JdbcTaskStore other = new JdbcTaskStore(new DriverManagerDataSource(), "a2a_tasks_" + TABLES.get());
+        other.save(withHistory(task("task-abc", TaskState.WORKING), 1));
+        Task appendedAgain = withHistory(replaced, 3);
+        store.save(appendedAgain);
+        assertEquals(messageIds(appendedAgain.getHistory()), messageIds(store.get("task-abc").getHistory()));
+    }
+
+    @Test
+    public void testInvalidTableName() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JdbcTaskStore(new DriverManagerDataSource(), "tasks; DROP TABLE users"));
+    }
+
+    static Task task(String id, TaskState state) {
+        return new Task.Builder()
+                .id(id)
+                .contextId("session-xyz")
+                .status(new TaskStatus(state))
+                .build();
+    }
+
+    private static Task withHistory(Task task, int length) {
+        Task.Builder builder = new Task.Builder(task);
+        for (int i = 0; i < length; i++) {
+            builder.appendHistory(new Message.Builder()
+                    .messageId("message-" + i)
+                    .role(Message.Role.USER)
+                    .parts(new TextPart("text " + i))
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private static List<String> messageIds(List<Message> history) {
+        List<String> ids = new ArrayList<>();
+        for (Message message : history) {
+            ids.add(message.getMessageId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(ListTasksResult page) {
+        List<String> ids = new ArrayList<>();
+        for (Task task : page.tasks()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private static void assertTaskEquals(Task expected, Task actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getContextId(), actual.getContextId());
+        assertEquals(expected.getStatus().state(), actual.getStatus().state());
+        assertEquals(texts(expected), texts(actual));
+    }
+
+    private static List<String> texts(Task task) {
+        List<String> texts = new ArrayList<>();
+        if (task.getArtifacts() != null) {
+            for (Artifact artifact : task.getArtifacts()) {
+                texts.add(((TextPart) artifact.parts().get(0)).getText());
+            }
+        }
+        return texts;
+    }
+}
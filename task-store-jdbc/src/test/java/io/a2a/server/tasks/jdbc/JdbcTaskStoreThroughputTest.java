@@ -0,0 +1,101 @@
+package io.a2a.server.tasks.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.a2a.server.tasks.InMemoryTaskStore;
+import io.a2a.server.tasks.TaskStore;
+import io.a2a.server.tasks.WriteBehindTaskStore;
+import io.a2a.spec.TaskState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the throughput of the JDBC store, on its own and behind a write-behind store, with that of
+ * the in-memory store under concurrent saves and gets. Since the results depend on the machine, they are
+ * reported rather than asserted, and the test only runs in the {@code benchmark} profile:
+ * <pre>
+ * mvn -pl task-store-jdbc -am test -Pbenchmark
+ * </pre>
+ */
+@Tag("benchmark")
+public class JdbcTaskStoreThroughputTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcTaskStoreThroughputTest.class);
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 200;
+    private static final int UPDATES_PER_TASK = 10;
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Test
+    public void testConcurrentSaveAndGet() throws Exception {
+        JdbcTaskStore jdbc = new JdbcTaskStore(new DriverManagerDataSource(), "a2a_tasks_throughput");
+        jdbc.createSchema();
+
+        double inMemory = measure("in-memory", new InMemoryTaskStore());
+        double direct = measure("jdbc", jdbc);
+        double writeBehind;
+        try (WriteBehindTaskStore store = new WriteBehindTaskStore(jdbc)) {
+            writeBehind = measure("jdbc write-behind", store);
+        }
+
+        LOGGER.info("Throughput relative to the in-memory store: jdbc {}%, jdbc write-behind {}%",
+                Math.round(100 * direct / inMemory), Math.round(100 * writeBehind / inMemory));
+    }
+
+    private static double measure(String name, TaskStore store) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(name + "-warmup-" + round, store);
+        }
+        long nanos = run(name, store);
+        int operations = THREADS * TASKS_PER_THREAD * (UPDATES_PER_TASK + 1);
+        double perSecond = operations / (nanos / 1_000_000_000.0);
+        LOGGER.info("{}: {} operations from {} threads in {} ms ({} ops/s)", name, operations, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(nanos), Math.round(perSecond));
+        return perSecond;
+    }
+
+    // Returns the time taken once all the threads are ready, so that their start up is not measured
+    private static long run(String name, TaskStore store) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch ready = new CountDownLatch(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String prefix = name + "-" + t + "-";
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                        String id = prefix + i;
+                        for (int u = 0; u < UPDATES_PER_TASK; u++) {
+                            store.save(JdbcTaskStoreTest.task(id,
+                                    u == UPDATES_PER_TASK - 1 ? TaskState.COMPLETED : TaskState.WORKING));
+                        }
+                        assertEquals(TaskState.COMPLETED, store.get(id).getStatus().state());
+                    }
+                    return null;
+                }));
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}